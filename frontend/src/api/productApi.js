@@ -54,9 +54,14 @@ const productApi = {
         axiosClient.delete(`/api/products/reviews/${reviewId}`),
 
     // Search and filter endpoints
-    searchProducts: (query) =>
+    searchProducts: (query, page = 0, size = 20) =>
         axiosClient.get("/api/products/search", {
-            params: { query },
+            params: { query, page, size },
+        }),
+
+    suggestProducts: (prefix, limit = 8) =>
+        axiosClient.get("/api/products/suggest", {
+            params: { prefix, limit },
         }),
 
     getProductsByPriceRange: (minPrice, maxPrice) =>
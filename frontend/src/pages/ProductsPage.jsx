@@ -102,8 +102,8 @@ export default function ProductsPage() {
                 }
                 // If search query exists, use search endpoint
                 else if (currentSearchQuery) {
-                    const response = await productApi.searchProducts(currentSearchQuery);
-                    productsData = response.data?.data || response.data || [];
+                    const response = await productApi.searchProducts(currentSearchQuery, 0, 200);
+                    productsData = response.data?.data?.content || response.data?.content || response.data?.data || response.data || [];
                     if (!Array.isArray(productsData)) {
                         productsData = [];
                     }
@@ -0,0 +1,163 @@
+package org.example.onlinestorebackend.Config;
+
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Entity.Category;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.Review;
+import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.Repository.ReviewRepository;
+import org.example.onlinestorebackend.Service.ProductCategoryRelationService;
+import org.example.onlinestorebackend.Service.ProductRatingService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Uygulama başladığında products koleksiyonundaki eski dokümanları
+ * güncel şemaya getirir. Her adım idempotent'tir; iş kalmadıysa hiçbir şey yazmaz.
+ * Adımlar dokümanın tamamını kaydetmez, sadece kendi alanını $set ile yazar; böylece bir adım
+ * sonraki adımın boş olup olmadığına baktığı alanı (ör. ratingSummary) varsayılan değerle doldurmaz.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductDataMigration implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductCategoryRelationService productCategoryRelationService;
+    private final ReviewRepository reviewRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(String... args) {
+        backfillRatingSummaries();
+        backfillFinalPrice();
+        backfillCategoryIds();
+        backfillCategoryNames();
+        removeReviewIds();
+    }
+
+    // finalPrice alanı olmayan ürünleri batch'ler halinde hesaplayıp kaydet
+    private void backfillFinalPrice() {
+        int migrated = 0;
+        Page<Product> batch = productRepository.findByFinalPriceIsNullAndPriceIsNotNull(PageRequest.of(0, BATCH_SIZE));
+        while (batch.hasContent()) {
+            batch.getContent().forEach(Product::refreshFinalPrice);
+            setField(batch.getContent(), "finalPrice", Product::getFinalPrice);
+            migrated += batch.getNumberOfElements();
+            // Kaydedilenler artık sorguya uymadığı için her seferinde ilk sayfayı tekrar iste
+            batch = productRepository.findByFinalPriceIsNullAndPriceIsNotNull(PageRequest.of(0, BATCH_SIZE));
+        }
+        if (migrated > 0) {
+            System.out.println("finalPrice backfill tamamlandı: " + migrated + " ürün");
+        }
+    }
+
+    // Kategori sayfaları Product.categoryIds üzerinden sorgulandığı için, alanı olmayan eski
+    // ürünlere product_category_relations koleksiyonundaki kategorileri yaz
+    private void backfillCategoryIds() {
+        int migrated = 0;
+        Page<Product> batch = productRepository.findByCategoryIdsIsNull(PageRequest.of(0, BATCH_SIZE));
+        while (batch.hasContent()) {
+            Map<String, List<String>> categoryIdsByProduct = productCategoryRelationService.getCategoryIdsForProducts(
+                    batch.getContent().stream().map(Product::getProductId).toList());
+            batch.getContent().forEach(product -> product.setCategoryIds(
+                    categoryIdsByProduct.getOrDefault(product.getProductId(), Collections.emptyList())));
+            setField(batch.getContent(), "categoryIds", Product::getCategoryIds);
+            migrated += batch.getNumberOfElements();
+            batch = productRepository.findByCategoryIdsIsNull(PageRequest.of(0, BATCH_SIZE));
+        }
+        if (migrated > 0) {
+            System.out.println("categoryIds backfill tamamlandı: " + migrated + " ürün");
+        }
+    }
+
+    // Ürün okumaları kategori isimlerini dokümandan aldığı için isimleri olmayan eski ürünlere yaz;
+    // kategoriler azdır, bir kez yüklenir
+    private void backfillCategoryNames() {
+        int migrated = 0;
+        Page<Product> batch = productRepository.findByCategoryNamesIsNull(PageRequest.of(0, BATCH_SIZE));
+        if (!batch.hasContent()) {
+            return;
+        }
+        Map<String, String> categoryNamesById = categoryRepository.findAll().stream()
+                .filter(category -> category.getCategoryName() != null)
+                .collect(Collectors.toMap(Category::getCategoryId, Category::getCategoryName));
+        while (batch.hasContent()) {
+            for (Product product : batch.getContent()) {
+                Map<String, String> names = new HashMap<>();
+                for (String categoryId : product.getCategoryIds() != null ? product.getCategoryIds() : List.<String>of()) {
+                    if (categoryNamesById.containsKey(categoryId)) {
+                        names.put(categoryId, categoryNamesById.get(categoryId));
+                    }
+                }
+                product.setCategoryNames(names);
+            }
+            setField(batch.getContent(), "categoryNames", Product::getCategoryNames);
+            migrated += batch.getNumberOfElements();
+            batch = productRepository.findByCategoryNamesIsNull(PageRequest.of(0, BATCH_SIZE));
+        }
+        System.out.println("categoryNames backfill tamamlandı: " + migrated + " ürün");
+    }
+
+    // Puan özeti olmayan eski ürünler için özeti mevcut yorum puanlarından bir kez hesapla;
+    // sonrasında özet ProductRatingService tarafından artımlı tutulur
+    private void backfillRatingSummaries() {
+        int migrated = 0;
+        Page<Product> batch = productRepository.findByRatingSummaryIsNull(PageRequest.of(0, BATCH_SIZE));
+        while (batch.hasContent()) {
+            Map<String, List<Integer>> ratingsByProduct = reviewRepository.findRatingsByProductIdIn(
+                            batch.getContent().stream().map(Product::getProductId).toList()).stream()
+                    .collect(Collectors.groupingBy(Review::getProductId,
+                            Collectors.mapping(Review::getRating, Collectors.toList())));
+            batch.getContent().forEach(product -> product.setRatingSummary(ProductRatingService.summarize(
+                    ratingsByProduct.getOrDefault(product.getProductId(), Collections.emptyList()))));
+            setField(batch.getContent(), "ratingSummary", Product::getRatingSummary);
+            migrated += batch.getNumberOfElements();
+            batch = productRepository.findByRatingSummaryIsNull(PageRequest.of(0, BATCH_SIZE));
+        }
+        if (migrated > 0) {
+            System.out.println("ratingSummary backfill tamamlandı: " + migrated + " ürün");
+        }
+    }
+
+    // Batch'teki her ürüne sadece verilen alanı yazar; alan başka bir yazımla dolduysa (ör. araya giren
+    // bir puan $inc'i) üzerine yazılmaz
+    private void setField(List<Product> products, String field, Function<Product, Object> value) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Product product : products) {
+            bulk.updateOne(
+                    Query.query(Criteria.where("productId").is(product.getProductId()).and(field).is(null)),
+                    new Update().set(field, value.apply(product)));
+        }
+        bulk.execute();
+    }
+
+    // Yorumlar artık sadece reviews.productId üzerinden bulunuyor; eski ürünlerdeki
+    // büyüyen reviewIds dizisini tek bir sunucu tarafı update ile kaldır
+    private void removeReviewIds() {
+        long modified = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("reviewIds").exists(true)),
+                new Update().unset("reviewIds"),
+                "products").getModifiedCount();
+        if (modified > 0) {
+            System.out.println("reviewIds temizlendi: " + modified + " ürün");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.onlinestorebackend.Config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Arka plan işleri için executor ve @Scheduled görevleri için scheduler. WebSocket broker kendi
+ * executor / scheduler bean'lerini tanımladığı için Spring Boot'un varsayılanları oluşturulmaz;
+ * bu yüzden havuzlar burada açıkça tanımlanır ve bean adıyla seçilir.
+ */
+@Configuration
+@EnableScheduling
+public class TaskExecutionConfig {
+
+    // @Scheduled, birden çok TaskScheduler varken "taskScheduler" adlı bean'i kullanır
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor backgroundTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("background-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -4,9 +4,12 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.onlinestorebackend.Dto.AddToCartRequest;
 import org.example.onlinestorebackend.Dto.CartResponseDto;
+import org.example.onlinestorebackend.Dto.InventoryReservationDto;
 import org.example.onlinestorebackend.Dto.UpdateCartItemRequest;
 import org.example.onlinestorebackend.Entity.Cart;
+import org.example.onlinestorebackend.Entity.InventoryReservation;
 import org.example.onlinestorebackend.Service.CartService;
+import org.example.onlinestorebackend.Service.InventoryReservationService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -19,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final CartService cartService;
+    private final InventoryReservationService inventoryReservationService;
 
     // Kullanıcının cart'ını getir (JWT'den username alınır, userId'ye çevrilir)
     @GetMapping
@@ -88,6 +92,36 @@ public class CartController {
         return ResponseEntity.noContent().build();
     }
 
+    // Checkout başlat: sepetteki adetler ödeme için süreli olarak ayrılır
+    @PostMapping("/checkout")
+    public ResponseEntity<InventoryReservationDto> startCheckout(
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        String username = userDetails.getUsername();
+        String userId = cartService.getUserIdByUsername(username);
+        InventoryReservation reservation = inventoryReservationService.reserveCart(userId);
+        InventoryReservationDto response = InventoryReservationDto.builder()
+                .reservationId(reservation.getReservationId())
+                .items(reservation.getItems())
+                .status(reservation.getStatus())
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // Checkout'tan vazgeç: ayrılan adetler hemen serbest bırakılır
+    @DeleteMapping("/checkout")
+    public ResponseEntity<Void> cancelCheckout(
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        String username = userDetails.getUsername();
+        String userId = cartService.getUserIdByUsername(username);
+        inventoryReservationService.release(userId);
+
+        return ResponseEntity.noContent().build();
+    }
+
     // Entity -> DTO dönüşümü
     private CartResponseDto convertToDto(Cart cart) {
         return CartResponseDto.builder()
@@ -51,6 +51,15 @@ public class CategoryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdCategory);
     }
 
+    // Kategori güncelle; isim değişikliği ürünlere arka planda yansır
+    @PutMapping("/{categoryId}")
+    @PreAuthorize("hasRole('PRODUCT_MANAGER')")
+    public ResponseEntity<CategoryResponseDto> updateCategory(@PathVariable String categoryId,
+                                                              @RequestBody Category category) {
+        CategoryResponseDto updatedCategory = categoryService.updateCategory(categoryId, category);
+        return ResponseEntity.ok(updatedCategory);
+    }
+
     @DeleteMapping("/{categoryId}")
     @PreAuthorize("hasRole('PRODUCT_MANAGER')")
     public ResponseEntity<Void> deleteCategory(@PathVariable String categoryId) {
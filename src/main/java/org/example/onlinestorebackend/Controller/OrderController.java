@@ -7,6 +7,7 @@ import org.example.onlinestorebackend.Dto.UpdateOrderStatusRequest;
 import org.example.onlinestorebackend.Dto.RefundRequestDto;
 import org.example.onlinestorebackend.Entity.Order;
 import org.example.onlinestorebackend.Entity.RefundRequest;
+import org.example.onlinestorebackend.Service.IdempotencyService;
 import org.example.onlinestorebackend.Service.OrderService;
 import org.example.onlinestorebackend.Service.RefundService;
 import org.springframework.http.HttpStatus;
@@ -25,6 +26,7 @@ public class OrderController {
 
     private final OrderService orderService;
     private final RefundService refundService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     public ResponseEntity<Order> createOrder(@Valid @RequestBody CreateOrderRequest request) {
@@ -32,17 +34,21 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
 
+    // Idempotency-Key ile tekrarlanan istek yeni sipariş oluşturmaz, ilk siparişi döner
     @PostMapping("/from-cart")
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<Order> createOrderFromCart(
             @RequestBody(required = false) java.util.Map<String, String> requestBody,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal UserDetails userDetails) {
-        // Convert username from JWT to userId
         String username = userDetails.getUsername();
-        String userId = orderService.getUserIdByUsername(username);
-        String shippingAddress = requestBody != null ? requestBody.get("shippingAddress") : null;
-        Order order = orderService.createOrderFromCart(userId, shippingAddress);
-        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        return idempotencyService.execute("orders.from-cart", username, idempotencyKey, requestBody, Order.class, () -> {
+            // Convert username from JWT to userId
+            String userId = orderService.getUserIdByUsername(username);
+            String shippingAddress = requestBody != null ? requestBody.get("shippingAddress") : null;
+            Order order = orderService.createOrderFromCart(userId, shippingAddress);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        });
     }
 
     @GetMapping("/{orderId}")
@@ -8,6 +8,7 @@ import org.example.onlinestorebackend.Entity.Order;
 import org.example.onlinestorebackend.Entity.User;
 import org.example.onlinestorebackend.Repository.InvoiceRepository;
 import org.example.onlinestorebackend.Repository.UserRepository;
+import org.example.onlinestorebackend.Service.IdempotencyService;
 import org.example.onlinestorebackend.Service.InvoiceService;
 import org.example.onlinestorebackend.Service.MailService;
 import org.example.onlinestorebackend.Service.OrderService;
@@ -34,9 +35,22 @@ public class PaymentController {
     private final MailService mailService;
     private final InvoiceService invoiceService;
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
+    // Idempotency-Key ile tekrarlanan ödeme yeni sipariş, fatura, PDF ve mail üretmez; ilk faturayı döner
     @PostMapping("/mock")
-    public ResponseEntity<InvoiceResponseDto> mockPayment(@RequestBody PaymentRequestDto request) {
+    public ResponseEntity<InvoiceResponseDto> mockPayment(@RequestBody PaymentRequestDto request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        // Anahtarlar kullanıcıya göre ayrılır; kimliksiz çağrıların ortak bir kapsamı olmasın
+        if (userDetails == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return idempotencyService.execute("payment.mock", userDetails.getUsername(), idempotencyKey, request, InvoiceResponseDto.class,
+                () -> processMockPayment(request));
+    }
+
+    private ResponseEntity<InvoiceResponseDto> processMockPayment(PaymentRequestDto request) {
 
         // 1) MOCK BANKA ONAYI (şimdilik hep success)
         boolean paymentApproved = true;
@@ -54,7 +68,8 @@ public class PaymentController {
                 order = null; // yoksa null bırak
             }
         } else if (request.getUserId() != null) {
-            // orderId yoksa sepete göre yeni order yarat
+            // orderId yoksa sepete göre yeni order yarat; checkout'ta ayrılan stok rezervasyonu
+            // bu siparişe dönüşerek onaylanır (rezervasyon yoksa stok doğrudan düşülür)
             order = orderService.createOrderFromCart(request.getUserId(), request.getShippingAddress());
             request.setOrderId(order.getOrderId());
         }
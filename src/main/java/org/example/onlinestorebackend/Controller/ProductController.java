@@ -1,18 +1,40 @@
 package org.example.onlinestorebackend.Controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Dto.CursorPageDto;
+import org.example.onlinestorebackend.Dto.FacetedSearchResponse;
+import org.example.onlinestorebackend.Dto.FlashSaleStatusDto;
+import org.example.onlinestorebackend.Dto.ProductFilter;
+import org.example.onlinestorebackend.Dto.ProductImportResultDto;
 import org.example.onlinestorebackend.Dto.ProductResponseDto;
+import org.example.onlinestorebackend.Dto.ProductSuggestionDto;
+import org.example.onlinestorebackend.Dto.RatingSummaryDto;
+import org.example.onlinestorebackend.Dto.RelatedProductDto;
+import org.example.onlinestorebackend.Dto.ReviewModerationRequest;
+import org.example.onlinestorebackend.Dto.ReviewModerationResultDto;
+import org.example.onlinestorebackend.Dto.TrendingProductDto;
 import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Service.CatalogFormat;
+import org.example.onlinestorebackend.Service.FlashSaleStock;
+import org.example.onlinestorebackend.Service.ProductExportService;
+import org.example.onlinestorebackend.Service.ProductImportService;
+import org.example.onlinestorebackend.Service.ProductRatingService;
 import org.example.onlinestorebackend.Service.ProductService;
+import org.example.onlinestorebackend.Service.ProductSuggestionIndex;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -22,6 +44,11 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductSuggestionIndex productSuggestionIndex;
+    private final ProductRatingService productRatingService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final FlashSaleStock flashSaleStock;
 
     // Tüm ürünleri listele (pagination + sorting)
     @GetMapping
@@ -41,6 +68,17 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    // Sonsuz kaydırma için cursor (keyset) sayfalama - count sorgusu yapılmaz.
+    // İlk istekte cursor gönderilmez; sonraki isteklerde bir önceki cevaptaki nextCursor gönderilir.
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<ProductResponseDto>> scrollProducts(
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(required = false) String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.scrollProducts(sortBy, sortDir, cursor, size));
+    }
+
     // ID'ye göre tek ürün getir
     @GetMapping("/{productId}")
     public ResponseEntity<ProductResponseDto> getProductById(@PathVariable String productId) {
@@ -67,27 +105,103 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
-    // Ürün arama (isim veya açıklama)
+    // Ürün arama (isim, model veya açıklama) - alakaya göre sıralı, sayfalı
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponseDto>> searchProducts(@RequestParam("query") String query) {
+    public ResponseEntity<Page<ProductResponseDto>> searchProducts(
+            @RequestParam("query") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Pageable pageable = PageRequest.of(page, size);
         if (query == null || query.trim().isEmpty()) {
-            return ResponseEntity.ok(List.of());
+            return ResponseEntity.ok(Page.empty(pageable));
         }
 
-        List<ProductResponseDto> products = productService.searchProducts(query);
+        Page<ProductResponseDto> products = productService.searchProducts(query.trim(), pageable);
         return ResponseEntity.ok(products);
     }
 
-    // Fiyat aralığına göre ürün ara
+    // Arama kutusu için otomatik tamamlama (bellekteki önek indeksinden, DB'ye gitmez)
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDto>> suggest(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productSuggestionIndex.suggest(prefix, Math.min(limit, 20)));
+    }
+
+    // Bu ürünle birlikte en sık satın alınan ürünler
+    @GetMapping("/{productId}/frequently-bought-together")
+    public ResponseEntity<List<RelatedProductDto>> getFrequentlyBoughtTogether(
+            @PathVariable String productId,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(productService.getFrequentlyBoughtTogether(productId, limit));
+    }
+
+    // En çok satanlar: window = hour | day | week, categoryId verilmezse genel sıralama
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingProductDto>> getTrendingProducts(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.getTrendingProducts(window, categoryId, limit));
+    }
+
+    // Fiyat aralığına göre ürün ara (indirimli fiyat), isteğe bağlı kategori ve stok filtresiyle
     @GetMapping("/price-range")
-    public ResponseEntity<List<ProductResponseDto>> getProductsByPriceRange(
-            @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
+    public ResponseEntity<Page<ProductResponseDto>> getProductsByPriceRange(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "price") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
 
-        List<ProductResponseDto> products = productService.getProductsByPriceRange(minPrice, maxPrice);
+        Sort sort = sortDir.equalsIgnoreCase("desc")
+                ? Sort.by(sortBy).descending()
+                : Sort.by(sortBy).ascending();
+
+        ProductFilter filter = ProductFilter.builder()
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .categoryId(categoryId)
+                .inStock(inStock)
+                .build();
+        Page<ProductResponseDto> products =
+                productService.getProductsByPriceRange(filter, PageRequest.of(page, size, sort));
         return ResponseEntity.ok(products);
     }
 
+    // Fasetli arama: sonuçlar + kategori / fiyat aralığı / stok sayımları tek istekte
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedSearchResponse> facetedSearch(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) List<BigDecimal> priceBoundaries,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+
+        Pageable pageable = sortBy == null || sortBy.isBlank()
+                ? PageRequest.of(page, size)
+                : PageRequest.of(page, size, sortDir.equalsIgnoreCase("desc")
+                        ? Sort.by(sortBy).descending()
+                        : Sort.by(sortBy).ascending());
+
+        ProductFilter filter = ProductFilter.builder()
+                .query(query)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .categoryId(categoryId)
+                .inStock(inStock)
+                .build();
+        return ResponseEntity.ok(productService.facetedSearch(filter, pageable, priceBoundaries));
+    }
+
     // Stokta olan ürünleri getir
     @GetMapping("/in-stock")
     public ResponseEntity<List<ProductResponseDto>> getInStockProducts() {
@@ -103,6 +217,31 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateStock(productId, quantity));
     }
 
+    // PRODUCT_MANAGER: ürünün satılabilir stoğundan units adedi flash sale havuzuna ayır (açıksa havuza ekler)
+    @PostMapping("/{productId}/flash-sale")
+    @PreAuthorize("hasRole('PRODUCT_MANAGER')")
+    public ResponseEntity<FlashSaleStatusDto> enableFlashSale(@PathVariable String productId,
+                                                              @RequestParam int units) {
+        int remaining = flashSaleStock.enable(productId, units);
+        return ResponseEntity.ok(FlashSaleStatusDto.builder()
+                .productId(productId)
+                .active(true)
+                .remainingUnits(remaining)
+                .build());
+    }
+
+    // PRODUCT_MANAGER: flash sale'i kapat; satılmayan adetler satılabilir stoğa döner
+    @DeleteMapping("/{productId}/flash-sale")
+    @PreAuthorize("hasRole('PRODUCT_MANAGER')")
+    public ResponseEntity<FlashSaleStatusDto> disableFlashSale(@PathVariable String productId) {
+        int released = flashSaleStock.disable(productId);
+        return ResponseEntity.ok(FlashSaleStatusDto.builder()
+                .productId(productId)
+                .active(false)
+                .releasedUnits(released)
+                .build());
+    }
+
     // PRODUCT_MANAGER: ürün maliyetini set et
     @PutMapping("/{productId}/cost")
     @PreAuthorize("hasRole('PRODUCT_MANAGER')")
@@ -127,6 +266,33 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
+    // Toplu ürün içe aktarma / güncelleme (PRODUCT_MANAGER rolü).
+    // Gövde NDJSON (her satır bir ürün) ya da başlıklı CSV olarak akış halinde okunur;
+    // format parametresi verilmezse Content-Type'a bakılır (text/csv -> CSV, diğerleri NDJSON).
+    // Mevcut ürünlerde sadece satırda verilen alanlar güncellenir; verilmeyen kategoriler, stok ve indirim korunur.
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('PRODUCT_MANAGER')")
+    public ResponseEntity<ProductImportResultDto> importProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+        CatalogFormat importFormat = CatalogFormat.resolve(format, request.getContentType());
+        return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), importFormat));
+    }
+
+    // Kataloğun tamamını NDJSON ya da CSV olarak akış halinde indir (PRODUCT_MANAGER için).
+    // Liste bellekte toplanmaz; Mongo cursor'ından okunan her batch doğrudan response'a yazılır.
+    @GetMapping("/my-products/export")
+    @PreAuthorize("hasRole('PRODUCT_MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        CatalogFormat exportFormat = CatalogFormat.resolve(format, null);
+        StreamingResponseBody body = out -> productExportService.exportProducts(out, exportFormat);
+        String fileName = exportFormat == CatalogFormat.CSV ? "products.csv" : "products.ndjson";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     // Tüm ürünleri getir (PRODUCT_MANAGER için)
     @GetMapping("/my-products")
     @PreAuthorize("hasRole('PRODUCT_MANAGER')")
@@ -153,6 +319,23 @@ public class ProductController {
         return ResponseEntity.ok(reviews);
     }
 
+    // Moderasyon kuyruğu: onay bekleyen yorumlar eskiden yeniye, cursor sayfalama (PRODUCT_MANAGER için)
+    @GetMapping("/reviews/moderation-queue")
+    @PreAuthorize("hasRole('PRODUCT_MANAGER')")
+    public ResponseEntity<CursorPageDto<org.example.onlinestorebackend.Dto.ReviewDto>> getModerationQueue(
+            @RequestParam(required = false) String productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getModerationQueue(productId, cursor, size));
+    }
+
+    // Toplu yorum onaylama / reddetme (PRODUCT_MANAGER için)
+    @PostMapping("/reviews/moderation")
+    @PreAuthorize("hasRole('PRODUCT_MANAGER')")
+    public ResponseEntity<ReviewModerationResultDto> moderateReviews(@RequestBody ReviewModerationRequest request) {
+        return ResponseEntity.ok(productService.moderateReviews(request));
+    }
+
     // Yorum onaylama (PRODUCT_MANAGER için)
     @PutMapping("/reviews/{reviewId}/approve")
     @PreAuthorize("hasRole('PRODUCT_MANAGER')")
@@ -176,12 +359,29 @@ public class ProductController {
         return ResponseEntity.ok(result);
     }
 
+    // Onaylı yorumlar, cursor sayfalama ile (yeniden eskiye). İlk istekte cursor gönderilmez.
+    @GetMapping("/{productId}/comments")
+    public ResponseEntity<CursorPageDto<org.example.onlinestorebackend.Dto.ReviewDto>> getApprovedComments(
+            @PathVariable String productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getApprovedComments(productId, cursor, size));
+    }
+
+    // Ham puan listesi ürünün yorum sayısıyla büyür; yeni istemciler /{productId}/rating-summary kullanmalı
+    @Deprecated
     @GetMapping("/product-ratings")
     public ResponseEntity<List<Integer>> getProductRatings(@RequestParam String productId) {
         List<Integer> result = productService.getReviewRatingsByProductId(productId);
         return ResponseEntity.ok(result);
     }
 
+    // Puan özeti: adet, toplam, ortalama ve 1-10 histogram (public endpoint)
+    @GetMapping("/{productId}/rating-summary")
+    public ResponseEntity<RatingSummaryDto> getRatingSummary(@PathVariable String productId) {
+        return ResponseEntity.ok(productRatingService.getRatingSummary(productId));
+    }
+
     // Get approved reviews for a product (public endpoint)
     @GetMapping("/{productId}/reviews")
     public ResponseEntity<List<org.example.onlinestorebackend.Dto.ReviewDto>> getProductReviews(
@@ -0,0 +1,22 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cursor (keyset) sayfalama cevabı. Toplam sayı dönmez; sonraki sayfa için
+ * nextCursor aynen geri gönderilir. Son sayfada nextCursor null'dır.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> content = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,46 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedSearchResponse {
+
+    private List<ProductResponseDto> content = new ArrayList<>();
+    private int page;
+    private int size;
+    private long totalElements;
+
+    private List<CategoryFacet> categories = new ArrayList<>();
+    private List<PriceBucket> priceBuckets = new ArrayList<>();
+    // Fiyatı olmayan ürünler hiçbir fiyat aralığına sayılmaz
+    private long noPriceCount;
+    private long inStockCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryFacet {
+        private String categoryId;
+        private String categoryName;
+        private long count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+        // null: alt sınır yok
+        private BigDecimal min;
+        // null: üst sınır yok
+        private BigDecimal max;
+        private long count;
+    }
+}
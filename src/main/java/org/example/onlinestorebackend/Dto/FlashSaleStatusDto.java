@@ -0,0 +1,17 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSaleStatusDto {
+    private String productId;
+    private boolean active;
+    private int remainingUnits; // bellekteki havuzda satılmayı bekleyen adet
+    private int releasedUnits; // kapatılınca satılabilir stoğa geri dönen adet
+}
@@ -0,0 +1,20 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservationDto {
+    private String reservationId;
+    private Map<String, Integer> items; // productId -> rezerve adet
+    private String status;
+    private Instant expiresAt; // bu zamana kadar ödeme yapılmazsa adetler serbest kalır
+}
@@ -0,0 +1,31 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.onlinestorebackend.Entity.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tek $facet aggregation'ının ham sonucu: istenen sayfa + filtrelenmiş kümenin sayımları.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResult {
+
+    private List<Product> products = new ArrayList<>();
+    private long totalElements;
+    // categoryId -> ürün sayısı (çoktan aza)
+    private Map<String, Long> categoryCounts = new LinkedHashMap<>();
+    // bucket alt sınırı -> ürün sayısı; son sınırın üstü son sınır anahtarında, ilk sınırın altı null anahtarda
+    private Map<BigDecimal, Long> priceBucketCounts = new LinkedHashMap<>();
+    // finalPrice'ı olmayan ürünler; fiyat bucket'larına dahil değildir
+    private long noPriceCount;
+    private long inStockCount;
+}
@@ -0,0 +1,26 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Katalog listeleme filtreleri. Boş (null) alanlar filtreye dahil edilmez.
+ * Fiyat sınırları indirimli fiyat (finalPrice) üzerinden ve dahil olarak uygulanır.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilter {
+
+    // Tam metin arama ifadesi (text index); boşsa metin filtresi uygulanmaz
+    private String query;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private String categoryId;
+    private Boolean inStock;
+}
@@ -0,0 +1,37 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResultDto {
+
+    private long totalRows;
+    private long inserted;
+    private long updated;
+    private long failed;
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+    // errors listesi sınırlıdır; fazlası sadece failed sayısına yansır
+    private boolean errorsTruncated;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // Girdideki satır numarası (1'den başlar, CSV başlığı dahil)
+        private long line;
+        private String productId;
+        private String message;
+    }
+}
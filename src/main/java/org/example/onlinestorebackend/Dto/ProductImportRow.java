@@ -0,0 +1,28 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Toplu ürün içe aktarımında bir satır (NDJSON satırı ya da CSV kaydı).
+ * productId verilirse mevcut ürün güncellenir, verilmezse yeni ürün oluşturulur.
+ * Güncellemede null alanlar (satırda olmayan kolonlar) mevcut değeri korur; categoryIds boş liste ise temizlenir.
+ */
+@Data
+public class ProductImportRow {
+    private String productId;
+    private String productName;
+    private String model;
+    private String serialNumber;
+    private String description;
+    private Integer quantity;
+    private BigDecimal price;
+    private BigDecimal discount;
+    private BigDecimal cost;
+    private String warrantyStatus;
+    private String distributionInfo;
+    private List<String> images;
+    private List<String> categoryIds;
+}
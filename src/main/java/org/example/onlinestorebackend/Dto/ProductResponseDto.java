@@ -9,7 +9,7 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductResponseDto {
@@ -19,6 +19,7 @@ public class ProductResponseDto {
     private Integer quantity;
     private BigDecimal price;
     private BigDecimal discount;
+    private BigDecimal finalPrice;
     private BigDecimal cost;
     private String description;
     private List<String> images;
@@ -26,6 +27,8 @@ public class ProductResponseDto {
     private List<String> categoryIds;
     private List<String> categoryNames;
     private Integer popularity;
+    private Double averageRating;
+    private Long ratingCount;
     private String model;
     private String serialNumber;
     private String warrantyStatus;
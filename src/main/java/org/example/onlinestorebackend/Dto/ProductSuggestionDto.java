@@ -0,0 +1,19 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionDto {
+
+    // PRODUCT veya CATEGORY
+    private String type;
+    private String id;
+    private String text;
+    private Integer popularity;
+}
@@ -0,0 +1,22 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingSummaryDto {
+
+    private String productId;
+    private long count;
+    private long sum;
+    private double average;
+    // 1..10 arası her puan için adet (hiç verilmeyen puanlar 0)
+    private Map<Integer, Long> histogram;
+}
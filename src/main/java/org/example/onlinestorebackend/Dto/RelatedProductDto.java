@@ -0,0 +1,15 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatedProductDto {
+    private long coPurchaseCount; // iki ürünün aynı siparişte bulunduğu sipariş sayısı
+    private ProductResponseDto product;
+}
@@ -0,0 +1,12 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ReviewModerationRequest {
+    private List<String> approveReviewIds = new ArrayList<>();
+    private List<String> rejectReviewIds = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewModerationResultDto {
+
+    private int approveRequested;
+    private int rejectRequested;
+    // Tek bulkWrite'ta gerçekten eşleşen / değişen review sayısı
+    private int matched;
+    private int modified;
+}
@@ -0,0 +1,16 @@
+package org.example.onlinestorebackend.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingProductDto {
+    private int rank;
+    private long unitsSold; // seçilen pencerede satılan (iptaller düşülmüş) adet
+    private ProductResponseDto product;
+}
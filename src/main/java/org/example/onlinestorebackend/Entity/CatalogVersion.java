@@ -0,0 +1,21 @@
+package org.example.onlinestorebackend.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Bellekteki katalog snapshot'larının sürüm sayacı; her yazma sonrası artırılır,
+// diğer node'lar sürüm değişince kendi snapshot'larını yeniler
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "catalog_versions")
+public class CatalogVersion {
+
+    @Id
+    private String name; // örn. "categories"
+
+    private long version;
+}
@@ -0,0 +1,39 @@
+package org.example.onlinestorebackend.Entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// Idempotency-Key başlığıyla gelen isteğin kaydı. İlk istek kaydı IN_PROGRESS olarak ekler; aynı anahtarla
+// gelenler duplicate key alır ve saklanan yanıtı bekler. İstek bitince yanıt saklanır, tekrarlar servisi
+// çalıştırmadan bu yanıtı alır.
+@Data
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    private String id; // kapsam:çağıran:anahtar
+
+    private String fingerprint; // istek gövdesinin SHA-256 özeti; aynı anahtar farklı gövdeyle kullanılamaz
+
+    private String status; // IN_PROGRESS, COMPLETED
+
+    private String owner; // isteği işleyen çağrının token'ı
+
+    // IN_PROGRESS kaydın sahibi bu zamana kadar yanıt yazmazsa (ör. node çöktü) başka bir istek devralır
+    private Instant lockedUntil;
+
+    private Integer responseStatus;
+
+    private String responseBody; // JSON
+
+    // TTL index bir gün sonra siler; sonrasında aynı anahtar yeni bir istek sayılır
+    @Indexed(expireAfter = "24h")
+    private Instant createdAt;
+}
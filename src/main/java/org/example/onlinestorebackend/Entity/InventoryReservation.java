@@ -0,0 +1,51 @@
+package org.example.onlinestorebackend.Entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Checkout başlarken sepetteki adetler için tutulan süreli stok rezervasyonu.
+// Rezerve adetler Product.quantity'den Product.reservedQuantity'ye taşınır; ödeme ile siparişe
+// dönüşür ya da süresi dolunca temizleyici tarafından satılabilir stoğa geri verilir.
+@Data
+@Document(collection = "inventory_reservations")
+@CompoundIndexes({
+        // süresi dolan aktif rezervasyonları tarayan temizleyici için
+        @CompoundIndex(name = "status_expires_at", def = "{'status': 1, 'expiresAt': 1}"),
+        // iadesi yarıda kalan (RELEASING'de takılan) rezervasyonları kapanış zamanına göre bulmak için
+        @CompoundIndex(name = "status_closed_at", def = "{'status': 1, 'closedAt': 1}"),
+        // kullanıcının aktif rezervasyonunu bulmak için
+        @CompoundIndex(name = "user_status", def = "{'userId': 1, 'status': 1}")
+})
+public class InventoryReservation {
+
+    public static final String ACTIVE = "ACTIVE";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASING = "RELEASING"; // stoğu iade ediliyor; iade bitince RELEASED olur
+    public static final String RELEASED = "RELEASED";
+
+    @Id
+    private String reservationId;
+
+    private String userId;
+
+    private Map<String, Integer> items; // productId -> rezerve adet
+
+    private String status; // ACTIVE, CONFIRMED, RELEASING, RELEASED
+
+    private Instant createdAt;
+
+    private Instant expiresAt;
+
+    private String orderId; // CONFIRMED olduğunda oluşan sipariş
+
+    // Sadece kapanan (CONFIRMED / RELEASING / RELEASED) rezervasyonlarda dolu; TTL index bir hafta sonra siler
+    @Indexed(expireAfter = "7d")
+    private Instant closedAt;
+}
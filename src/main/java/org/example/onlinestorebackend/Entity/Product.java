@@ -2,25 +2,49 @@ package org.example.onlinestorebackend.Entity;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.math.RoundingMode;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Document(collection = "products")
+@CompoundIndexes({
+        // kategori / stok filtresi + indirimli fiyat aralığı ve sıralaması
+        @CompoundIndex(name = "category_final_price", def = "{'categoryIds': 1, 'finalPrice': 1}"),
+        @CompoundIndex(name = "category_name", def = "{'categoryIds': 1, 'productName': 1}"),
+        @CompoundIndex(name = "category_popularity", def = "{'categoryIds': 1, 'popularity': -1}"),
+        @CompoundIndex(name = "in_stock_final_price", def = "{'inStock': 1, 'finalPrice': 1}"),
+        // cursor sayfalama: (sıralama alanı, _id) çiftinden devam eder
+        @CompoundIndex(name = "name_id", def = "{'productName': 1, '_id': 1}"),
+        @CompoundIndex(name = "final_price_id", def = "{'finalPrice': 1, '_id': 1}"),
+        @CompoundIndex(name = "popularity_id", def = "{'popularity': 1, '_id': 1}"),
+        @CompoundIndex(name = "rating_average_id", def = "{'ratingSummary.average': 1, '_id': 1}")
+})
 public class Product {
 
     @Id
     private String productId;
 
     @Indexed                 // isme göre aramayı hızlandırır
+    @TextIndexed(weight = 5) // tam metin aramada isim eşleşmesi açıklamadan daha değerli
     private String productName;
 
-    private Integer quantity;
+    private Integer quantity; // satılabilir stok; ödeme bekleyen rezervasyonlar buna dahil değildir
 
+    private Integer reservedQuantity; // checkout'ta rezerve edilip henüz siparişe dönüşmemiş adet
+    private String flashSaleFlushId; // flash sale bellek sayacından en son uygulanan toplu yazımın id'si (tekrar uygulanmaz)
+
+    @TextIndexed(weight = 2)
     private String model;
 
     private String serialNumber;
@@ -35,6 +59,16 @@ public class Product {
     @Indexed
     private BigDecimal discount;
 
+    /**
+     * İndirimli satış fiyatı: price - (price * discount / 100).
+     * Sıralama ve fiyat filtreleri DB tarafında yapılabilsin diye saklanır;
+     * price veya discount her değiştiğinde refreshFinalPrice() çağrılmalıdır.
+     * Decimal128 olarak tutulur ki string değil sayısal sıralansın.
+     */
+    @Indexed
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal finalPrice;
+
     /**
      * Optional product unit cost used for profit/loss calculations.
      * If null, the system defaults to 50% of the sale price at purchase time.
@@ -42,6 +76,7 @@ public class Product {
     @Indexed
     private BigDecimal cost;
 
+    @TextIndexed
     private String description;
 
     private List<String> images;
@@ -50,11 +85,41 @@ public class Product {
 
     private List<String> categoryIds; // Ürünün ait olduğu kategoriler
 
-    private List<String> reviewIds =  new ArrayList<String>();
+    // categoryId -> kategori adı (denormalize). Okumalar ilişki koleksiyonuna gitmez;
+    // kategori yeniden adlandırılınca CategoryService tüm ürünleri toplu günceller.
+    private Map<String, String> categoryNames;
 
     /**
      * Ürünün popülaritesi (satılan adetlere göre arttırılır).
      * Sıralama için kullanılabilir.
      */
     private Integer popularity = 0;
+
+    /**
+     * Puan özeti (adet, toplam, ortalama, 1-10 histogram). Yorum puanları değiştikçe
+     * ProductRatingService tarafından artımlı güncellenir; puana göre sıralama bu alan üzerinden yapılır.
+     * Eski ürünlerde ProductDataMigration özeti yorumlardan hesaplayana kadar null'dır.
+     */
+    private RatingSummary ratingSummary;
+
+    /**
+     * Tam metin aramada MongoDB'nin hesapladığı alaka skoru (sadece okunur, kaydedilmez).
+     */
+    @TextScore
+    private Float score;
+
+    public void refreshFinalPrice() {
+        if (price == null) {
+            finalPrice = null;
+            return;
+        }
+        BigDecimal finalValue = price;
+        if (discount != null && discount.compareTo(BigDecimal.ZERO) > 0) {
+            BigDecimal discountAmount = price
+                    .multiply(discount)
+                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            finalValue = price.subtract(discountAmount);
+        }
+        finalPrice = finalValue;
+    }
 }
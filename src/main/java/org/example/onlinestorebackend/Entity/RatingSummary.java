@@ -0,0 +1,24 @@
+package org.example.onlinestorebackend.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ürün dokümanına gömülü, artımlı olarak güncellenen puan özeti.
+ * Yorum eklendiğinde / puanı değiştiğinde $inc ile güncellenir; ham puan listesi okunmaz.
+ * histogram anahtarları "1".."10" puan değerleridir.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingSummary {
+
+    private long count;
+    private long sum;
+    private double average;
+    private Map<String, Long> histogram = new HashMap<>();
+}
@@ -2,12 +2,20 @@ package org.example.onlinestorebackend.Entity;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "reviews")
+@CompoundIndexes({
+        // ürün sayfasındaki onaylı yorumlar: productId + approved filtresi, createdAt sırası
+        @CompoundIndex(name = "product_approved_created", def = "{'productId': 1, 'approved': 1, 'createdAt': -1, '_id': -1}"),
+        // moderasyon kuyruğu: bekleyen yorumlar eskiden yeniye
+        @CompoundIndex(name = "approved_created", def = "{'approved': 1, 'createdAt': 1, '_id': 1}")
+})
 public class Review {
 
     @Id
@@ -0,0 +1,9 @@
+package org.example.onlinestorebackend.Repository;
+
+import org.example.onlinestorebackend.Entity.CatalogVersion;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogVersionRepository extends MongoRepository<CatalogVersion, String>, CatalogVersionRepositoryCustom {
+}
@@ -0,0 +1,7 @@
+package org.example.onlinestorebackend.Repository;
+
+public interface CatalogVersionRepositoryCustom {
+
+    // Sayacı atomik $inc ile artırır (yoksa oluşturur) ve yeni sürümü döner
+    long increment(String name);
+}
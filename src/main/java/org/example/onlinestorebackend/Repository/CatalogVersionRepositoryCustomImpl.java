@@ -0,0 +1,25 @@
+package org.example.onlinestorebackend.Repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Entity.CatalogVersion;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@RequiredArgsConstructor
+public class CatalogVersionRepositoryCustomImpl implements CatalogVersionRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long increment(String name) {
+        CatalogVersion updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("name").is(name)),
+                new Update().inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                CatalogVersion.class);
+        return updated != null ? updated.getVersion() : 0;
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.onlinestorebackend.Repository;
+
+import org.example.onlinestorebackend.Entity.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String>,
+        IdempotencyRecordRepositoryCustom {
+}
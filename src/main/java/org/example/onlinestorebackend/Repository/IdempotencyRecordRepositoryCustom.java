@@ -0,0 +1,20 @@
+package org.example.onlinestorebackend.Repository;
+
+import org.example.onlinestorebackend.Entity.IdempotencyRecord;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepositoryCustom {
+
+    // Süresi geçmiş (lockedUntil < now) IN_PROGRESS kaydı atomik olarak yeni sahibine verir; devralınamazsa null
+    IdempotencyRecord takeOver(String id, String owner, Instant now, Instant lockedUntil);
+
+    // Kayıt hâlâ bu sahipte ve işleniyorsa kilit süresini uzatır; başkası devraldıysa false
+    boolean extendLease(String id, String owner, Instant lockedUntil);
+
+    // Kayıt hâlâ bu sahipteyse yanıtı saklar ve COMPLETED yapar; başkası devraldıysa false
+    boolean complete(String id, String owner, int responseStatus, String responseBody);
+
+    // İstek hata ile bittiğinde kaydı siler; aynı anahtarla tekrar denenebilir
+    void release(String id, String owner);
+}
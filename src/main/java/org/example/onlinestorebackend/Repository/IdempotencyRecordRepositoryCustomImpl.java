@@ -0,0 +1,58 @@
+package org.example.onlinestorebackend.Repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Entity.IdempotencyRecord;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+@RequiredArgsConstructor
+public class IdempotencyRecordRepositoryCustomImpl implements IdempotencyRecordRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public IdempotencyRecord takeOver(String id, String owner, Instant now, Instant lockedUntil) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(id)
+                        .and("status").is(IdempotencyRecord.IN_PROGRESS)
+                        .and("lockedUntil").lt(now)),
+                new Update().set("owner", owner).set("lockedUntil", lockedUntil),
+                FindAndModifyOptions.options().returnNew(true),
+                IdempotencyRecord.class);
+    }
+
+    @Override
+    public boolean extendLease(String id, String owner, Instant lockedUntil) {
+        return mongoTemplate.updateFirst(
+                ownedInProgress(id, owner),
+                new Update().set("lockedUntil", lockedUntil),
+                IdempotencyRecord.class).getMatchedCount() == 1;
+    }
+
+    @Override
+    public boolean complete(String id, String owner, int responseStatus, String responseBody) {
+        return mongoTemplate.updateFirst(
+                ownedInProgress(id, owner),
+                new Update().set("status", IdempotencyRecord.COMPLETED)
+                        .set("responseStatus", responseStatus)
+                        .set("responseBody", responseBody)
+                        .unset("lockedUntil"),
+                IdempotencyRecord.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void release(String id, String owner) {
+        mongoTemplate.remove(ownedInProgress(id, owner), IdempotencyRecord.class);
+    }
+
+    private Query ownedInProgress(String id, String owner) {
+        return Query.query(Criteria.where("id").is(id)
+                .and("owner").is(owner)
+                .and("status").is(IdempotencyRecord.IN_PROGRESS));
+    }
+}
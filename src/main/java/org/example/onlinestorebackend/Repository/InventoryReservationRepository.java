@@ -0,0 +1,23 @@
+package org.example.onlinestorebackend.Repository;
+
+import org.example.onlinestorebackend.Entity.InventoryReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventoryReservationRepository extends MongoRepository<InventoryReservation, String>,
+        InventoryReservationRepositoryCustom {
+
+    Optional<InventoryReservation> findFirstByUserIdAndStatus(String userId, String status);
+
+    // status_expires_at index'i üzerinden; temizleyici batch'ler halinde okur
+    List<InventoryReservation> findByStatusAndExpiresAtLessThanEqual(String status, Instant now, Pageable pageable);
+
+    // status_closed_at index'i üzerinden; closedAt, rezervasyonun bu duruma geçtiği andır
+    List<InventoryReservation> findByStatusAndClosedAtLessThanEqual(String status, Instant closedBefore, Pageable pageable);
+}
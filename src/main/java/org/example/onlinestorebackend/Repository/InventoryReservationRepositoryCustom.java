@@ -0,0 +1,17 @@
+package org.example.onlinestorebackend.Repository;
+
+import org.example.onlinestorebackend.Entity.InventoryReservation;
+
+import java.time.Instant;
+
+public interface InventoryReservationRepositoryCustom {
+
+    // Kullanıcının süresi dolmamış aktif rezervasyonunu atomik olarak CONFIRMED yapar ve döner; yoksa null
+    InventoryReservation claimActive(String userId, Instant now);
+
+    // Rezervasyon hâlâ "from" durumundaysa "to" durumuna geçirir; geçiş bu çağrıyla olduysa true
+    boolean changeStatus(String reservationId, String from, String to, Instant now);
+
+    // Onaylanan rezervasyona oluşan siparişi yazar
+    void attachOrder(String reservationId, String orderId);
+}
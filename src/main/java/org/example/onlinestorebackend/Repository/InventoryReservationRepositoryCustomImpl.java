@@ -0,0 +1,50 @@
+package org.example.onlinestorebackend.Repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Entity.InventoryReservation;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+@RequiredArgsConstructor
+public class InventoryReservationRepositoryCustomImpl implements InventoryReservationRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public InventoryReservation claimActive(String userId, Instant now) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("userId").is(userId)
+                        .and("status").is(InventoryReservation.ACTIVE)
+                        .and("expiresAt").gt(now)),
+                new Update().set("status", InventoryReservation.CONFIRMED).set("closedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                InventoryReservation.class);
+    }
+
+    @Override
+    public boolean changeStatus(String reservationId, String from, String to, Instant now) {
+        Update update = new Update().set("status", to);
+        if (InventoryReservation.ACTIVE.equals(to)) {
+            update.unset("closedAt");
+        } else {
+            update.set("closedAt", now);
+        }
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("reservationId").is(reservationId).and("status").is(from)),
+                update,
+                InventoryReservation.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void attachOrder(String reservationId, String orderId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("reservationId").is(reservationId)),
+                new Update().set("orderId", orderId),
+                InventoryReservation.class);
+    }
+}
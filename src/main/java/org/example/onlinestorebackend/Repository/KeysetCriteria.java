@@ -0,0 +1,39 @@
+package org.example.onlinestorebackend.Repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * (alan, id) sırasında keyset sayfalama koşulları. Mongo null / eksik alanı her değerden küçük sıralar:
+ * artan sırada null'lar başta, azalan sırada sonda gelir. $gt / $lt null ile eşleşmediği için null
+ * anahtarlar ayrı koşulla ele alınır; aksi halde null'dan sonraki dolu kayıtlar atlanırdı.
+ */
+final class KeysetCriteria {
+
+    private KeysetCriteria() {
+    }
+
+    static Criteria afterId(String idField, Sort.Direction direction, String lastId) {
+        return direction.isAscending()
+                ? Criteria.where(idField).gt(lastId)
+                : Criteria.where(idField).lt(lastId);
+    }
+
+    // (lastValue, lastId) kaydından sonra gelenler; lastValue null ise son kaydın alanı boştu
+    static Criteria after(String field, String idField, Sort.Direction direction, Object lastValue, String lastId) {
+        Criteria afterId = afterId(idField, direction, lastId);
+        if (lastValue == null) {
+            Criteria sameNull = new Criteria().andOperator(Criteria.where(field).is(null), afterId);
+            // Artan: kalan null'lar ve tüm dolu değerler; azalan: sadece kalan null'lar
+            return direction.isAscending()
+                    ? new Criteria().orOperator(Criteria.where(field).ne(null), sameNull)
+                    : sameNull;
+        }
+        // (alan > son değer) VEYA (alan == son değer VE id > son id); azalan sırada tersi ve en sonda null'lar
+        Criteria sameValue = new Criteria().andOperator(Criteria.where(field).is(lastValue), afterId);
+        return direction.isAscending()
+                ? new Criteria().orOperator(Criteria.where(field).gt(lastValue), sameValue)
+                : new Criteria().orOperator(Criteria.where(field).lt(lastValue), sameValue,
+                        Criteria.where(field).is(null));
+    }
+}
@@ -21,6 +21,10 @@ public interface OrderRepository extends MongoRepository<Order, String> {
     // Belirli bir zaman aralığındaki siparişler (örneğin gelir hesaplama)
     List<Order> findByOrderDateBetween(java.time.LocalDateTime start, java.time.LocalDateTime end);
 
+    // Birlikte satın alma indeksi için: iptal edilmemiş siparişlerin sadece ürün id'leri
+    @Query(value = "{ 'status' : { $ne : 'CANCELLED' } }", fields = "{ 'items.productId' : 1 }")
+    List<Order> findProductIdsOfActiveOrders();
+
     @Query("{ 'orderId' : ?0 }")
     Optional<Order> findByOrderId(String orderId);
 }
\ No newline at end of file
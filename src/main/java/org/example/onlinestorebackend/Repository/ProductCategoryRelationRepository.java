@@ -4,15 +4,19 @@ import org.example.onlinestorebackend.Entity.ProductCategoryRelation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductCategoryRelationRepository extends MongoRepository<ProductCategoryRelation, String> {
+public interface ProductCategoryRelationRepository extends MongoRepository<ProductCategoryRelation, String>,
+        ProductCategoryRelationRepositoryCustom {
 
     List<ProductCategoryRelation> findByProductId(String productId);
 
     List<ProductCategoryRelation> findByCategoryId(String categoryId);
 
+    List<ProductCategoryRelation> findByProductIdIn(Collection<String> productIds);
+
     void deleteByProductId(String productId);
 }
 
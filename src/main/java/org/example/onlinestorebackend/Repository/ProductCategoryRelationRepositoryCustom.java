@@ -0,0 +1,12 @@
+package org.example.onlinestorebackend.Repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ProductCategoryRelationRepositoryCustom {
+
+    // Eklenen ilişkileri upsert, çıkarılanları delete olarak tek bir ordered bulkWrite ile uygular.
+    // Önce eklemeler yazıldığı için ürün arada kategorisiz kalmaz.
+    void applyChanges(Map<String, ? extends Collection<String>> addedByProduct,
+                      Map<String, ? extends Collection<String>> removedByProduct);
+}
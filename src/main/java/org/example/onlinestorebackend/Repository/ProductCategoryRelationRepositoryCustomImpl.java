@@ -0,0 +1,47 @@
+package org.example.onlinestorebackend.Repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Entity.ProductCategoryRelation;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ProductCategoryRelationRepositoryCustomImpl implements ProductCategoryRelationRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void applyChanges(Map<String, ? extends Collection<String>> addedByProduct,
+                             Map<String, ? extends Collection<String>> removedByProduct) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, ProductCategoryRelation.class);
+        boolean hasOperations = false;
+        Instant now = Instant.now();
+
+        for (Map.Entry<String, ? extends Collection<String>> entry : addedByProduct.entrySet()) {
+            for (String categoryId : entry.getValue()) {
+                // Upsert: eşzamanlı bir sync aynı ilişkiyi eklediyse unique index hatası yerine no-op olur
+                bulk.upsert(Query.query(Criteria.where("productId").is(entry.getKey()).and("categoryId").is(categoryId)),
+                        new Update().setOnInsert("createdAt", now));
+                hasOperations = true;
+            }
+        }
+        for (Map.Entry<String, ? extends Collection<String>> entry : removedByProduct.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                bulk.remove(Query.query(Criteria.where("productId").is(entry.getKey())
+                        .and("categoryId").in(entry.getValue())));
+                hasOperations = true;
+            }
+        }
+
+        if (hasOperations) {
+            bulk.execute();
+        }
+    }
+}
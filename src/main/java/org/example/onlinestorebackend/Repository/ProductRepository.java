@@ -1,16 +1,20 @@
 package org.example.onlinestorebackend.Repository;
 
 import org.example.onlinestorebackend.Entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
 
     // ürün ismine göre arama
     List<Product> findByProductNameContainingIgnoreCase(String name);
@@ -18,15 +22,31 @@ public interface ProductRepository extends MongoRepository<Product, String> {
     // fiyat aralığına göre arama
     List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
 
+    // tam metin arama (text index), alaka skoruna göre sıralı
+    Page<Product> findAllByOrderByScoreDesc(TextCriteria criteria, Pageable pageable);
+
     // stokta olan ürünler
     List<Product> findByInStockTrue();
 
-    // isim VEYA açıklama içinde geçenler
-    List<Product> findByProductNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
-            String name,
-            String description
-    );
+    // finalPrice alanı henüz hesaplanmamış (eski) ürünler
+    Page<Product> findByFinalPriceIsNullAndPriceIsNotNull(Pageable pageable);
+
+    // categoryIds alanı hiç yazılmamış (eski) ürünler
+    Page<Product> findByCategoryIdsIsNull(Pageable pageable);
+
+    // ratingSummary alanı hiç yazılmamış (eski) ürünler
+    Page<Product> findByRatingSummaryIsNull(Pageable pageable);
+
+    Page<Product> findByCategoryNamesIsNull(Pageable pageable);
 
     @Query("{ 'productId' : ?0 }")
     Optional<Product> findByProductId(String productId);
+
+    // Sadece puan özetini okur (ürün dokümanının geri kalanı gelmez)
+    @Query(value = "{ '_id' : ?0 }", fields = "{ 'ratingSummary' : 1 }")
+    Optional<Product> findRatingSummaryByProductId(String productId);
+
+    // Sadece indirimleri okur (içe aktarımda indirimi verilmeyen satırların finalPrice'ı için)
+    @Query(value = "{ '_id' : { $in : ?0 } }", fields = "{ 'discount' : 1 }")
+    List<Product> findDiscountsByProductIdIn(Collection<String> productIds);
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package org.example.onlinestorebackend.Repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.example.onlinestorebackend.Dto.ProductFacetResult;
+import org.example.onlinestorebackend.Dto.ProductFilter;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.RatingSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Derived query ile ifade edilemeyen ürün sorguları (MongoTemplate ile yazılır).
+ */
+public interface ProductRepositoryCustom {
+
+    // Fiyat / kategori / stok filtrelerini tek sorguda, DB tarafında sayfalayarak uygular
+    Page<Product> findByFilter(ProductFilter filter, Pageable pageable);
+
+    // Sonuç sayfası + kategori / fiyat aralığı / stok sayımlarını tek $facet aggregation'ı ile döner
+    ProductFacetResult findFacets(ProductFilter filter, Pageable pageable, List<BigDecimal> priceBoundaries);
+
+    // Keyset sayfalama: (sortField, _id) sırasında (lastValue, lastId) kaydından sonraki en fazla limit ürün.
+    // lastId null ise ilk sayfa döner; sortField "productId" ise sadece _id'ye göre sıralanır.
+    // lastValue null ise son kaydın sıralama alanı boştur (null'lar artan sırada başta, azalan sırada sonda gelir).
+    List<Product> findAfter(String sortField, Sort.Direction direction, Object lastValue, String lastId, int limit);
+
+    // Puan özetini atomik $inc ile günceller; previousRating null ise yeni bir puan eklenir.
+    // Ürün yoksa null döner.
+    RatingSummary applyRatingChange(String productId, Integer previousRating, int newRating);
+
+    // Ürünleri _id üzerinden tek bir unordered bulkWrite ile upsert eder (toplu içe aktarım).
+    // Kısmi güncellemedir: null olmayan alanlar yazılır, null alanlar mevcut üründe korunur.
+    // Yeni üründe null kalan quantity, inStock, discount, kategoriler, popularity ve ratingSummary varsayılanla başlar.
+    BulkWriteResult bulkUpsert(List<Product> products);
+
+    // Tüm ürünleri _id sırasıyla bir Mongo cursor'ı üzerinden akış halinde okur; stream kapatılmalıdır
+    Stream<Product> streamAll(int batchSize);
+
+    /**
+     * Siparişteki ürünlerin stoğunu tek bir ordered bulkWrite ile verilen sırayla, her biri quantity >= n koşullu
+     * updateOne ile düşer (quantity -n, popularity +n; inStock yeni stoktan hesaplanır). Silinmiş ürün için doküman
+     * oluşturulmaz.
+     * reservedByProduct siparişi verenin aynı ürünler için tuttuğu rezervasyondur; bu adetler quantity'den
+     * zaten ayrıldığı için önce onlar kullanılır, artan rezervasyon satılabilir stoğa geri döner.
+     * Stoğu yetmeyen ya da artık olmayan ilk ürünün id'sini döner ve o ana kadar düşülenleri
+     * geri verir; hepsi düşüldüyse null döner.
+     */
+    String decrementStocks(Map<String, Integer> quantitiesByProduct, Map<String, Integer> reservedByProduct);
+
+    // decrementStocks'un tersi: düşülen stok, kullanılan rezervasyon ve popülerlik tek bulkWrite ile geri verilir
+    void restoreStocks(Map<String, Integer> quantitiesByProduct, Map<String, Integer> reservedByProduct);
+
+    // Adetleri satılabilir stoktan (quantity) reservedQuantity'ye tek ordered bulkWrite'taki koşullu updateOne'larla taşır; decrementStocks
+    // gibi yetmeyen ilk ürünün id'sini döner (öncekiler geri alınır), hepsi ayrıldıysa null döner
+    String reserveStocks(Map<String, Integer> quantitiesByProduct);
+
+    // Bırakılan ya da süresi dolan rezervasyonu satılabilir stoğa geri taşır
+    void releaseReservedStocks(Map<String, Integer> reservedByProduct);
+
+    /**
+     * Flash sale'de bellekten satılan ve havuza geri dönen adetleri tek unordered bulkWrite ile yazar:
+     * satılanlar reservedQuantity'den düşer ve popülerliği artırır, bırakılanlar quantity'ye döner.
+     * Ürün flushId ile işaretlenir; aynı flushId ikinci kez uygulanmaz (çökme sonrası tekrar güvenli).
+     */
+    void applyFlashSaleFlush(String flushId, Map<String, Integer> soldByProduct, Map<String, Integer> releasedByProduct);
+
+    // Stoğu koşulsuz n artırır (iptal / telafi); popularityDelta 0 ise popülerlik korunur. Ürün yoksa null
+    Product restoreStock(String productId, int quantity, int popularityDelta);
+
+    /**
+     * Sadece verilen alanları tek findAndModify içinde $set ile yazar ve güncel ürünü döner; ürün yoksa null.
+     * Dokümanın tamamı kaydedilmediği için eşzamanlı stok, rezervasyon ve popülerlik güncellemeleri ezilmez.
+     * price veya discount değişiyorsa finalPrice da güncel fiyat alanlarından hesaplanıp aynı update ile yazılır.
+     */
+    Product updateFields(String productId, Map<String, Object> fields);
+
+    // Kategoriye ait tüm ürünlerdeki denormalize kategori adını tek updateMulti ile günceller
+    long renameCategory(String categoryId, String categoryName);
+
+    // Silinen kategoriyi ürünlerden kaldırır: id'si categoryIds'ten, adı categoryNames'ten aynı update ile çıkar
+    long removeCategory(String categoryId);
+}
@@ -0,0 +1,528 @@
+package org.example.onlinestorebackend.Repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.example.onlinestorebackend.Dto.ProductFacetResult;
+import org.example.onlinestorebackend.Dto.ProductFilter;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.RatingSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String BELOW_FIRST_BUCKET = "below";
+    private static final List<String> INSERT_DEFAULT_FIELDS =
+            List.of("quantity", "inStock", "discount", "categoryIds", "categoryNames");
+    // Sayıya çevrilemeyen bu değer stok yetmediğinde update'i ConversionFailure (241) ile durdurur
+    private static final String INSUFFICIENT_STOCK_MARKER = "insufficient-stock";
+    private static final int INSUFFICIENT_STOCK_ERROR_CODE = 241;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Page<Product> findByFilter(ProductFilter filter, Pageable pageable) {
+        TextCriteria text = textCriteria(filter);
+        Query query = new Query();
+        if (text != null) {
+            // Metin araması varsa ve sıralama belirtilmediyse alaka skoruna göre sırala
+            query = pageable.getSort().isUnsorted() ? TextQuery.queryText(text).sortByScore() : TextQuery.queryText(text);
+        }
+        filterCriteria(filter).forEach(query::addCriteria);
+
+        Query countQuery = Query.of(query);
+        query.with(pageable);
+        List<Product> content = mongoTemplate.find(query, Product.class);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(countQuery, Product.class));
+    }
+
+    @Override
+    public ProductFacetResult findFacets(ProductFilter filter, Pageable pageable, List<BigDecimal> priceBoundaries) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        TextCriteria text = textCriteria(filter);
+        if (text != null) {
+            // $text içeren $match pipeline'ın ilk aşaması olmak zorunda
+            pipeline.add(Aggregation.match(text));
+        }
+        List<Criteria> criteria = filterCriteria(filter);
+        if (!criteria.isEmpty()) {
+            pipeline.add(Aggregation.match(new Criteria().andOperator(criteria)));
+        }
+
+        List<AggregationOperation> results = new ArrayList<>();
+        results.add(sortStage(pageable.getSort(), text != null));
+        results.add(Aggregation.skip(pageable.getOffset()));
+        results.add(Aggregation.limit(pageable.getPageSize()));
+
+        // Son sınırın üstü de gerçek bir bucket olsun diye sonsuz üst sınır eklenir; böylece default bucket
+        // sadece ilk sınırın altını toplar. Fiyatı olmayanlar ayrı sayılır, hiçbir fiyat bucket'ına karışmaz.
+        Object[] boundaries = Stream.concat(priceBoundaries.stream().map(Decimal128::new),
+                Stream.of(Decimal128.POSITIVE_INFINITY)).toArray();
+        FacetOperation facets = Aggregation.facet(results.toArray(new AggregationOperation[0])).as("results")
+                .and(Aggregation.count().as("count")).as("total")
+                .and(Aggregation.unwind("categoryIds"),
+                        Aggregation.group("categoryIds").count().as("count"),
+                        Aggregation.sort(Sort.Direction.DESC, "count")).as("categories")
+                .and(Aggregation.match(Criteria.where("finalPrice").ne(null)),
+                        Aggregation.bucket("finalPrice")
+                        .withBoundaries(boundaries)
+                        .withDefaultBucket(BELOW_FIRST_BUCKET)
+                        .andOutputCount().as("count")).as("priceBuckets")
+                .and(Aggregation.match(Criteria.where("finalPrice").is(null)),
+                        Aggregation.count().as("count")).as("noPrice")
+                .and(Aggregation.match(Criteria.where("inStock").is(true)),
+                        Aggregation.count().as("count")).as("inStock");
+        pipeline.add(facets);
+
+        Document output = mongoTemplate.aggregate(Aggregation.newAggregation(pipeline), "products", Document.class)
+                .getUniqueMappedResult();
+
+        ProductFacetResult result = new ProductFacetResult();
+        if (output == null) {
+            return result;
+        }
+        for (Document doc : documents(output, "results")) {
+            result.getProducts().add(mongoTemplate.getConverter().read(Product.class, doc));
+        }
+        result.setTotalElements(firstCount(output, "total"));
+        for (Document doc : documents(output, "categories")) {
+            result.getCategoryCounts().put(String.valueOf(doc.get("_id")), count(doc));
+        }
+        for (Document doc : documents(output, "priceBuckets")) {
+            Object lowerBound = doc.get("_id");
+            BigDecimal key = lowerBound instanceof Decimal128 d ? d.bigDecimalValue() : null;
+            result.getPriceBucketCounts().put(key, count(doc));
+        }
+        result.setNoPriceCount(firstCount(output, "noPrice"));
+        result.setInStockCount(firstCount(output, "inStock"));
+        return result;
+    }
+
+    @Override
+    public List<Product> findAfter(String sortField, Sort.Direction direction, Object lastValue, String lastId, int limit) {
+        boolean byIdOnly = "productId".equals(sortField);
+        Query query = new Query();
+        if (lastId != null) {
+            query.addCriteria(byIdOnly
+                    ? KeysetCriteria.afterId("productId", direction, lastId)
+                    : KeysetCriteria.after(sortField, "productId", direction, lastValue, lastId));
+        }
+
+        Sort sort = byIdOnly
+                ? Sort.by(direction, "productId")
+                : Sort.by(direction, sortField).and(Sort.by(direction, "productId"));
+        query.with(sort).limit(limit);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public RatingSummary applyRatingChange(String productId, Integer previousRating, int newRating) {
+        Update update = new Update();
+        if (previousRating == null) {
+            update.inc("ratingSummary.count", 1);
+            update.inc("ratingSummary.sum", newRating);
+        } else {
+            update.inc("ratingSummary.sum", newRating - previousRating);
+            update.inc("ratingSummary.histogram." + previousRating, -1);
+        }
+        update.inc("ratingSummary.histogram." + newRating, 1);
+
+        Product updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("productId").is(productId)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+        if (updated == null) {
+            return null;
+        }
+
+        // Ortalama $inc ile hesaplanamaz: count/sum hâlâ bizim gördüğümüz değerdeyse yaz.
+        // Araya başka bir puan güncellemesi girdiyse ortalamayı o (daha yeni değerlerle) yazar.
+        RatingSummary summary = updated.getRatingSummary();
+        double average = summary.getCount() > 0 ? (double) summary.getSum() / summary.getCount() : 0;
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("productId").is(productId)
+                        .and("ratingSummary.count").is(summary.getCount())
+                        .and("ratingSummary.sum").is(summary.getSum())),
+                new Update().set("ratingSummary.average", average),
+                Product.class);
+        summary.setAverage(average);
+        return summary;
+    }
+
+    @Override
+    public BulkWriteResult bulkUpsert(List<Product> products) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        Document insertDefaults = insertDefaults();
+        for (Product product : products) {
+            // save() ile aynı dönüşümler (Decimal128 finalPrice vb.) için converter kullanılır
+            Document document = new Document();
+            mongoTemplate.getConverter().write(product, document);
+            document.remove("_id");
+            Object popularity = document.remove("popularity");
+            Object ratingSummary = document.remove("ratingSummary");
+            // Açık rezervasyonlar içe aktarımdan etkilenmez
+            document.remove("reservedQuantity");
+            document.remove("flashSaleFlushId");
+
+            // Converter null alanları yazmaz: satırda olmayan alanlar mevcut üründe olduğu gibi kalır
+            Update update = new Update();
+            document.forEach(update::set);
+            insertDefaults.forEach((field, value) -> {
+                if (!document.containsKey(field)) {
+                    update.setOnInsert(field, value);
+                }
+            });
+            update.setOnInsert("popularity", popularity != null ? popularity : 0);
+            // Yeni ürünler boş özetle başlar; mevcut ürünlerin özetine dokunulmaz
+            update.setOnInsert("ratingSummary", ratingSummary != null ? ratingSummary : emptyRatingSummary());
+            bulk.upsert(Query.query(Criteria.where("productId").is(product.getProductId())), update);
+        }
+        return bulk.execute();
+    }
+
+    // bulkUpsert'te verilmeyen alanların sadece yeni üründeki başlangıç değerleri; save() ile aynı tiplerde yazılsın
+    // diye converter'dan geçirilir
+    private Document insertDefaults() {
+        Product defaults = new Product();
+        defaults.setQuantity(0);
+        defaults.setInStock(false);
+        defaults.setDiscount(BigDecimal.ZERO);
+        defaults.setCategoryIds(new ArrayList<>());
+        defaults.setCategoryNames(new LinkedHashMap<>());
+        Document document = new Document();
+        mongoTemplate.getConverter().write(defaults, document);
+        Document insertDefaults = new Document();
+        for (String field : INSERT_DEFAULT_FIELDS) {
+            insertDefaults.put(field, document.get(field));
+        }
+        return insertDefaults;
+    }
+
+    private static Document emptyRatingSummary() {
+        return new Document("count", 0L).append("sum", 0L).append("average", 0.0).append("histogram", new Document());
+    }
+
+    @Override
+    public Stream<Product> streamAll(int batchSize) {
+        Query query = new Query().with(Sort.by("productId")).cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, Product.class);
+    }
+
+    @Override
+    public String decrementStocks(Map<String, Integer> quantitiesByProduct, Map<String, Integer> reservedByProduct) {
+        Set<String> productIds = new LinkedHashSet<>(quantitiesByProduct.keySet());
+        productIds.addAll(reservedByProduct.keySet());
+        List<StockChange> changes = new ArrayList<>();
+        for (String productId : productIds) {
+            int quantity = quantitiesByProduct.getOrDefault(productId, 0);
+            int reserved = reservedByProduct.getOrDefault(productId, 0);
+            // Rezerve adetler quantity'den zaten ayrılmış: önce onlar kullanılır, artanı satılabilir stoğa döner
+            changes.add(new StockChange(productId, Math.max(quantity - reserved, 0), reserved - quantity, -reserved, quantity));
+        }
+        return applyConditionally(changes);
+    }
+
+    @Override
+    public void restoreStocks(Map<String, Integer> quantitiesByProduct, Map<String, Integer> reservedByProduct) {
+        Set<String> productIds = new LinkedHashSet<>(quantitiesByProduct.keySet());
+        productIds.addAll(reservedByProduct.keySet());
+        List<StockChange> changes = new ArrayList<>();
+        for (String productId : productIds) {
+            int quantity = quantitiesByProduct.getOrDefault(productId, 0);
+            int reserved = reservedByProduct.getOrDefault(productId, 0);
+            changes.add(new StockChange(productId, 0, quantity - reserved, reserved, -quantity));
+        }
+        applyAll(changes);
+    }
+
+    @Override
+    public String reserveStocks(Map<String, Integer> quantitiesByProduct) {
+        List<StockChange> changes = new ArrayList<>();
+        quantitiesByProduct.forEach((productId, quantity) ->
+                changes.add(new StockChange(productId, quantity, -quantity, quantity, 0)));
+        return applyConditionally(changes);
+    }
+
+    @Override
+    public void releaseReservedStocks(Map<String, Integer> reservedByProduct) {
+        List<StockChange> changes = new ArrayList<>();
+        reservedByProduct.forEach((productId, reserved) ->
+                changes.add(new StockChange(productId, 0, reserved, -reserved, 0)));
+        applyAll(changes);
+    }
+
+    @Override
+    public void applyFlashSaleFlush(String flushId, Map<String, Integer> soldByProduct,
+                                    Map<String, Integer> releasedByProduct) {
+        Set<String> productIds = new LinkedHashSet<>(soldByProduct.keySet());
+        productIds.addAll(releasedByProduct.keySet());
+        if (productIds.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (String productId : productIds) {
+            int sold = soldByProduct.getOrDefault(productId, 0);
+            int released = releasedByProduct.getOrDefault(productId, 0);
+            StockChange change = new StockChange(productId, 0, released, -(sold + released), sold);
+            bulk.updateOne(Query.query(Criteria.where("productId").is(productId).and("flashSaleFlushId").ne(flushId)),
+                    stockUpdate(change).set("flashSaleFlushId").toValue(flushId));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public Product restoreStock(String productId, int quantity, int popularityDelta) {
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("productId").is(productId)),
+                stockUpdate(new StockChange(productId, 0, quantity, 0, popularityDelta)),
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+    }
+
+    @Override
+    public Product updateFields(String productId, Map<String, Object> fields) {
+        if (!fields.containsKey("price") && !fields.containsKey("discount")) {
+            return mongoTemplate.findAndModify(Query.query(Criteria.where("productId").is(productId)), setAll(fields),
+                    FindAndModifyOptions.options().returnNew(true), Product.class);
+        }
+        // finalPrice price ve discount'tan hesaplanır: okunan fiyat alanları yazılana kadar değişmediyse yazılır,
+        // araya başka bir fiyat / indirim güncellemesi girdiyse tekrar okunur
+        while (true) {
+            Query pricingQuery = Query.query(Criteria.where("productId").is(productId));
+            pricingQuery.fields().include("price", "discount");
+            Product current = mongoTemplate.findOne(pricingQuery, Product.class);
+            if (current == null) {
+                return null;
+            }
+            Product priced = new Product();
+            priced.setPrice(fields.containsKey("price") ? (BigDecimal) fields.get("price") : current.getPrice());
+            priced.setDiscount(fields.containsKey("discount") ? (BigDecimal) fields.get("discount") : current.getDiscount());
+            priced.refreshFinalPrice();
+
+            Product updated = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("productId").is(productId)
+                            .and("price").is(current.getPrice())
+                            .and("discount").is(current.getDiscount())),
+                    setAll(fields).set("finalPrice", priced.getFinalPrice()),
+                    FindAndModifyOptions.options().returnNew(true), Product.class);
+            if (updated != null) {
+                return updated;
+            }
+        }
+    }
+
+    private static Update setAll(Map<String, Object> fields) {
+        Update update = new Update();
+        fields.forEach(update::set);
+        return update;
+    }
+
+    /**
+     * Değişiklikleri tek bir ordered bulkWrite ile verilen sırayla uygular (upsert yok, tek round trip).
+     * Eşleşmeyen updateOne bulk'ta hata sayılmaz ve sonuç yalnızca toplam sayıları verir; bu yüzden
+     * quantity >= required koşulu sorguda değil update pipeline'ındadır: stok yetmezse pipeline bilinçli olarak
+     * dönüşüm hatası verir, ordered bulk o işlemde durur ve hatanın index'i yetmeyen ilk ürünü gösterir.
+     * Artık var olmayan ürün hiçbir dokümanla eşleşmez ve hata vermez; eşleşen sayı eksik kalırsa hangi ürünün
+     * olmadığı ayrıca okunur. İki durumda da o ürünün id'si döner ve ondan önce uygulananlar geri alınır.
+     * Bulk başka bir hatayla durursa durduğu yere kadar uygulananlar geri alınır ve hata fırlatılır; bulk hiç
+     * sonuç dönmeden (ör. bağlantı hatası) koparsa hangi işlemlerin uygulandığı bilinemez, hata olduğu gibi fırlar.
+     */
+    private String applyConditionally(List<StockChange> changes) {
+        if (changes.isEmpty()) {
+            return null;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class);
+        for (StockChange change : changes) {
+            bulk.updateOne(Query.query(Criteria.where("productId").is(change.productId())), stockUpdate(change));
+        }
+        int executed = changes.size();
+        long matched;
+        try {
+            matched = bulk.execute().getMatchedCount();
+        } catch (BulkOperationException e) {
+            // Ordered bulk ilk hatada durur: öncekiler uygulanmış, sonrakiler hiç çalışmamıştır
+            BulkWriteError error = e.getErrors().get(0);
+            executed = error.getIndex();
+            if (error.getCode() != INSUFFICIENT_STOCK_ERROR_CODE) {
+                applyAll(changes.subList(0, executed).stream().map(StockChange::inverse).toList());
+                throw e;
+            }
+            matched = e.getResult().getMatchedCount();
+        }
+        String insufficient = executed < changes.size() ? changes.get(executed).productId() : null;
+        if (matched < executed) {
+            insufficient = firstMissing(changes.subList(0, executed));
+        }
+        if (insufficient != null) {
+            // Olmayan ürünün tersi de hiçbir dokümanla eşleşmez
+            applyAll(changes.subList(0, executed).stream().map(StockChange::inverse).toList());
+        }
+        return insufficient;
+    }
+
+    private String firstMissing(List<StockChange> changes) {
+        Query query = Query.query(Criteria.where("productId").in(changes.stream().map(StockChange::productId).toList()));
+        query.fields().include("productId");
+        Set<String> existing = new HashSet<>();
+        mongoTemplate.find(query, Product.class).forEach(product -> existing.add(product.getProductId()));
+        return changes.stream().map(StockChange::productId).filter(id -> !existing.contains(id)).findFirst().orElse(null);
+    }
+
+    private void applyAll(List<StockChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (StockChange change : changes) {
+            bulk.updateOne(Query.query(Criteria.where("productId").is(change.productId())), stockUpdate(change));
+        }
+        bulk.execute();
+    }
+
+    // Update pipeline: inStock, aynı update içinde yeni quantity'den hesaplanır; dokümanın geri
+    // kalanı yeniden yazılmaz ve okuma ile yazma arasında başka bir siparişe pencere kalmaz
+    private AggregationUpdate stockUpdate(StockChange change) {
+        AggregationExpression quantity = ArithmeticOperators.Add.valueOf(
+                ConditionalOperators.ifNull("quantity").then(0)).add(change.quantityDelta());
+        if (change.required() > 0) {
+            // Stok yetmezse update'i durdurur (bkz. applyConditionally); $cond yalnızca seçilen dalı hesaplar
+            quantity = ConditionalOperators.when(ComparisonOperators.Gte.valueOf(
+                            ConditionalOperators.ifNull("quantity").then(0)).greaterThanEqualToValue(change.required()))
+                    .thenValueOf(quantity)
+                    .otherwiseValueOf(context -> new Document("$toInt", INSUFFICIENT_STOCK_MARKER));
+        }
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("quantity").toValue(quantity)
+                .set("inStock").toValue(ComparisonOperators.Gt.valueOf("quantity").greaterThanValue(0));
+        if (change.reservedDelta() != 0) {
+            update = update.set("reservedQuantity").toValue(ArithmeticOperators.Add.valueOf(
+                    ConditionalOperators.ifNull("reservedQuantity").then(0)).add(change.reservedDelta()));
+        }
+        if (change.popularityDelta() != 0) {
+            update = update.set("popularity").toValue(ArithmeticOperators.Add.valueOf(
+                    ConditionalOperators.ifNull("popularity").then(0)).add(change.popularityDelta()));
+        }
+        return update;
+    }
+
+    // required: uygulanabilmesi için gereken en az quantity (satılabilir stok)
+    private record StockChange(String productId, int required, int quantityDelta, int reservedDelta,
+                               int popularityDelta) {
+
+        StockChange inverse() {
+            return new StockChange(productId, 0, -quantityDelta, -reservedDelta, -popularityDelta);
+        }
+    }
+
+    @Override
+    public long renameCategory(String categoryId, String categoryName) {
+        return mongoTemplate.updateMulti(
+                Query.query(Criteria.where("categoryIds").is(categoryId)),
+                new Update().set("categoryNames." + categoryId, categoryName),
+                Product.class).getModifiedCount();
+    }
+
+    @Override
+    public long removeCategory(String categoryId) {
+        return mongoTemplate.updateMulti(
+                new Query(new Criteria().orOperator(
+                        Criteria.where("categoryIds").is(categoryId),
+                        Criteria.where("categoryNames." + categoryId).exists(true))),
+                new Update().pull("categoryIds", categoryId).unset("categoryNames." + categoryId),
+                Product.class).getModifiedCount();
+    }
+
+    private TextCriteria textCriteria(ProductFilter filter) {
+        if (filter.getQuery() == null || filter.getQuery().isBlank()) {
+            return null;
+        }
+        return TextCriteria.forDefaultLanguage().matching(filter.getQuery().trim());
+    }
+
+    // Metin dışındaki filtreler (fiyat / kategori / stok)
+    private List<Criteria> filterCriteria(ProductFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            // finalPrice Decimal128 olarak saklandığı için sınırlar da Decimal128 gönderilir
+            Criteria price = Criteria.where("finalPrice");
+            if (filter.getMinPrice() != null) {
+                price = price.gte(new Decimal128(filter.getMinPrice()));
+            }
+            if (filter.getMaxPrice() != null) {
+                price = price.lte(new Decimal128(filter.getMaxPrice()));
+            }
+            criteria.add(price);
+        }
+        if (filter.getCategoryId() != null && !filter.getCategoryId().isBlank()) {
+            criteria.add(Criteria.where("categoryIds").is(filter.getCategoryId()));
+        }
+        if (Boolean.TRUE.equals(filter.getInStock())) {
+            criteria.add(Criteria.where("inStock").is(true));
+        }
+        return criteria;
+    }
+
+    private AggregationOperation sortStage(Sort sort, boolean textSearch) {
+        if (sort.isSorted()) {
+            // Aggregation ham alan adlarıyla çalışır; productId -> _id
+            return Aggregation.sort(Sort.by(sort.stream()
+                    .map(order -> "productId".equals(order.getProperty()) ? order.withProperty("_id") : order)
+                    .toList()));
+        }
+        if (textSearch) {
+            return context -> new Document("$sort",
+                    new Document("score", new Document("$meta", "textScore")));
+        }
+        return Aggregation.sort(Sort.by("productName"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Document> documents(Document output, String key) {
+        Object value = output.get(key);
+        return value instanceof List<?> list ? (List<Document>) list : Collections.emptyList();
+    }
+
+    private long firstCount(Document output, String key) {
+        List<Document> docs = documents(output, key);
+        return docs.isEmpty() ? 0 : count(docs.get(0));
+    }
+
+    private long count(Document doc) {
+        Object count = doc.get("count");
+        return count instanceof Number n ? n.longValue() : 0;
+    }
+}
@@ -5,13 +5,18 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ReviewRepository extends MongoRepository<Review, String> {
+public interface ReviewRepository extends MongoRepository<Review, String>, ReviewRepositoryCustom {
     List<Review> findByProductId(String productId);
+    // Puan özeti backfill'i için: sadece productId ve rating alanları okunur
+    @Query(value = "{ 'productId' : { $in : ?0 }, 'rating' : { $ne : null } }", fields = "{ 'productId' : 1, 'rating' : 1 }")
+    List<Review> findRatingsByProductIdIn(Collection<String> productIds);
     List<Review> findByProductIdAndApprovedTrue(String productId);
+    List<Review> findByProductIdAndApprovedTrueAndCommentIsNotNullOrderByCreatedAtDesc(String productId);
     List<Review> findByUserId(String userId);
     List<Review> findByApprovedFalse();
     Optional<Review> findByUserIdAndProductId(String userId, String productId);
@@ -0,0 +1,21 @@
+package org.example.onlinestorebackend.Repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.example.onlinestorebackend.Entity.Review;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReviewRepositoryCustom {
+
+    // Yorumu olan review'ları (createdAt, _id) sırasında keyset ile sayfalar.
+    // productId null ise tüm ürünler; lastId null ise ilk sayfa döner. lastCreatedAt null ise son yorumun
+    // createdAt'i yoktu; null'lar artan sırada başta, azalan sırada sonda gelir.
+    List<Review> findCommentedAfter(String productId, boolean approved, Sort.Direction direction,
+                                    LocalDateTime lastCreatedAt, String lastId, int limit);
+
+    // Onay ve redleri tek bir unordered bulkWrite ile uygular
+    BulkWriteResult moderate(Collection<String> approveReviewIds, Collection<String> rejectReviewIds);
+}
@@ -0,0 +1,56 @@
+package org.example.onlinestorebackend.Repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Entity.Review;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Review> findCommentedAfter(String productId, boolean approved, Sort.Direction direction,
+                                           LocalDateTime lastCreatedAt, String lastId, int limit) {
+        Query query = new Query();
+        if (productId != null) {
+            query.addCriteria(Criteria.where("productId").is(productId));
+        }
+        query.addCriteria(Criteria.where("approved").is(approved));
+        query.addCriteria(Criteria.where("comment").ne(null));
+
+        if (lastId != null) {
+            // createdAt'i olmayan eski yorumlar da ürünlerdeki null anahtarlar gibi sıralanır
+            query.addCriteria(KeysetCriteria.after("createdAt", "reviewId", direction, lastCreatedAt, lastId));
+        }
+
+        query.with(Sort.by(direction, "createdAt").and(Sort.by(direction, "reviewId"))).limit(limit);
+        return mongoTemplate.find(query, Review.class);
+    }
+
+    @Override
+    public BulkWriteResult moderate(Collection<String> approveReviewIds, Collection<String> rejectReviewIds) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+        if (!approveReviewIds.isEmpty()) {
+            bulk.updateMulti(Query.query(Criteria.where("reviewId").in(approveReviewIds)),
+                    new Update().set("approved", true).set("updatedAt", now));
+        }
+        if (!rejectReviewIds.isEmpty()) {
+            // rejectReview ile aynı: onay kaldırılır, yorum silinir, puan kalır
+            bulk.updateMulti(Query.query(Criteria.where("reviewId").in(rejectReviewIds)),
+                    new Update().set("approved", false).set("comment", null).set("updatedAt", now));
+        }
+        return bulk.execute();
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.onlinestorebackend.Service;
+
+import java.util.Locale;
+
+/**
+ * Toplu ürün içe / dışa aktarımında desteklenen satır formatları.
+ */
+public enum CatalogFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    CatalogFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // Açık format parametresi öncelikli; yoksa Content-Type'a bakılır, varsayılan NDJSON
+    public static CatalogFormat resolve(String format, String contentType) {
+        if (format != null && !format.isBlank()) {
+            return "csv".equalsIgnoreCase(format.trim()) ? CSV : NDJSON;
+        }
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(CSV.contentType) ? CSV : NDJSON;
+    }
+}
@@ -4,10 +4,14 @@ import lombok.RequiredArgsConstructor;
 import org.example.onlinestorebackend.Dto.CategoryResponseDto;
 import org.example.onlinestorebackend.Entity.Category;
 import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
 import org.example.onlinestorebackend.exception.ResourceNotFoundException;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,10 +19,15 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ProductSuggestionIndex productSuggestionIndex;
+    private final ProductCache productCache;
+    private final ProductRepository productRepository;
+    private final TaskExecutor backgroundTaskExecutor;
+    private final CategorySnapshot categorySnapshot;
 
-    // Tüm kategorileri getir
+    // Tüm kategorileri getir (bellekteki snapshot'tan)
     public List<CategoryResponseDto> getAllCategories() {
-        List<Category> categories = categoryRepository.findAll();
+        List<Category> categories = categorySnapshot.all();
         return categories.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
@@ -26,15 +35,17 @@ public class CategoryService {
 
     // ID'ye göre kategori getir
     public CategoryResponseDto getCategoryById(String categoryId) {
-        Category category = categoryRepository.findById(categoryId)
+        Category category = categorySnapshot.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
         return convertToDto(category);
     }
 
-    // İsme göre kategori ara
+    // İsme göre kategori ara (büyük/küçük harf duyarsız, snapshot üzerinde)
     public List<CategoryResponseDto> searchCategories(String query) {
-        List<Category> categories = categoryRepository.findByCategoryNameContainingIgnoreCase(query);
-        return categories.stream()
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        return categorySnapshot.all().stream()
+                .filter(category -> category.getCategoryName() != null
+                        && category.getCategoryName().toLowerCase(Locale.ROOT).contains(needle))
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -42,6 +53,31 @@ public class CategoryService {
     // Kategori oluştur
     public CategoryResponseDto createCategory(Category category) {
         Category savedCategory = categoryRepository.save(category);
+        categorySnapshot.publishChange();
+        productSuggestionIndex.upsertCategory(savedCategory);
+        return convertToDto(savedCategory);
+    }
+
+    // Kategori güncelle; isim değiştiyse ürünlerdeki denormalize isimler arka planda toplu güncellenir
+    public CategoryResponseDto updateCategory(String categoryId, Category categoryUpdate) {
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
+
+        String previousName = category.getCategoryName();
+        if (categoryUpdate.getCategoryName() != null && !categoryUpdate.getCategoryName().isBlank()) {
+            category.setCategoryName(categoryUpdate.getCategoryName().trim());
+        }
+        if (categoryUpdate.getDescription() != null) {
+            category.setDescription(categoryUpdate.getDescription());
+        }
+
+        Category savedCategory = categoryRepository.save(category);
+        categorySnapshot.publishChange();
+        productSuggestionIndex.upsertCategory(savedCategory);
+        if (!Objects.equals(previousName, savedCategory.getCategoryName())) {
+            String newName = savedCategory.getCategoryName();
+            fanOut(() -> productRepository.renameCategory(categoryId, newName));
+        }
         return convertToDto(savedCategory);
     }
 
@@ -49,6 +85,21 @@ public class CategoryService {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
         categoryRepository.delete(category);
+        categorySnapshot.publishChange();
+        productSuggestionIndex.removeCategory(categoryId);
+        fanOut(() -> productRepository.removeCategory(categoryId));
+    }
+
+    // Ürünlere yayılan updateMulti isteği bekletmez. Cache update bittikten sonra temizlenir;
+    // aksi halde update sürerken okunan eski isimli DTO'lar cache'e geri girebilirdi.
+    private void fanOut(Runnable productUpdate) {
+        backgroundTaskExecutor.execute(() -> {
+            try {
+                productUpdate.run();
+            } finally {
+                productCache.clear();
+            }
+        });
     }
 
     // Entity -> DTO dönüşümü
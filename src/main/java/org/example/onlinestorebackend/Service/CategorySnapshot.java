@@ -0,0 +1,109 @@
+package org.example.onlinestorebackend.Service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Entity.CatalogVersion;
+import org.example.onlinestorebackend.Entity.Category;
+import org.example.onlinestorebackend.Repository.CatalogVersionRepository;
+import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tüm kategorilerin süreç genelinde paylaşılan, değişmez bellek kopyası (id -> Category, ad -> Category).
+ * Okumalar volatile referans üzerinden kilitsiz map okumasıdır, DB'ye gitmez.
+ * Kategori yazıldığında ortak sürüm sayacı artırılıp yeni snapshot atomik olarak yerine konur;
+ * diğer node'lar sayacı periyodik kontrol eder ve sürüm değiştiyse yeniden yükler.
+ * Dönen Category nesneleri paylaşılır, değiştirilmemelidir.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategorySnapshot {
+
+    static final String VERSION_KEY = "categories";
+
+    private final CategoryRepository categoryRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+
+    private volatile Snapshot current;
+
+    public List<Category> all() {
+        return current().categories();
+    }
+
+    public Optional<Category> findById(String categoryId) {
+        return categoryId == null ? Optional.empty() : Optional.ofNullable(current().byId().get(categoryId));
+    }
+
+    // Ad karşılaştırması büyük/küçük harf duyarsızdır
+    public Optional<Category> findByName(String categoryName) {
+        return categoryName == null
+                ? Optional.empty()
+                : Optional.ofNullable(current().byName().get(normalize(categoryName)));
+    }
+
+    public long version() {
+        return current().version();
+    }
+
+    // Bu node'da kategori yazıldıktan sonra çağrılır: sürümü artırır ve hemen yeniden yükler
+    public void publishChange() {
+        load(catalogVersionRepository.increment(VERSION_KEY));
+    }
+
+    // Başka bir node'daki yazmaları yakalamak için; tek bir küçük doküman okur
+    @Scheduled(fixedDelayString = "${app.category-snapshot.refresh-interval-ms:5000}")
+    public void refreshIfStale() {
+        long latest = latestVersion();
+        Snapshot snapshot = current;
+        if (snapshot == null || snapshot.version() != latest) {
+            load(latest);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot snapshot = current;
+        return snapshot != null ? snapshot : load(latestVersion());
+    }
+
+    private long latestVersion() {
+        return catalogVersionRepository.findById(VERSION_KEY).map(CatalogVersion::getVersion).orElse(0L);
+    }
+
+    // Sürüm kategorilerden önce okunur: yükleme sırasında gelen bir yazma daha büyük sürüm
+    // bırakacağı için bir sonraki kontrolde mutlaka yeniden yüklenir
+    private synchronized Snapshot load(long version) {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.version() > version) {
+            return snapshot;
+        }
+
+        List<Category> categories = categoryRepository.findAll();
+        Map<String, Category> byId = new LinkedHashMap<>();
+        Map<String, Category> byName = new LinkedHashMap<>();
+        for (Category category : categories) {
+            byId.put(category.getCategoryId(), category);
+            if (category.getCategoryName() != null) {
+                byName.putIfAbsent(normalize(category.getCategoryName()), category);
+            }
+        }
+        snapshot = new Snapshot(version, List.copyOf(categories),
+                Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byName));
+        current = snapshot;
+        return snapshot;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Snapshot(long version, List<Category> categories,
+                            Map<String, Category> byId, Map<String, Category> byName) {
+    }
+}
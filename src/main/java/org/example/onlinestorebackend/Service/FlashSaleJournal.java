@@ -0,0 +1,123 @@
+package org.example.onlinestorebackend.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flash sale bellek sayaçlarının yerel, sadece sona eklenen günlüğü. Her kayıt tab ile ayrılmış tek satırdır.
+ * Bir satış ancak kaydı diske indirildikten (force) sonra onaylanır; aynı anda yazan thread'lerin kayıtları
+ * tek bir force ile birlikte diske iner (group commit).
+ */
+final class FlashSaleJournal implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Object syncLock = new Object();
+    private long written; // this ile korunur
+    private long synced; // syncLock ile korunur
+
+    FlashSaleJournal(Path path) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.written = channel.size();
+        this.synced = written;
+    }
+
+    // Tüm kayıtlar; çökme anında yarım kalmış son satır atlanır
+    List<String[]> read() throws IOException {
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        List<String[]> records = new ArrayList<>();
+        int start = 0;
+        for (int end = content.indexOf('\n'); end >= 0; end = content.indexOf('\n', start)) {
+            if (end > start) {
+                records.add(content.substring(start, end).split("\t"));
+            }
+            start = end + 1;
+        }
+        if (start < content.length()) {
+            // Yeni kayıtlar yarım satırın devamına eklenmesin
+            truncateTo(content.substring(0, start).getBytes(StandardCharsets.UTF_8).length);
+        }
+        return records;
+    }
+
+    // Kayıtları ekler ve diske indirildiklerinden emin olduktan sonra döner
+    void append(List<String> records) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (String record : records) {
+            lines.append(record).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+
+        long position;
+        synchronized (this) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            written += buffer.limit();
+            position = written;
+        }
+
+        synchronized (syncLock) {
+            // Bu thread beklerken başka birinin force'u bu kayıtları da diske indirdiyse tekrar force edilmez
+            if (synced >= position) {
+                return;
+            }
+            long target;
+            synchronized (this) {
+                target = written;
+            }
+            channel.force(false);
+            synced = target;
+        }
+    }
+
+    // Bekleyen hiçbir şey kalmadığında günlük sıfırlanır (sınırsız büyümesin)
+    void truncate() throws IOException {
+        truncateTo(0);
+    }
+
+    private void truncateTo(long size) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                channel.truncate(size);
+                channel.force(false);
+                written = size;
+            }
+            synced = size;
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return written == 0;
+    }
+
+    static String record(Object... fields) {
+        StringBuilder record = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                record.append('\t');
+            }
+            record.append(fields[i]);
+        }
+        return record.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
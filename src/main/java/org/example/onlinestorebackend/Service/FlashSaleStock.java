@@ -0,0 +1,407 @@
+package org.example.onlinestorebackend.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.exception.InsufficientStockException;
+import org.example.onlinestorebackend.exception.InvalidRequestException;
+import org.example.onlinestorebackend.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seçili ürünler için flash sale modu. Yönetici bir ürüne adet ayırınca bu adetler Mongo'da quantity'den
+ * reservedQuantity'ye taşınır ve siparişler bellekteki StripedStockCounter'dan karşılanır; sıcak ürün
+ * dokümanına her siparişte yazılmaz. Satılan ve havuza dönen adetler periyodik olarak tek bulkWrite ile
+ * ürünlere işlenir (write-behind).
+ * Her satış onaylanmadan önce FlashSaleJournal'a yazılır. Uygulama çökerse açılışta günlükteki işlenmemiş
+ * satışlar ürünlere yazılır, satılmayan adetler satılabilir stoğa döner; flash sale modu kendiliğinden açılmaz.
+ */
+@Slf4j
+@Service
+public class FlashSaleStock {
+
+    // Günlük kayıt tipleri
+    static final String ALLOCATED = "A"; // A productId adet
+    static final String SOLD = "S"; // S productId adet
+    static final String RETURNED = "R"; // R productId adet
+    static final String FLUSH_BEGIN = "B"; // B flushId productId satılan bırakılan
+    static final String FLUSH_DONE = "D"; // D flushId
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final FlashSaleJournal journal;
+    private final int stripes;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    // Aşağıdakiler this ile korunur
+    private PendingFlush pendingFlush; // ürünlere yazılamamış, aynı id ile tekrar denenecek toplu yazım
+    private int idleFlushes;
+    private volatile boolean recovered;
+
+    public FlashSaleStock(ProductRepository productRepository,
+                          ProductCache productCache,
+                          @Value("${app.flash-sale.journal-path:flash-sale.journal}") String journalPath,
+                          @Value("${app.flash-sale.stripes:0}") int stripes) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors() * 2;
+        try {
+            this.journal = new FlashSaleJournal(Path.of(journalPath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Flash sale journal cannot be opened: " + journalPath, e);
+        }
+    }
+
+    /**
+     * Ürünün satılabilir stoğundan units adedi flash sale havuzuna ayırır (mod zaten açıksa havuza ekler).
+     * Havuzdaki toplam adedi döner.
+     */
+    public synchronized int enable(String productId, int units) {
+        if (units <= 0) {
+            throw new InvalidRequestException("Flash sale units must be greater than zero");
+        }
+        if (!recovered) {
+            throw new InvalidRequestException("Flash sale journal is still being recovered, try again shortly");
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        if (productRepository.reserveStocks(Map.of(productId, units)) != null) {
+            throw new InsufficientStockException("Insufficient stock to allocate " + units
+                    + " units for flash sale: " + productId);
+        }
+        productCache.evict(productId);
+        try {
+            journal.append(List.of(FlashSaleJournal.record(ALLOCATED, productId, units)));
+        } catch (IOException e) {
+            productRepository.releaseReservedStocks(Map.of(productId, units));
+            productCache.evict(productId);
+            throw new UncheckedIOException("Flash sale journal write failed", e);
+        }
+
+        Pool pool = pools.get(productId);
+        if (pool == null) {
+            pool = new Pool(new StripedStockCounter(units, stripes));
+            pools.put(productId, pool);
+        } else {
+            pool.closed = false;
+            pool.counter.release(units);
+        }
+        idleFlushes = 0;
+        return pool.counter.remaining();
+    }
+
+    /**
+     * Flash sale'i kapatır: havuzda kalan adetler satılabilir stoğa döner, bekleyen satışlar hemen yazılır.
+     * Geri dönen adedi döner.
+     */
+    public synchronized int disable(String productId) {
+        Pool pool = pools.get(productId);
+        if (pool == null || pool.closed) {
+            throw new InvalidRequestException("Flash sale is not active for product: " + productId);
+        }
+        pool.closed = true;
+        int remaining = pool.counter.drain();
+        pool.unflushedReleased.addAndGet(remaining);
+        flush();
+        return remaining;
+    }
+
+    public boolean isManaged(String productId) {
+        Pool pool = pools.get(productId);
+        return pool != null && !pool.closed;
+    }
+
+    // Havuzda kalan adet (ön kontrol için yaklaşık değer); flash sale'de değilse 0
+    public int remaining(String productId) {
+        Pool pool = pools.get(productId);
+        return pool != null && !pool.closed ? pool.counter.remaining() : 0;
+    }
+
+    // Siparişin flash sale havuzundan karşılanacak kısmı (excluded: başka yoldan düşülecek ürünler)
+    public Map<String, Integer> managedPart(Map<String, Integer> quantities, Set<String> excluded) {
+        Map<String, Integer> managed = new LinkedHashMap<>();
+        if (pools.isEmpty()) {
+            return managed;
+        }
+        quantities.forEach((productId, quantity) -> {
+            if (!excluded.contains(productId) && isManaged(productId)) {
+                managed.put(productId, quantity);
+            }
+        });
+        return managed;
+    }
+
+    /**
+     * Tüm adetleri havuzlardan alır ya da hiçbirini almaz. Satış günlüğe yazılıp diske indikten sonra
+     * null döner; havuzu yetmeyen ilk ürünün id'sini döner (alınanlar geri konur).
+     */
+    public String take(Map<String, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return null;
+        }
+        Map<Pool, Integer> taken = new LinkedHashMap<>();
+        List<String> records = new ArrayList<>(quantities.size());
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            Pool pool = pools.get(entry.getKey());
+            if (pool == null || pool.closed || !pool.counter.tryAcquire(entry.getValue())) {
+                taken.forEach(this::putBack);
+                return entry.getKey();
+            }
+            taken.put(pool, entry.getValue());
+            records.add(FlashSaleJournal.record(SOLD, entry.getKey(), entry.getValue()));
+        }
+
+        try {
+            journal.append(records);
+        } catch (IOException e) {
+            taken.forEach(this::putBack);
+            throw new UncheckedIOException("Flash sale journal write failed", e);
+        }
+        taken.forEach((pool, quantity) -> pool.unflushedSold.add(quantity));
+        return null;
+    }
+
+    // take ile alınıp siparişe dönüşemeyen adetleri geri verir (mod kapandıysa satılabilir stoğa döner)
+    public synchronized void giveBack(Map<String, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<String> records = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            // Havuz bu arada kapatılıp silinmiş olabilir; satış ürüne yazıldıysa iade de öyle yazılır
+            Pool pool = pools.computeIfAbsent(productId, id -> Pool.closed());
+            pool.unflushedSold.add(-quantity);
+            putBack(pool, quantity);
+            records.add(FlashSaleJournal.record(RETURNED, productId, quantity));
+        });
+        idleFlushes = 0;
+        try {
+            journal.append(records);
+        } catch (IOException e) {
+            // Günlükte satış olarak kalır: çökme olursa bu adetler satılmış sayılır (fazla satış olmaz)
+            log.warn("Flash sale return could not be journaled: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Bekleyen satış ve iadeleri ürünlere yazar. Toplu yazımın başı ve sonu günlüğe işlenir; yazılamazsa
+     * aynı id ile tekrar denenir. Tüm havuzlar kapalıyken bir tam aralık boyunca iş çıkmazsa günlük sıfırlanır.
+     */
+    @Scheduled(fixedDelayString = "${app.flash-sale.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (!recovered) {
+            recover();
+            return;
+        }
+        if (pendingFlush == null) {
+            PendingFlush next = new PendingFlush(UUID.randomUUID().toString());
+            pools.forEach((productId, pool) ->
+                    next.add(productId, (int) pool.unflushedSold.sumThenReset(), pool.unflushedReleased.getAndSet(0)));
+            if (next.isEmpty()) {
+                compactWhenIdle();
+                return;
+            }
+            pendingFlush = next;
+        }
+        idleFlushes = 0;
+        apply(pendingFlush);
+        pendingFlush = null;
+    }
+
+    /**
+     * Açılışta günlüğü okur: yarım kalmış toplu yazımı aynı id ile tekrarlar (ürün üzerindeki id sayesinde
+     * iki kez uygulanmaz), işlenmemiş satışları yazar ve satılmayan adetleri satılabilir stoğa geri verir.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void recover() {
+        if (recovered) {
+            return;
+        }
+        try {
+            Map<String, Integer> allocated = new HashMap<>();
+            Map<String, Integer> sold = new HashMap<>();
+            Map<String, PendingFlush> flushes = new LinkedHashMap<>();
+            Set<String> done = new HashSet<>();
+            for (String[] record : journal.read()) {
+                switch (record[0]) {
+                    case ALLOCATED -> allocated.merge(record[1], Integer.parseInt(record[2]), Integer::sum);
+                    case SOLD -> sold.merge(record[1], Integer.parseInt(record[2]), Integer::sum);
+                    case RETURNED -> sold.merge(record[1], -Integer.parseInt(record[2]), Integer::sum);
+                    case FLUSH_BEGIN -> flushes.computeIfAbsent(record[1], PendingFlush::begun)
+                            .add(record[2], Integer.parseInt(record[3]), Integer.parseInt(record[4]));
+                    case FLUSH_DONE -> done.add(record[1]);
+                    default -> log.warn("Unknown flash sale journal record: {}", String.join(" ", record));
+                }
+            }
+
+            // Ayrılan = satılan + bırakılan olana kadar eksik kalan kısım tek son yazımla tamamlanır
+            PendingFlush remainder = new PendingFlush(UUID.randomUUID().toString());
+            Set<String> productIds = new LinkedHashSet<>(allocated.keySet());
+            productIds.addAll(sold.keySet());
+            for (String productId : productIds) {
+                int netSold = sold.getOrDefault(productId, 0);
+                remainder.add(productId, netSold, allocated.getOrDefault(productId, 0) - netSold);
+            }
+            for (PendingFlush flush : flushes.values()) {
+                if (!done.contains(flush.flushId)) {
+                    apply(flush);
+                }
+                flush.sold.forEach((productId, quantity) -> remainder.add(productId, -quantity, 0));
+                flush.released.forEach((productId, quantity) -> remainder.add(productId, 0, -quantity));
+            }
+            if (!remainder.isEmpty()) {
+                apply(remainder);
+                log.info("Flash sale journal recovered: sold {}, released {}", remainder.sold, remainder.released);
+            }
+            journal.truncate();
+            recovered = true;
+        } catch (IOException | RuntimeException e) {
+            // Flash sale açılamaz; bir sonraki flush tekrar dener
+            log.warn("Flash sale journal recovery failed: {}", e.getMessage());
+        }
+    }
+
+    // Kapanışta açık havuzlar satılabilir stoğa döner; başarısız olursa açılıştaki kurtarma tamamlar
+    @PreDestroy
+    public synchronized void shutdown() {
+        pools.forEach((productId, pool) -> {
+            if (!pool.closed) {
+                pool.closed = true;
+                pool.unflushedReleased.addAndGet(pool.counter.drain());
+            }
+        });
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Flash sale flush on shutdown failed: {}", e.getMessage());
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Flash sale journal could not be closed: {}", e.getMessage());
+        }
+    }
+
+    private void apply(PendingFlush flush) {
+        try {
+            if (!flush.begun) {
+                journal.append(flush.beginRecords());
+                flush.begun = true;
+            }
+            productRepository.applyFlashSaleFlush(flush.flushId, flush.sold, flush.released);
+            journal.append(List.of(FlashSaleJournal.record(FLUSH_DONE, flush.flushId)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Flash sale journal write failed", e);
+        }
+        Set<String> productIds = new LinkedHashSet<>(flush.sold.keySet());
+        productIds.addAll(flush.released.keySet());
+        productCache.evictAll(productIds);
+    }
+
+    // Kapanan havuzdan az önce alınmış ve henüz günlüğe yazılmamış satış olabilir: bir aralık daha beklenir
+    private void compactWhenIdle() {
+        idleFlushes++;
+        if (idleFlushes < 2 || journal.isEmpty()) {
+            return;
+        }
+        if (pools.values().stream().allMatch(pool -> pool.closed)) {
+            pools.clear();
+            try {
+                journal.truncate();
+            } catch (IOException e) {
+                log.warn("Flash sale journal could not be truncated: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void putBack(Pool pool, int quantity) {
+        pool.counter.release(quantity);
+        // Kapanış drain'i bu release'ten önce olduysa adetler sayaçta kalmasın
+        if (pool.closed) {
+            pool.unflushedReleased.addAndGet(pool.counter.drain());
+        }
+    }
+
+    private static final class Pool {
+
+        private final StripedStockCounter counter;
+        private final LongAdder unflushedSold = new LongAdder(); // sıcak yol: her satışta artar
+        private final AtomicInteger unflushedReleased = new AtomicInteger();
+        private volatile boolean closed;
+
+        private Pool(StripedStockCounter counter) {
+            this.counter = counter;
+        }
+
+        private static Pool closed() {
+            Pool pool = new Pool(new StripedStockCounter(0, 1));
+            pool.closed = true;
+            return pool;
+        }
+    }
+
+    private static final class PendingFlush {
+
+        private final String flushId;
+        private final Map<String, Integer> sold = new LinkedHashMap<>();
+        private final Map<String, Integer> released = new LinkedHashMap<>();
+        private boolean begun; // başlangıç kaydı günlükte mi
+
+        private PendingFlush(String flushId) {
+            this.flushId = flushId;
+        }
+
+        private static PendingFlush begun(String flushId) {
+            PendingFlush flush = new PendingFlush(flushId);
+            flush.begun = true;
+            return flush;
+        }
+
+        private void add(String productId, int soldQuantity, int releasedQuantity) {
+            if (soldQuantity != 0) {
+                sold.merge(productId, soldQuantity, Integer::sum);
+                sold.remove(productId, 0);
+            }
+            if (releasedQuantity != 0) {
+                released.merge(productId, releasedQuantity, Integer::sum);
+                released.remove(productId, 0);
+            }
+        }
+
+        private boolean isEmpty() {
+            return sold.isEmpty() && released.isEmpty();
+        }
+
+        private List<String> beginRecords() {
+            Set<String> productIds = new LinkedHashSet<>(sold.keySet());
+            productIds.addAll(released.keySet());
+            List<String> records = new ArrayList<>(productIds.size());
+            for (String productId : productIds) {
+                records.add(FlashSaleJournal.record(FLUSH_BEGIN, flushId, productId,
+                        sold.getOrDefault(productId, 0), released.getOrDefault(productId, 0)));
+            }
+            return records;
+        }
+    }
+}
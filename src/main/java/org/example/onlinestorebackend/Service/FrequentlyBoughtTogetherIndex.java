@@ -0,0 +1,192 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Entity.Order;
+import org.example.onlinestorebackend.Entity.OrderItem;
+import org.example.onlinestorebackend.Repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * "Birlikte sık alınanlar" için bellekte tutulan seyrek ürün birliktelik matrisi:
+ * productId -> (diğer productId -> ikisini birlikte içeren sipariş sayısı).
+ * Açılışta tüm siparişler fork/join ile paralel taranarak kurulur, sonrasında her yeni
+ * siparişte (ve iptalde) artımlı güncellenir. Okumalar DB'ye gitmez.
+ */
+@Service
+public class FrequentlyBoughtTogetherIndex {
+
+    // Çok kalemli siparişler çift sayısını karesel büyütür; fazlası dikkate alınmaz
+    static final int MAX_BASKET_SIZE = 50;
+
+    private final OrderRepository orderRepository;
+    private final ForkJoinPool pool;
+
+    private Map<String, Map<String, Long>> matrix = new HashMap<>();
+
+    @Autowired
+    public FrequentlyBoughtTogetherIndex(OrderRepository orderRepository) {
+        this(orderRepository, ForkJoinPool.commonPool());
+    }
+
+    FrequentlyBoughtTogetherIndex(OrderRepository orderRepository, ForkJoinPool pool) {
+        this.orderRepository = orderRepository;
+        this.pool = pool;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<List<String>> baskets = orderRepository.findProductIdsOfActiveOrders().stream()
+                .map(FrequentlyBoughtTogetherIndex::basket)
+                .toList();
+        // Tarama kilitsiz yapılır; hazır olan matris tek atamayla yerine konur
+        Map<String, Map<String, Long>> built = build(baskets, pool);
+        synchronized (this) {
+            matrix = built;
+        }
+    }
+
+    public synchronized void recordOrder(Order order) {
+        apply(matrix, basket(order), 1);
+    }
+
+    public synchronized void recordCancellation(Order order) {
+        apply(matrix, basket(order), -1);
+    }
+
+    // En sık birlikte alınan en fazla limit ürün (sayı azalan, eşitlikte productId artan)
+    public synchronized List<Map.Entry<String, Long>> related(String productId, int limit) {
+        Map<String, Long> neighbours = matrix.get(productId);
+        if (neighbours == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Comparator<Map.Entry<String, Long>> ranking = Map.Entry.<String, Long>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        // En iyi "limit" kaydı tutan min-heap: en zayıf aday tepede durur
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(limit + 1, ranking);
+        for (Map.Entry<String, Long> entry : neighbours.entrySet()) {
+            top.offer(Map.entry(entry.getKey(), entry.getValue()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(top);
+        ranked.sort(ranking.reversed());
+        return ranked;
+    }
+
+    // Verilen sepetlerden matrisi fork/join ile kurar; havuzdaki her thread bir ürün bölümünü sayar
+    static Map<String, Map<String, Long>> build(List<List<String>> baskets, ForkJoinPool pool) {
+        int partitions = Math.max(1, pool.getParallelism());
+        return pool.invoke(new CountTask(baskets, partitions, 0, partitions));
+    }
+
+    static Map<String, Map<String, Long>> buildSequential(List<List<String>> baskets) {
+        Map<String, Map<String, Long>> counts = new HashMap<>();
+        baskets.forEach(basket -> apply(counts, basket, 1));
+        return counts;
+    }
+
+    // Siparişteki tekil ürünler (sırası korunur, MAX_BASKET_SIZE ile sınırlı)
+    private static List<String> basket(Order order) {
+        if (order.getItems() == null) {
+            return Collections.emptyList();
+        }
+        Set<String> productIds = new LinkedHashSet<>();
+        for (OrderItem item : order.getItems()) {
+            if (item.getProductId() != null && productIds.size() < MAX_BASKET_SIZE) {
+                productIds.add(item.getProductId());
+            }
+        }
+        return new ArrayList<>(productIds);
+    }
+
+    private static void apply(Map<String, Map<String, Long>> counts, List<String> basket, long delta) {
+        for (int i = 0; i < basket.size(); i++) {
+            for (int j = i + 1; j < basket.size(); j++) {
+                add(counts, basket.get(i), basket.get(j), delta);
+                add(counts, basket.get(j), basket.get(i), delta);
+            }
+        }
+    }
+
+    private static void add(Map<String, Map<String, Long>> counts, String from, String to, long delta) {
+        Map<String, Long> neighbours = counts.computeIfAbsent(from, k -> new HashMap<>());
+        long updated = neighbours.getOrDefault(to, 0L) + delta;
+        if (updated > 0) {
+            neighbours.put(to, updated);
+        } else {
+            neighbours.remove(to);
+            if (neighbours.isEmpty()) {
+                counts.remove(from);
+            }
+        }
+    }
+
+    // Ürün id'lerinin hash'ine göre bölümlenmiş sayım: her yaprak tüm sepetleri tarar ama sadece
+    // kendi bölümündeki ürünlerin satırlarını sayar. Satırlar ayrık olduğu için birleştirmede
+    // sayaç toplama gerekmez; sipariş bazlı bölmede büyük map'leri birleştirmek taramadan pahalıya çıkıyordu.
+    private static final class CountTask extends RecursiveTask<Map<String, Map<String, Long>>> {
+        private final List<List<String>> baskets;
+        private final int partitions;
+        private final int from;
+        private final int to;
+
+        private CountTask(List<List<String>> baskets, int partitions, int from, int to) {
+            this.baskets = baskets;
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, Map<String, Long>> compute() {
+            if (to - from == 1) {
+                return countPartition(from);
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(baskets, partitions, from, middle);
+            left.fork();
+            Map<String, Map<String, Long>> right = new CountTask(baskets, partitions, middle, to).compute();
+            Map<String, Map<String, Long>> joined = left.join();
+            if (joined.size() < right.size()) {
+                right.putAll(joined);
+                return right;
+            }
+            joined.putAll(right);
+            return joined;
+        }
+
+        private Map<String, Map<String, Long>> countPartition(int partition) {
+            Map<String, Map<String, Long>> counts = new HashMap<>();
+            for (List<String> basket : baskets) {
+                for (int i = 0; i < basket.size(); i++) {
+                    String productId = basket.get(i);
+                    if (Math.floorMod(productId.hashCode(), partitions) != partition) {
+                        continue;
+                    }
+                    for (int j = 0; j < basket.size(); j++) {
+                        if (i != j) {
+                            add(counts, productId, basket.get(j), 1);
+                        }
+                    }
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.onlinestorebackend.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.example.onlinestorebackend.Entity.IdempotencyRecord;
+import org.example.onlinestorebackend.Repository.IdempotencyRecordRepository;
+import org.example.onlinestorebackend.exception.IdempotencyConflictException;
+import org.example.onlinestorebackend.exception.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key başlığı taşıyan yazma isteklerini bir kez çalıştırır. İlk istek idempotency_keys'e
+ * IN_PROGRESS kaydı ekler; yanıtı saklanınca aynı anahtarla gelen tekrarlar servisi çalıştırmadan bu yanıtı alır.
+ * Eşzamanlı tekrarlar birleştirilir: aynı node'dakiler ilk isteğin sonucunu bekler, diğer node'dakiler
+ * kayıt tamamlanana kadar yoklar. İstek hata ile biterse kayıt silinir ve anahtar tekrar denenebilir.
+ * İstek sürdükçe kilit süresi düzenli olarak uzatılır; uzun süren bir istek başka node tarafından devralınmaz.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final long leaseMillis;
+    private final long waitTimeoutMillis;
+    private final LongSupplier clock;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    // Bu node'da çalışmakta olan isteklerin kayıt id'si -> sahip; kilitleri renewLeases uzatır
+    private final Map<String, String> heldLeases = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.lease-seconds:60}") long leaseSeconds,
+                              @Value("${app.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this(idempotencyRecordRepository, objectMapper, leaseSeconds, waitTimeoutMillis, System::currentTimeMillis);
+    }
+
+    IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper,
+                       long leaseSeconds, long waitTimeoutMillis, LongSupplier clock) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * action'ı (scope, caller, key) için en fazla bir kez çalıştırır. key yoksa doğrudan çalıştırır.
+     * caller anahtarların kullanıcılar arasında çakışmaması içindir; request parmak izi için kullanılır.
+     */
+    public <T> ResponseEntity<T> execute(String scope, String caller, String key, Object request,
+                                         Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ":" + caller + ":" + key;
+        String fingerprint = fingerprint(scope, request);
+
+        Flight flight = new Flight(fingerprint, new CompletableFuture<>());
+        Flight leader = inFlight.putIfAbsent(id, flight);
+        if (leader != null) {
+            return awaitLeader(leader, fingerprint, responseType);
+        }
+        try {
+            ResponseEntity<T> response = executeOnce(id, fingerprint, responseType, action);
+            flight.result.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, flight);
+        }
+    }
+
+    String fingerprint(String scope, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scope.getBytes(StandardCharsets.UTF_8));
+            // Map gövdelerde alan sırası fark yaratmasın
+            digest.update(objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request fingerprint could not be computed", e);
+        }
+    }
+
+    private <T> ResponseEntity<T> executeOnce(String id, String fingerprint, Class<T> responseType,
+                                              Supplier<ResponseEntity<T>> action) {
+        String owner = UUID.randomUUID().toString();
+        if (!tryInsert(id, fingerprint, owner)) {
+            IdempotencyRecord completed = awaitRecord(id, fingerprint, owner);
+            if (completed != null) {
+                return replay(completed, responseType);
+            }
+        }
+
+        ResponseEntity<T> response;
+        heldLeases.put(id, owner);
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.release(id, owner);
+            throw e;
+        } finally {
+            heldLeases.remove(id, owner);
+        }
+
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response.getBody());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response for idempotency key could not be stored", e);
+        }
+        if (!idempotencyRecordRepository.complete(id, owner, response.getStatusCode().value(), body)) {
+            log.warn("Idempotency key {} was taken over before its response was stored", id);
+        }
+        return response;
+    }
+
+    /**
+     * Bu node'da süren isteklerin kilitlerini now + lease süresine uzatır. Aralık lease süresinden
+     * belirgin biçimde kısa olmalıdır; aksi halde yavaş bir istek süresi dolmuş sayılıp devralınabilir.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.renew-interval-ms:20000}")
+    public void renewLeases() {
+        Instant lockedUntil = Instant.ofEpochMilli(clock.getAsLong() + leaseMillis);
+        heldLeases.forEach((id, owner) -> {
+            if (!idempotencyRecordRepository.extendLease(id, owner, lockedUntil)) {
+                // Kilit yine de kaybedildiyse yanıtı complete() yazmaz; burada sadece görünür kılınır
+                log.warn("Idempotency key {} lease could not be renewed; it was taken over or released", id);
+            }
+        });
+    }
+
+    // Kayıt tamamlanınca onu döner; sahibi kaydı bıraktıysa ya da süresi geçtiyse bu çağrı devralır ve null döner
+    private IdempotencyRecord awaitRecord(String id, String fingerprint, String owner) {
+        long deadline = clock.getAsLong() + waitTimeoutMillis;
+        while (true) {
+            IdempotencyRecord existing = idempotencyRecordRepository.findById(id).orElse(null);
+            if (existing == null) {
+                if (tryInsert(id, fingerprint, owner)) {
+                    return null;
+                }
+                continue;
+            }
+            if (!fingerprint.equals(existing.getFingerprint())) {
+                throw new IdempotencyConflictException("Idempotency-Key was already used with a different request");
+            }
+            if (IdempotencyRecord.COMPLETED.equals(existing.getStatus())) {
+                return existing;
+            }
+            long now = clock.getAsLong();
+            if (existing.getLockedUntil() != null && existing.getLockedUntil().toEpochMilli() < now
+                    && idempotencyRecordRepository.takeOver(id, owner, Instant.ofEpochMilli(now),
+                            Instant.ofEpochMilli(now + leaseMillis)) != null) {
+                return null;
+            }
+            if (now >= deadline) {
+                throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+            }
+        }
+    }
+
+    private boolean tryInsert(String id, String fingerprint, String owner) {
+        long now = clock.getAsLong();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint(fingerprint);
+        record.setStatus(IdempotencyRecord.IN_PROGRESS);
+        record.setOwner(owner);
+        record.setLockedUntil(Instant.ofEpochMilli(now + leaseMillis));
+        record.setCreatedAt(Instant.ofEpochMilli(now));
+        try {
+            idempotencyRecordRepository.insert(record);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private <T> ResponseEntity<T> awaitLeader(Flight leader, String fingerprint, Class<T> responseType) {
+        if (!leader.fingerprint.equals(fingerprint)) {
+            throw new IdempotencyConflictException("Idempotency-Key was already used with a different request");
+        }
+        ResponseEntity<?> response;
+        try {
+            response = leader.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .header(REPLAYED_HEADER, "true")
+                .body(responseType.cast(response.getBody()));
+    }
+
+    private <T> ResponseEntity<T> replay(IdempotencyRecord record, Class<T> responseType) {
+        try {
+            return ResponseEntity.status(record.getResponseStatus())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(objectMapper.readValue(record.getResponseBody(), responseType));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for idempotency key could not be read", e);
+        }
+    }
+
+    // Bu node'da aynı anahtarla süren istek; tekrarlar onun sonucunu bekler
+    private record Flight(String fingerprint, CompletableFuture<ResponseEntity<?>> result) {
+    }
+}
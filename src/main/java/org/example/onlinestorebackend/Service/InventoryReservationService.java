@@ -0,0 +1,212 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Entity.Cart;
+import org.example.onlinestorebackend.Entity.CartItem;
+import org.example.onlinestorebackend.Entity.InventoryReservation;
+import org.example.onlinestorebackend.Repository.CartRepository;
+import org.example.onlinestorebackend.Repository.InventoryReservationRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.exception.InsufficientStockException;
+import org.example.onlinestorebackend.exception.InvalidRequestException;
+import org.example.onlinestorebackend.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Checkout ile ödeme arasında sepetteki adetleri süreli olarak ayırır.
+ * Rezervasyon, adetleri koşullu update'lerle Product.quantity'den reservedQuantity'ye taşır;
+ * böylece quantity her zaman satılabilir (available-to-sell) stoktur ve ek sorgu gerektirmez.
+ * Sepetten sipariş oluşurken (ödeme) rezervasyon onaylanır, süresi dolanları temizleyici geri verir.
+ */
+@Service
+public class InventoryReservationService {
+
+    static final int SWEEP_BATCH_SIZE = 500;
+    static final long STUCK_RELEASE_GRACE_MILLIS = 60_000;
+
+    private final InventoryReservationRepository reservationRepository;
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public InventoryReservationService(
+            InventoryReservationRepository reservationRepository,
+            CartRepository cartRepository,
+            ProductRepository productRepository,
+            ProductCache productCache,
+            @Value("${app.inventory-reservation.ttl-seconds:600}") long ttlSeconds) {
+        this(reservationRepository, cartRepository, productRepository, productCache, ttlSeconds,
+                System::currentTimeMillis);
+    }
+
+    InventoryReservationService(InventoryReservationRepository reservationRepository, CartRepository cartRepository,
+                                ProductRepository productRepository, ProductCache productCache, long ttlSeconds,
+                                LongSupplier clock) {
+        this.reservationRepository = reservationRepository;
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.clock = clock;
+    }
+
+    /**
+     * Sepetteki adetleri TTL süresince ayırır. Kullanıcının önceki aktif rezervasyonu varsa önce
+     * bırakılır (checkout'a yeniden girmek süreyi ve adetleri tazeler). Bir ürünün satılabilir
+     * stoğu yetmezse hiçbir şey ayrılmaz.
+     */
+    public InventoryReservation reserveCart(String userId) {
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + userId));
+        if (cart.getItems() == null || cart.getItems().isEmpty()) {
+            throw new InvalidRequestException("Cart is empty, cannot start checkout");
+        }
+
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        Map<String, String> productNames = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new InvalidRequestException("Quantity must be greater than zero");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            productNames.put(item.getProductId(), item.getProductName());
+        }
+
+        release(userId);
+
+        String insufficient = productRepository.reserveStocks(quantities);
+        productCache.evictAll(quantities.keySet());
+        if (insufficient != null) {
+            throw new InsufficientStockException("Insufficient stock for product: "
+                    + productNames.getOrDefault(insufficient, insufficient));
+        }
+
+        Instant now = Instant.ofEpochMilli(clock.getAsLong());
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setReservationId(UUID.randomUUID().toString());
+        reservation.setUserId(userId);
+        reservation.setItems(quantities);
+        reservation.setStatus(InventoryReservation.ACTIVE);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plusMillis(ttlMillis));
+        try {
+            return reservationRepository.save(reservation);
+        } catch (RuntimeException e) {
+            productRepository.releaseReservedStocks(quantities);
+            productCache.evictAll(quantities.keySet());
+            throw e;
+        }
+    }
+
+    // Kullanıcı checkout'tan vazgeçti: aktif rezervasyon varsa adetleri hemen geri ver
+    public void release(String userId) {
+        reservationRepository.findFirstByUserIdAndStatus(userId, InventoryReservation.ACTIVE)
+                .ifPresent(reservation -> releaseAll(List.of(reservation)));
+    }
+
+    /**
+     * Sepetten sipariş oluşturulurken çağrılır: süresi dolmamış aktif rezervasyonu atomik olarak
+     * CONFIRMED yapar, böylece temizleyici artık ona dokunmaz. Rezervasyon yoksa null döner.
+     */
+    public InventoryReservation claim(String userId) {
+        return reservationRepository.claimActive(userId, Instant.ofEpochMilli(clock.getAsLong()));
+    }
+
+    // Sipariş kaydedildi: rezervasyon siparişe bağlanır
+    public void confirm(InventoryReservation reservation, String orderId) {
+        if (reservation != null) {
+            reservationRepository.attachOrder(reservation.getReservationId(), orderId);
+        }
+    }
+
+    // Sipariş oluşturulamadı ve stok geri verildi: rezervasyon tekrar aktif olur (süresi dolduysa temizlenir)
+    public void reactivate(InventoryReservation reservation) {
+        if (reservation != null) {
+            reservationRepository.changeStatus(reservation.getReservationId(), InventoryReservation.CONFIRMED,
+                    InventoryReservation.ACTIVE, Instant.ofEpochMilli(clock.getAsLong()));
+        }
+    }
+
+    // Süresi dolan aktif rezervasyonları index üzerinden batch'ler halinde bulup stoklarını geri verir
+    @Scheduled(fixedDelayString = "${app.inventory-reservation.sweep-interval-ms:30000}")
+    public int releaseExpired() {
+        recoverStuckReleases();
+        int released = 0;
+        while (true) {
+            List<InventoryReservation> expired = reservationRepository.findByStatusAndExpiresAtLessThanEqual(
+                    InventoryReservation.ACTIVE, Instant.ofEpochMilli(clock.getAsLong()),
+                    PageRequest.of(0, SWEEP_BATCH_SIZE));
+            released += releaseAll(expired);
+            if (expired.size() < SWEEP_BATCH_SIZE) {
+                return released;
+            }
+        }
+    }
+
+    // Stoğu iade edilirken node'u çöken (RELEASING'de kalan) rezervasyonlar tekrar ACTIVE yapılır; süreleri
+    // geçtiği için ödeme onları alamaz, hemen ardından gelen tarama stoklarını geri verir.
+    // Takılma RELEASING'e geçiş anından (closedAt) ölçülür: expiresAt'e bakılsaydı süresi çoktan dolmuş ve
+    // iadesi hâlâ süren bir rezervasyon tekrar ACTIVE yapılıp ikinci kez iade edilirdi
+    private void recoverStuckReleases() {
+        Instant stuckBefore = Instant.ofEpochMilli(clock.getAsLong() - STUCK_RELEASE_GRACE_MILLIS);
+        while (true) {
+            List<InventoryReservation> stuck = reservationRepository.findByStatusAndClosedAtLessThanEqual(
+                    InventoryReservation.RELEASING, stuckBefore, PageRequest.of(0, SWEEP_BATCH_SIZE));
+            for (InventoryReservation reservation : stuck) {
+                reservationRepository.changeStatus(reservation.getReservationId(), InventoryReservation.RELEASING,
+                        InventoryReservation.ACTIVE, Instant.ofEpochMilli(clock.getAsLong()));
+            }
+            if (stuck.size() < SWEEP_BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Durumu ACTIVE -> RELEASING yapabildiğimiz rezervasyonların adetleri tek bulkWrite ile geri verilir;
+     * aynı anda onaylanan (claim) ya da başka node'da bırakılan rezervasyon iki kez iade edilmez.
+     * Rezervasyonlar ancak stok iade edildikten sonra RELEASED olur: iade hata verirse tekrar ACTIVE yapılır
+     * ve bir sonraki taramada denenir, böylece adetler reservedQuantity'de asılı kalmaz.
+     */
+    private int releaseAll(List<InventoryReservation> reservations) {
+        Instant now = Instant.ofEpochMilli(clock.getAsLong());
+        Map<String, Integer> quantities = new HashMap<>();
+        List<String> releasing = new ArrayList<>();
+        for (InventoryReservation reservation : reservations) {
+            if (reservationRepository.changeStatus(reservation.getReservationId(), InventoryReservation.ACTIVE,
+                    InventoryReservation.RELEASING, now)) {
+                reservation.getItems().forEach((productId, quantity) -> quantities.merge(productId, quantity, Integer::sum));
+                releasing.add(reservation.getReservationId());
+            }
+        }
+        if (releasing.isEmpty()) {
+            return 0;
+        }
+        try {
+            productRepository.releaseReservedStocks(quantities);
+        } catch (RuntimeException e) {
+            releasing.forEach(reservationId -> reservationRepository.changeStatus(reservationId,
+                    InventoryReservation.RELEASING, InventoryReservation.ACTIVE, now));
+            throw e;
+        }
+        productCache.evictAll(quantities.keySet());
+        releasing.forEach(reservationId -> reservationRepository.changeStatus(reservationId,
+                InventoryReservation.RELEASING, InventoryReservation.RELEASED, now));
+        return releasing.size();
+    }
+}
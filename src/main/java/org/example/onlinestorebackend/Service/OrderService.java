@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.example.onlinestorebackend.Dto.CreateOrderRequest;
 import org.example.onlinestorebackend.Entity.Cart;
 import org.example.onlinestorebackend.Entity.CartItem;
+import org.example.onlinestorebackend.Entity.InventoryReservation;
 import org.example.onlinestorebackend.Entity.Order;
 import org.example.onlinestorebackend.Entity.OrderItem;
 import org.example.onlinestorebackend.Entity.Product;
@@ -19,12 +20,18 @@ import org.example.onlinestorebackend.exception.InvalidRequestException;
 import org.example.onlinestorebackend.exception.ResourceNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -37,6 +44,11 @@ public class OrderService {
     private final CartRepository cartRepository;
     private final UserRepository userRepository;
     private final DeliveryRepository deliveryRepository;
+    private final ProductCache productCache;
+    private final TrendingProductIndex trendingProductIndex;
+    private final FrequentlyBoughtTogetherIndex frequentlyBoughtTogetherIndex;
+    private final InventoryReservationService inventoryReservationService;
+    private final FlashSaleStock flashSaleStock;
 
     @Transactional
     public Order createOrder(CreateOrderRequest request) {
@@ -51,14 +63,19 @@ public class OrderService {
 
         List<OrderItem> orderItems = new ArrayList<>();
         BigDecimal totalPrice = BigDecimal.ZERO;
+        Map<String, List<String>> categoryIdsByProduct = new HashMap<>();
+        // Ürün başına toplam adet; stok bunun üzerinden tek seferde düşülür
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        Map<String, Product> products = loadProducts(request.getItems().stream()
+                .map(CreateOrderRequest.OrderItemRequest::getProductId)
+                .toList());
 
         for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Product not found with id: " + itemRequest.getProductId()));
+            Product product = products.get(itemRequest.getProductId());
 
-            validateStock(product, itemRequest.getQuantity());
-            decreaseStock(product, itemRequest.getQuantity());
+            validateStock(product, itemRequest.getQuantity(), 0);
+            quantities.merge(product.getProductId(), itemRequest.getQuantity(), Integer::sum);
+            categoryIdsByProduct.put(product.getProductId(), product.getCategoryIds());
 
             OrderItem orderItem = new OrderItem();
             orderItem.setProductId(product.getProductId());
@@ -97,23 +114,13 @@ public class OrderService {
         order.setStatus("PROCESSING");
         order.setTotalPrice(totalPrice.doubleValue());
 
-        Order savedOrder = orderRepository.save(order);
+        Map<String, Integer> fromFlashSale = decreaseStock(quantities, Map.of(), products);
+        Order savedOrder = saveOrRestoreStock(order, quantities, Map.of(), fromFlashSale);
 
         // Teslimat kayıtlarını oluştur (adres dahil)
-        for (OrderItem item : orderItems) {
-            Delivery delivery = new Delivery();
-            delivery.setDeliveryId(UUID.randomUUID().toString());
-            delivery.setOrderId(savedOrder.getOrderId());
-            delivery.setCustomerId(savedOrder.getCustomerId());
-            delivery.setProductId(item.getProductId());
-            delivery.setQuantity(item.getQuantity());
-            delivery.setTotalPrice(
-                    item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())).doubleValue());
-            delivery.setDeliveryAddress(deliveryAddress);
-            delivery.setCompleted(false);
-            deliveryRepository.save(delivery);
-        }
+        deliveryRepository.saveAll(toDeliveries(savedOrder, orderItems, deliveryAddress));
 
+        recordAfterCommit(savedOrder, categoryIdsByProduct);
         return savedOrder;
     }
 
@@ -136,70 +143,75 @@ public class OrderService {
 
         List<OrderItem> orderItems = new ArrayList<>();
         BigDecimal totalPrice = BigDecimal.ZERO;
-
-        for (CartItem cartItem : cart.getItems()) {
-            Product product = productRepository.findById(cartItem.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Product not found with id: " + cartItem.getProductId()));
-
-            validateStock(product, cartItem.getQuantity());
-            decreaseStock(product, cartItem.getQuantity());
-
-            OrderItem orderItem = new OrderItem();
-            orderItem.setProductId(cartItem.getProductId());
-            orderItem.setProductName(product.getProductName());
-            orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setPriceAtPurchase(cartItem.getPrice());
-            BigDecimal unitCost = product.getCost() != null
-                    ? product.getCost()
-                    : (cartItem.getPrice() != null
-                            ? cartItem.getPrice().multiply(BigDecimal.valueOf(0.5)).setScale(2, RoundingMode.HALF_UP)
-                            : BigDecimal.ZERO);
-            orderItem.setCostAtPurchase(unitCost);
-            // Set product image URL (first image if available)
-            if (product.getImages() != null && !product.getImages().isEmpty()) {
-                orderItem.setImageUrl(product.getImages().get(0));
+        Map<String, List<String>> categoryIdsByProduct = new HashMap<>();
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        // Checkout'ta bu kullanıcı için ayrılan adetler önce kullanılır; sipariş oluşamazsa
+        // (stok geri verildiğinde) rezervasyon tekrar aktif olur
+        InventoryReservation reservation = inventoryReservationService.claim(customerId);
+        Map<String, Integer> reserved = reservation != null ? reservation.getItems() : Map.of();
+        Order savedOrder;
+        try {
+            Map<String, Product> products = loadProducts(cart.getItems().stream()
+                    .map(CartItem::getProductId)
+                    .toList());
+
+            for (CartItem cartItem : cart.getItems()) {
+                Product product = products.get(cartItem.getProductId());
+
+                validateStock(product, cartItem.getQuantity(), reserved.getOrDefault(product.getProductId(), 0));
+                quantities.merge(product.getProductId(), cartItem.getQuantity(), Integer::sum);
+                categoryIdsByProduct.put(product.getProductId(), product.getCategoryIds());
+
+                OrderItem orderItem = new OrderItem();
+                orderItem.setProductId(cartItem.getProductId());
+                orderItem.setProductName(product.getProductName());
+                orderItem.setQuantity(cartItem.getQuantity());
+                orderItem.setPriceAtPurchase(cartItem.getPrice());
+                BigDecimal unitCost = product.getCost() != null
+                        ? product.getCost()
+                        : (cartItem.getPrice() != null
+                                ? cartItem.getPrice().multiply(BigDecimal.valueOf(0.5)).setScale(2, RoundingMode.HALF_UP)
+                                : BigDecimal.ZERO);
+                orderItem.setCostAtPurchase(unitCost);
+                // Set product image URL (first image if available)
+                if (product.getImages() != null && !product.getImages().isEmpty()) {
+                    orderItem.setImageUrl(product.getImages().get(0));
+                }
+
+                orderItems.add(orderItem);
+
+                if (cartItem.getSubtotal() != null) {
+                    totalPrice = totalPrice.add(cartItem.getSubtotal());
+                } else if (cartItem.getPrice() != null && cartItem.getQuantity() != null) {
+                    totalPrice = totalPrice.add(cartItem.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
+                }
             }
 
-            orderItems.add(orderItem);
-
-            if (cartItem.getSubtotal() != null) {
-                totalPrice = totalPrice.add(cartItem.getSubtotal());
-            } else if (cartItem.getPrice() != null && cartItem.getQuantity() != null) {
-                totalPrice = totalPrice.add(cartItem.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
-            }
+            Order order = new Order();
+            order.setOrderId(UUID.randomUUID().toString());
+            order.setCustomerId(customerId);
+            order.setItems(orderItems);
+            order.setOrderDate(LocalDateTime.now());
+            order.setStatus("PROCESSING");
+            order.setTotalPrice(totalPrice.doubleValue());
+            order.setShippingAddress(deliveryAddress);
+
+            Map<String, Integer> fromFlashSale = decreaseStock(quantities, reserved, products);
+            savedOrder = saveOrRestoreStock(order, quantities, reserved, fromFlashSale);
+        } catch (RuntimeException e) {
+            inventoryReservationService.reactivate(reservation);
+            throw e;
         }
+        inventoryReservationService.confirm(reservation, savedOrder.getOrderId());
 
-        Order order = new Order();
-        order.setOrderId(UUID.randomUUID().toString());
-        order.setCustomerId(customerId);
-        order.setItems(orderItems);
-        order.setOrderDate(LocalDateTime.now());
-        order.setStatus("PROCESSING");
-        order.setTotalPrice(totalPrice.doubleValue());
-        order.setShippingAddress(deliveryAddress);
-
-        Order savedOrder = orderRepository.save(order);
-
-        for (OrderItem item : orderItems) {
-            Delivery delivery = new Delivery();
-            delivery.setDeliveryId(UUID.randomUUID().toString());
-            delivery.setOrderId(savedOrder.getOrderId());
-            delivery.setCustomerId(customerId);
-            delivery.setProductId(item.getProductId());
-            delivery.setQuantity(item.getQuantity());
-            delivery.setTotalPrice(
-                    item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())).doubleValue());
-            delivery.setDeliveryAddress(deliveryAddress);
-            delivery.setCompleted(false);
-            deliveryRepository.save(delivery);
-        }
+        deliveryRepository.saveAll(toDeliveries(savedOrder, orderItems, deliveryAddress));
 
         cart.getItems().clear();
         cart.setTotalPrice(BigDecimal.ZERO);
         cart.setUpdatedAt(LocalDateTime.now());
         cartRepository.save(cart);
 
+        recordAfterCommit(savedOrder, categoryIdsByProduct);
         return savedOrder;
     }
 
@@ -280,44 +292,140 @@ public class OrderService {
         }
 
         // Put stock back
+        Map<String, List<String>> categoryIdsByProduct = new HashMap<>();
         if (order.getItems() != null) {
             for (OrderItem item : order.getItems()) {
-                Product product = productRepository.findById(item.getProductId())
-                        .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + item.getProductId()));
-                int newQty = (product.getQuantity() != null ? product.getQuantity() : 0)
-                        + (item.getQuantity() != null ? item.getQuantity() : 0);
-                product.setQuantity(newQty);
-                product.setInStock(newQty > 0);
-                productRepository.save(product);
+                int quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+                Product product = productRepository.restoreStock(item.getProductId(), quantity, 0);
+                if (product == null) {
+                    throw new ResourceNotFoundException("Product not found: " + item.getProductId());
+                }
+                productCache.evict(product.getProductId());
+                categoryIdsByProduct.put(product.getProductId(), product.getCategoryIds());
             }
         }
 
         order.setStatus("CANCELLED");
-        return orderRepository.save(order);
+        Order cancelledOrder = orderRepository.save(order);
+        trendingProductIndex.recordCancellation(cancelledOrder, categoryIdsByProduct);
+        frequentlyBoughtTogetherIndex.recordCancellation(cancelledOrder);
+        return cancelledOrder;
     }
 
-    private void validateStock(Product product, Integer requestedQuantity) {
+    // reservedQuantity: kullanıcının bu ürün için checkout'ta ayırdığı, quantity'ye dahil olmayan adet
+    private void validateStock(Product product, Integer requestedQuantity, int reservedQuantity) {
         if (requestedQuantity == null || requestedQuantity <= 0) {
             throw new InvalidRequestException("Quantity must be greater than zero");
         }
 
-        if (product.getQuantity() == null || product.getQuantity() < requestedQuantity) {
+        // Flash sale'deki ürünün satılabilir adedi bellekteki havuzdadır (Mongo'da reservedQuantity'de durur)
+        boolean flashSale = reservedQuantity == 0 && flashSaleStock.isManaged(product.getProductId());
+        int available = flashSale
+                ? flashSaleStock.remaining(product.getProductId())
+                : (product.getQuantity() != null ? product.getQuantity() : 0) + reservedQuantity;
+        if (available < requestedQuantity) {
             throw new InsufficientStockException("Insufficient stock for product: " + product.getProductName());
         }
 
-        if (!Boolean.TRUE.equals(product.getInStock())) {
+        // Tüm stok rezerve edilmişse inStock false olur; rezervasyon sahibini engellememeli
+        if (reservedQuantity == 0 && !flashSale && !Boolean.TRUE.equals(product.getInStock())) {
             throw new InsufficientStockException("Product is not available: " + product.getProductName());
         }
     }
 
-    private void decreaseStock(Product product, Integer quantity) {
-        product.setQuantity(product.getQuantity() - quantity);
-        product.setInStock(product.getQuantity() > 0);
+    // Trend ve birlikte alınanlar indeksleri bellekte; geri alınamadıkları için sadece kalıcı siparişleri görmeliler.
+    // Transaction varsa commit'ten sonra, yoksa siparişin tüm yazımları başarıyla bittikten sonra güncellenirler.
+    private void recordAfterCommit(Order order, Map<String, List<String>> categoryIdsByProduct) {
+        Runnable record = () -> {
+            trendingProductIndex.recordOrder(order, categoryIdsByProduct);
+            frequentlyBoughtTogetherIndex.recordOrder(order);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record.run();
+            }
+        });
+    }
+
+    // Satırlardaki ürünleri tek $in sorgusuyla yükler; bulunamayan ürün varsa sipariş başlamadan hata verir
+    private Map<String, Product> loadProducts(List<String> productIds) {
+        Map<String, Product> products = new HashMap<>();
+        productRepository.findAllById(new LinkedHashSet<>(productIds))
+                .forEach(product -> products.put(product.getProductId(), product));
+        for (String productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+        }
+        return products;
+    }
+
+    // Tüm satırların stoğu tek ordered bulkWrite'taki koşullu updateOne'larla düşülür (quantity >= n, popularity +n).
+    // validateStock sadece ön kontroldür; eşzamanlı siparişlerde asıl garanti bu koşuldur.
+    // Yetmeyen ürün çıkarsa repository o ana kadar düşülenleri zaten geri vermiştir.
+    // Flash sale'deki ürünler (rezervasyonla alınmadıysa) bellekteki havuzdan alınır; dönen map bu adetlerdir.
+    private Map<String, Integer> decreaseStock(Map<String, Integer> quantities, Map<String, Integer> reserved,
+                                               Map<String, Product> products) {
+        Map<String, Integer> fromFlashSale = flashSaleStock.managedPart(quantities, reserved.keySet());
+        String insufficient = flashSaleStock.take(fromFlashSale);
+        if (insufficient == null) {
+            insufficient = productRepository.decrementStocks(withoutKeys(quantities, fromFlashSale), reserved);
+            if (insufficient != null) {
+                flashSaleStock.giveBack(fromFlashSale);
+            }
+            productCache.evictAll(quantities.keySet());
+        }
+        if (insufficient != null) {
+            // Sepetten çıkarılmış ama rezervasyonda kalan bir ürün de olabilir
+            Product product = products.get(insufficient);
+            throw new InsufficientStockException(
+                    "Insufficient stock for product: " + (product != null ? product.getProductName() : insufficient));
+        }
+        return fromFlashSale;
+    }
+
+    // Sipariş kaydedilemezse düşülen stok ve popülerlik geri verilir
+    private Order saveOrRestoreStock(Order order, Map<String, Integer> quantities, Map<String, Integer> reserved,
+                                     Map<String, Integer> fromFlashSale) {
+        try {
+            return orderRepository.save(order);
+        } catch (RuntimeException e) {
+            productRepository.restoreStocks(withoutKeys(quantities, fromFlashSale), reserved);
+            flashSaleStock.giveBack(fromFlashSale);
+            productCache.evictAll(quantities.keySet());
+            throw e;
+        }
+    }
 
-        // Popülariteyi arttır (satılan adet kadar)
-        Integer currentPopularity = product.getPopularity() != null ? product.getPopularity() : 0;
-        product.setPopularity(currentPopularity + (quantity != null ? quantity : 0));
+    private Map<String, Integer> withoutKeys(Map<String, Integer> quantities, Map<String, Integer> excluded) {
+        if (excluded.isEmpty()) {
+            return quantities;
+        }
+        Map<String, Integer> remaining = new LinkedHashMap<>(quantities);
+        remaining.keySet().removeAll(excluded.keySet());
+        return remaining;
+    }
 
-        productRepository.save(product);
+    private List<Delivery> toDeliveries(Order order, List<OrderItem> orderItems, String deliveryAddress) {
+        List<Delivery> deliveries = new ArrayList<>(orderItems.size());
+        for (OrderItem item : orderItems) {
+            Delivery delivery = new Delivery();
+            delivery.setDeliveryId(UUID.randomUUID().toString());
+            delivery.setOrderId(order.getOrderId());
+            delivery.setCustomerId(order.getCustomerId());
+            delivery.setProductId(item.getProductId());
+            delivery.setQuantity(item.getQuantity());
+            delivery.setTotalPrice(
+                    item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())).doubleValue());
+            delivery.setDeliveryAddress(deliveryAddress);
+            delivery.setCompleted(false);
+            deliveries.add(delivery);
+        }
+        return deliveries;
     }
 }
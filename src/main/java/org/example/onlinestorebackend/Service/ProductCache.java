@@ -0,0 +1,211 @@
+package org.example.onlinestorebackend.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.onlinestorebackend.Dto.ProductResponseDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Kategori isimleri çözülmüş ProductResponseDto'ları bellekte tutan read-through cache.
+ * Boyut sınırı kayıt sayısına değil tahmini bayt ağırlığına göredir; sınır aşılınca
+ * en uzun süredir okunmayan (LRU) kayıtlar atılır, TTL dolan kayıt okunurken düşer.
+ * Ürünü değiştiren her yazma işlemi ilgili kaydı evict etmek zorundadır.
+ * DTO'lar değiştirilebilir olduğu için put kendi kopyasını saklar, get her çağrıda yeni bir kopya döner.
+ * Metrikler actuator altında product.cache.* isimleriyle yayınlanır.
+ */
+@Component
+public class ProductCache {
+
+    private final long maxWeightBytes;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    // accessOrder=true: her get kaydı sona taşır, ilk kayıt en eski erişilendir
+    private final LinkedHashMap<String, CachedProduct> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentWeight;
+    // Her evict'te artar; yükleme sürerken evict olduysa eski veri cache'e yazılmaz
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter explicitEvictions;
+
+    @Autowired
+    public ProductCache(
+            @Value("${app.product-cache.max-weight-bytes:16777216}") long maxWeightBytes,
+            @Value("${app.product-cache.ttl-seconds:600}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this(maxWeightBytes, ttlSeconds, meterRegistry, System::nanoTime);
+    }
+
+    ProductCache(long maxWeightBytes, long ttlSeconds, MeterRegistry meterRegistry, LongSupplier ticker) {
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.ticker = ticker;
+
+        this.hits = Counter.builder("product.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("product.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("product.cache.evictions").tag("cause", "size").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("product.cache.evictions").tag("cause", "expired").register(meterRegistry);
+        this.explicitEvictions = Counter.builder("product.cache.evictions").tag("cause", "explicit").register(meterRegistry);
+        Gauge.builder("product.cache.size", this, ProductCache::size).register(meterRegistry);
+        Gauge.builder("product.cache.weight.bytes", this, ProductCache::weight).register(meterRegistry);
+    }
+
+    // Cache'te yoksa ya da süresi dolduysa null döner
+    public synchronized ProductResponseDto get(String productId) {
+        ProductResponseDto dto = lookup(productId);
+        if (dto == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return dto;
+    }
+
+    /**
+     * get gibi, ama hit / miss metriklerine sayılmaz. Iskaladığında cache'i doldurmayan okuyucular içindir
+     * (elinde ürün dokümanı zaten olan liste dönüşümleri); onların ıskaları miss oranını bozmamalı.
+     */
+    public synchronized ProductResponseDto peek(String productId) {
+        return lookup(productId);
+    }
+
+    private ProductResponseDto lookup(String productId) {
+        CachedProduct cached = entries.get(productId);
+        if (cached == null) {
+            return null;
+        }
+        if (ticker.getAsLong() - cached.loadedAt() > ttlNanos) {
+            removeEntry(productId);
+            expiredEvictions.increment();
+            return null;
+        }
+        return copyOf(cached.dto());
+    }
+
+    // Yüklemeye başlamadan önce alınır ve put'a geri verilir
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    /**
+     * Yükleme sırasında herhangi bir evict olduysa (stamp eskidiyse) kayıt yazılmaz;
+     * böylece eşzamanlı bir güncellemeden önce okunmuş DTO cache'e geri girmez.
+     */
+    public synchronized void put(String productId, ProductResponseDto dto, long stamp) {
+        if (productId == null || dto == null || stamp != generation) {
+            return;
+        }
+        long weight = estimateWeight(dto);
+        if (weight > maxWeightBytes) {
+            return;
+        }
+        removeEntry(productId);
+        entries.put(productId, new CachedProduct(copyOf(dto), weight, ticker.getAsLong()));
+        currentWeight += weight;
+
+        Iterator<Map.Entry<String, CachedProduct>> eldest = entries.entrySet().iterator();
+        while (currentWeight > maxWeightBytes && eldest.hasNext()) {
+            currentWeight -= eldest.next().getValue().weight();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    public synchronized void evict(String productId) {
+        generation++;
+        if (removeEntry(productId)) {
+            explicitEvictions.increment();
+        }
+    }
+
+    public synchronized void evictAll(Collection<String> productIds) {
+        generation++;
+        for (String productId : productIds) {
+            if (removeEntry(productId)) {
+                explicitEvictions.increment();
+            }
+        }
+    }
+
+    // Kategori adı gibi birçok ürünün DTO'sunu etkileyen değişikliklerde
+    public synchronized void clear() {
+        generation++;
+        explicitEvictions.increment(entries.size());
+        entries.clear();
+        currentWeight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return currentWeight;
+    }
+
+    private boolean removeEntry(String productId) {
+        CachedProduct removed = entries.remove(productId);
+        if (removed == null) {
+            return false;
+        }
+        currentWeight -= removed.weight();
+        return true;
+    }
+
+    // Listeler de kopyalanır; diğer alanlar String, BigDecimal gibi değişmez tipler
+    private static ProductResponseDto copyOf(ProductResponseDto dto) {
+        return dto.toBuilder()
+                .images(copyOf(dto.getImages()))
+                .categoryIds(copyOf(dto.getCategoryIds()))
+                .categoryNames(copyOf(dto.getCategoryNames()))
+                .build();
+    }
+
+    private static List<String> copyOf(List<String> values) {
+        return values == null ? null : new ArrayList<>(values);
+    }
+
+    // Kaba bayt tahmini: nesne başlıkları + string karakterleri; eviction kararı için yeterli
+    static long estimateWeight(ProductResponseDto dto) {
+        long weight = 160;
+        weight += weightOf(dto.getProductId()) + weightOf(dto.getProductName()) + weightOf(dto.getDescription())
+                + weightOf(dto.getModel()) + weightOf(dto.getSerialNumber()) + weightOf(dto.getWarrantyStatus())
+                + weightOf(dto.getDistributionInfo());
+        weight += weightOf(dto.getImages()) + weightOf(dto.getCategoryIds()) + weightOf(dto.getCategoryNames());
+        return weight;
+    }
+
+    private static long weightOf(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static long weightOf(List<String> values) {
+        if (values == null) {
+            return 0;
+        }
+        long weight = 24 + 8L * values.size();
+        for (String value : values) {
+            weight += weightOf(value);
+        }
+        return weight;
+    }
+
+    private record CachedProduct(ProductResponseDto dto, long weight, long loadedAt) {
+    }
+}
@@ -6,10 +6,14 @@ import org.example.onlinestorebackend.Repository.ProductCategoryRelationReposito
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
-import java.time.Instant;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,24 +22,48 @@ public class ProductCategoryRelationService {
 
     private final ProductCategoryRelationRepository relationRepository;
 
+    // Ürünün kategorilerini verilen listeye getirir; sadece farklar yazılır, değişiklik yoksa hiç yazma yapılmaz
     public void syncProductCategories(String productId, List<String> categoryIds) {
-        relationRepository.deleteByProductId(productId);
+        if (productId == null) {
+            return;
+        }
+        syncProductCategories(Collections.singletonMap(productId,
+                categoryIds != null ? categoryIds : Collections.emptyList()));
+    }
 
-        if (CollectionUtils.isEmpty(categoryIds)) {
+    /**
+     * Çok ürünlü toplu sync: mevcut ilişkiler tek $in sorgusuyla okunur, tüm ürünlerin
+     * eklenen / çıkarılan ilişkileri tek bir bulkWrite ile uygulanır.
+     */
+    public void syncProductCategories(Map<String, List<String>> categoryIdsByProduct) {
+        if (CollectionUtils.isEmpty(categoryIdsByProduct)) {
             return;
         }
 
-        List<ProductCategoryRelation> relations = categoryIds.stream()
-                .filter(Objects::nonNull)
-                .distinct()
-                .map(categoryId -> ProductCategoryRelation.builder()
-                        .productId(productId)
-                        .categoryId(categoryId)
-                        .createdAt(Instant.now())
-                        .build())
-                .collect(Collectors.toList());
-
-        relationRepository.saveAll(relations);
+        Map<String, List<String>> existingByProduct = getCategoryIdsForProducts(categoryIdsByProduct.keySet());
+        Map<String, Set<String>> added = new LinkedHashMap<>();
+        Map<String, Set<String>> removed = new LinkedHashMap<>();
+        categoryIdsByProduct.forEach((productId, categoryIds) -> {
+            Set<String> desired = categoryIds == null ? Collections.emptySet() : categoryIds.stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            Set<String> existing = new LinkedHashSet<>(existingByProduct.getOrDefault(productId, Collections.emptyList()));
+
+            Set<String> toAdd = new LinkedHashSet<>(desired);
+            toAdd.removeAll(existing);
+            Set<String> toRemove = new LinkedHashSet<>(existing);
+            toRemove.removeAll(desired);
+            if (!toAdd.isEmpty()) {
+                added.put(productId, toAdd);
+            }
+            if (!toRemove.isEmpty()) {
+                removed.put(productId, toRemove);
+            }
+        });
+
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            relationRepository.applyChanges(added, removed);
+        }
     }
 
     public List<String> getCategoryIdsForProduct(String productId) {
@@ -48,6 +76,18 @@ public class ProductCategoryRelationService {
                 .toList();
     }
 
+    // Birden çok ürünün kategorilerini tek $in sorgusuyla getir (productId -> categoryIds)
+    public Map<String, List<String>> getCategoryIdsForProducts(Collection<String> productIds) {
+        if (CollectionUtils.isEmpty(productIds)) {
+            return Collections.emptyMap();
+        }
+
+        return relationRepository.findByProductIdIn(productIds).stream()
+                .collect(Collectors.groupingBy(
+                        ProductCategoryRelation::getProductId,
+                        Collectors.mapping(ProductCategoryRelation::getCategoryId, Collectors.toList())));
+    }
+
     public List<String> getProductIdsForCategory(String categoryId) {
         if (categoryId == null) {
             return Collections.emptyList();
@@ -0,0 +1,91 @@
+package org.example.onlinestorebackend.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Dto.ProductResponseDto;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.common.CsvSupport;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Kataloğun tamamını NDJSON ya da CSV olarak doğrudan response stream'ine yazar.
+ * Ürünler Mongo cursor'ından BATCH_SIZE'lık gruplar halinde okunur ve DTO'ya çevrilir;
+ * bellekte hiçbir zaman bir batch'ten fazlası tutulmaz.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductExportService {
+
+    static final int BATCH_SIZE = 500;
+
+    // İçe aktarımın okuyabildiği kolonlar önce gelir; böylece dışa aktarılan CSV tekrar içe aktarılabilir
+    static final List<String> CSV_COLUMNS = List.of(
+            "productId", "productName", "model", "serialNumber", "description", "quantity", "price",
+            "discount", "cost", "warrantyStatus", "distributionInfo", "images", "categoryIds",
+            "finalPrice", "inStock", "categoryNames", "popularity", "averageRating", "ratingCount");
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    public void exportProducts(OutputStream out, CatalogFormat format) throws IOException {
+        if (format == CatalogFormat.CSV) {
+            out.write((String.join(",", CSV_COLUMNS) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (Stream<Product> products = productRepository.streamAll(BATCH_SIZE)) {
+            Iterator<Product> iterator = products.iterator();
+            List<Product> batch = new ArrayList<>(BATCH_SIZE);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE || !iterator.hasNext()) {
+                    for (ProductResponseDto dto : productService.convertToDtos(batch)) {
+                        writeRow(out, dto, format);
+                    }
+                    out.flush();
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void writeRow(OutputStream out, ProductResponseDto dto, CatalogFormat format) throws IOException {
+        if (format == CatalogFormat.NDJSON) {
+            out.write(objectMapper.writeValueAsBytes(dto));
+            out.write('\n');
+            return;
+        }
+
+        List<Object> cells = Arrays.asList(
+                dto.getProductId(), dto.getProductName(), dto.getModel(), dto.getSerialNumber(),
+                dto.getDescription(), dto.getQuantity(), plain(dto.getPrice()), plain(dto.getDiscount()),
+                plain(dto.getCost()), dto.getWarrantyStatus(), dto.getDistributionInfo(),
+                CsvSupport.joinList(dto.getImages()), CsvSupport.joinList(dto.getCategoryIds()),
+                plain(dto.getFinalPrice()), dto.getInStock(), CsvSupport.joinList(dto.getCategoryNames()),
+                dto.getPopularity(), dto.getAverageRating(), dto.getRatingCount());
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(CsvSupport.escape(cells.get(i)));
+        }
+        line.append('\n');
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String plain(BigDecimal value) {
+        return value != null ? value.toPlainString() : null;
+    }
+}
@@ -0,0 +1,288 @@
+package org.example.onlinestorebackend.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.example.onlinestorebackend.Dto.ProductImportResultDto;
+import org.example.onlinestorebackend.Dto.ProductImportRow;
+import org.example.onlinestorebackend.Entity.Category;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.common.CsvSupport;
+import org.example.onlinestorebackend.exception.InvalidRequestException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PRODUCT_MANAGER için toplu ürün içe aktarma / güncelleme.
+ * Girdi satır satır okunur (NDJSON ya da başlıklı CSV); geçerli satırlar CHUNK_SIZE'lık
+ * parçalar halinde tek unordered bulkWrite ile yazılır. Hatalı satırlar içe aktarımı
+ * durdurmaz, satır numarasıyla raporlanır.
+ * Mevcut ürünlerde kısmi güncellemedir: satırda olmayan (ya da CSV'de boş bırakılan) alanlar, kategoriler
+ * dahil, olduğu gibi kalır. Kategorileri temizlemek için NDJSON'da categoryIds boş liste olarak verilmelidir.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ProductRepository productRepository;
+    private final CategorySnapshot categorySnapshot;
+    private final ProductCategoryRelationService productCategoryRelationService;
+    private final ProductSuggestionIndex productSuggestionIndex;
+    private final ProductCache productCache;
+    private final ObjectMapper objectMapper;
+
+    public ProductImportResultDto importProducts(InputStream input, CatalogFormat format) {
+        long started = System.nanoTime();
+        // İçe aktarım boyunca tutarlı olması için kategori snapshot'ı başta bir kez alınır
+        Map<String, String> categoryNamesById = new HashMap<>();
+        for (Category category : categorySnapshot.all()) {
+            categoryNamesById.put(category.getCategoryId(), category.getCategoryName());
+        }
+
+        ProductImportResultDto result = new ProductImportResultDto();
+        List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == CatalogFormat.CSV && header == null) {
+                    header = CsvSupport.parseLine(stripBom(line)).stream()
+                            .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                            .toList();
+                    continue;
+                }
+
+                result.setTotalRows(result.getTotalRows() + 1);
+                try {
+                    ProductImportRow row = format == CatalogFormat.CSV
+                            ? fromCsv(header, CsvSupport.parseLine(line))
+                            : objectMapper.readValue(line, ProductImportRow.class);
+                    chunk.add(new PendingRow(lineNumber, toProduct(row, categoryNamesById)));
+                } catch (JsonProcessingException e) {
+                    reject(result, lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                } catch (InvalidRequestException | IllegalArgumentException e) {
+                    reject(result, lineNumber, null, e.getMessage());
+                }
+
+                if (chunk.size() >= CHUNK_SIZE) {
+                    flush(chunk, result);
+                }
+            }
+        } catch (IOException e) {
+            throw new InvalidRequestException("Import stream could not be read: " + e.getMessage());
+        }
+        flush(chunk, result);
+
+        long elapsedNanos = System.nanoTime() - started;
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.setRowsPerSecond(elapsedNanos > 0
+                ? result.getTotalRows() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos
+                : 0);
+        return result;
+    }
+
+    // Bir parçayı tek bulkWrite ile yazar; başarılı satırların kategori ilişkileri de toplu güncellenir
+    private void flush(List<PendingRow> chunk, ProductImportResultDto result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<Product> products = chunk.stream().map(PendingRow::product).toList();
+        applyExistingDiscounts(products);
+        BulkWriteResult writeResult;
+        Set<Integer> failedIndexes = new HashSet<>();
+        try {
+            writeResult = productRepository.bulkUpsert(products);
+        } catch (BulkOperationException e) {
+            // Unordered: hatalı işlemler dışındakiler yazıldı, hatalar parça içindeki index'le gelir
+            writeResult = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                failedIndexes.add(error.getIndex());
+                PendingRow row = chunk.get(error.getIndex());
+                reject(result, row.line(), row.product().getProductId(), error.getMessage());
+            }
+        }
+        result.setInserted(result.getInserted() + writeResult.getUpserts().size());
+        result.setUpdated(result.getUpdated() + writeResult.getMatchedCount());
+
+        Set<String> written = new LinkedHashSet<>();
+        Map<String, List<String>> categoryIdsByProduct = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (failedIndexes.contains(i)) {
+                continue;
+            }
+            Product product = chunk.get(i).product();
+            written.add(product.getProductId());
+            // Kategorisi verilmeyen ürünün ilişkileri değişmez
+            if (product.getCategoryIds() != null) {
+                categoryIdsByProduct.put(product.getProductId(), product.getCategoryIds());
+            }
+            productSuggestionIndex.upsertProduct(product);
+        }
+        productCategoryRelationService.syncProductCategories(categoryIdsByProduct);
+        productCache.evictAll(written);
+        chunk.clear();
+    }
+
+    // İndirimi verilmeyen satırlar mevcut indirimi korur; finalPrice da onunla hesaplanır.
+    // Okuma ile yazma arasında indirim değişirse finalPrice bir sonraki fiyat/indirim güncellemesine kadar eski kalır.
+    private void applyExistingDiscounts(List<Product> products) {
+        List<String> ids = products.stream()
+                .filter(product -> product.getDiscount() == null)
+                .map(Product::getProductId)
+                .toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<String, BigDecimal> discounts = new HashMap<>();
+        for (Product existing : productRepository.findDiscountsByProductIdIn(ids)) {
+            if (existing.getDiscount() != null) {
+                discounts.put(existing.getProductId(), existing.getDiscount());
+            }
+        }
+        for (Product product : products) {
+            if (product.getDiscount() == null && discounts.containsKey(product.getProductId())) {
+                product.setDiscount(discounts.get(product.getProductId()));
+                product.refreshFinalPrice();
+            }
+        }
+    }
+
+    private Product toProduct(ProductImportRow row, Map<String, String> categoryNamesById) {
+        if (row.getProductName() == null || row.getProductName().isBlank()) {
+            throw new InvalidRequestException("productName is required");
+        }
+        if (row.getPrice() == null || row.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            throw new InvalidRequestException("price is required and must be >= 0");
+        }
+        Integer quantity = row.getQuantity();
+        if (quantity != null && quantity < 0) {
+            throw new InvalidRequestException("quantity must be >= 0");
+        }
+        BigDecimal discount = row.getDiscount();
+        if (discount != null
+                && (discount.compareTo(BigDecimal.ZERO) < 0 || discount.compareTo(BigDecimal.valueOf(100)) > 0)) {
+            throw new InvalidRequestException("discount must be between 0 and 100");
+        }
+        if (row.getCost() != null && row.getCost().compareTo(BigDecimal.ZERO) < 0) {
+            throw new InvalidRequestException("cost must be >= 0");
+        }
+
+        // Kategori verilmediyse null kalır: mevcut ürünün kategorileri ve kategori isimleri korunur
+        List<String> categoryIds = null;
+        Map<String, String> categoryNames = null;
+        if (row.getCategoryIds() != null) {
+            categoryIds = row.getCategoryIds().stream()
+                    .filter(id -> id != null && !id.isBlank())
+                    .map(String::trim)
+                    .distinct()
+                    .toList();
+            categoryNames = new HashMap<>();
+            for (String categoryId : categoryIds) {
+                if (!categoryNamesById.containsKey(categoryId)) {
+                    throw new InvalidRequestException("Unknown category: " + categoryId);
+                }
+                if (categoryNamesById.get(categoryId) != null) {
+                    categoryNames.put(categoryId, categoryNamesById.get(categoryId));
+                }
+            }
+        }
+
+        Product product = new Product();
+        // Yeni ürünlere id burada verilir ki upsert ve kategori ilişkileri aynı id'yi kullansın
+        product.setProductId(row.getProductId() != null && !row.getProductId().isBlank()
+                ? row.getProductId().trim()
+                : new ObjectId().toHexString());
+        product.setProductName(row.getProductName().trim());
+        product.setModel(row.getModel());
+        product.setSerialNumber(row.getSerialNumber());
+        product.setDescription(row.getDescription());
+        product.setQuantity(quantity);
+        // inStock quantity'den türer; stok verilmediyse ikisi de mevcut üründe korunur
+        product.setInStock(quantity != null ? quantity > 0 : null);
+        product.setPrice(row.getPrice());
+        product.setDiscount(discount);
+        product.setCost(row.getCost());
+        product.setWarrantyStatus(row.getWarrantyStatus());
+        product.setDistributionInfo(row.getDistributionInfo());
+        product.setImages(row.getImages());
+        product.setCategoryIds(categoryIds);
+        product.setCategoryNames(categoryNames);
+        product.refreshFinalPrice();
+        return product;
+    }
+
+    private ProductImportRow fromCsv(List<String> header, List<String> cells) {
+        ProductImportRow row = new ProductImportRow();
+        for (int i = 0; i < header.size() && i < cells.size(); i++) {
+            String value = cells.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            switch (header.get(i)) {
+                case "productid" -> row.setProductId(value);
+                case "productname" -> row.setProductName(value);
+                case "model" -> row.setModel(value);
+                case "serialnumber" -> row.setSerialNumber(value);
+                case "description" -> row.setDescription(value);
+                case "quantity" -> row.setQuantity(Integer.valueOf(value));
+                case "price" -> row.setPrice(new BigDecimal(value));
+                case "discount" -> row.setDiscount(new BigDecimal(value));
+                case "cost" -> row.setCost(new BigDecimal(value));
+                case "warrantystatus" -> row.setWarrantyStatus(value);
+                case "distributioninfo" -> row.setDistributionInfo(value);
+                case "images" -> row.setImages(CsvSupport.splitList(value));
+                case "categoryids" -> row.setCategoryIds(CsvSupport.splitList(value));
+                default -> {
+                    // bilinmeyen kolonlar yok sayılır
+                }
+            }
+        }
+        return row;
+    }
+
+    private void reject(ProductImportResultDto result, long line, String productId, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ProductImportResultDto.RowError(line, productId, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private String stripBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+
+    private record PendingRow(long line, Product product) {
+    }
+}
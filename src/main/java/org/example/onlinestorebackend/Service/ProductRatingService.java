@@ -0,0 +1,77 @@
+package org.example.onlinestorebackend.Service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Dto.RatingSummaryDto;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.RatingSummary;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.exception.ResourceNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Ürün puan özetinin (adet, toplam, ortalama, 1-10 histogram) bakımı.
+ * Özet ürün dokümanında tutulur ve her puan değişikliğinde artımlı güncellenir;
+ * okuma tarafı ham puanları hiç dolaşmaz.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductRatingService {
+
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 10;
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+
+    // Yeni puan (previousRating null) veya mevcut puanın değişmesi
+    public void recordRating(String productId, Integer previousRating, Integer newRating) {
+        if (newRating == null || Objects.equals(previousRating, newRating)) {
+            return;
+        }
+        productRepository.applyRatingChange(productId, previousRating, newRating);
+        // DTO'daki ortalama / adet değişti
+        productCache.evict(productId);
+    }
+
+    public RatingSummaryDto getRatingSummary(String productId) {
+        Product product = productRepository.findRatingSummaryByProductId(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        return toDto(productId, product.getRatingSummary());
+    }
+
+    // Mevcut puanlardan sıfırdan özet üretir (eski ürünleri backfill etmek için)
+    public static RatingSummary summarize(Collection<Integer> ratings) {
+        RatingSummary summary = new RatingSummary();
+        for (Integer rating : ratings) {
+            if (rating == null) {
+                continue;
+            }
+            summary.setCount(summary.getCount() + 1);
+            summary.setSum(summary.getSum() + rating);
+            summary.getHistogram().merge(String.valueOf(rating), 1L, Long::sum);
+        }
+        summary.setAverage(summary.getCount() > 0 ? (double) summary.getSum() / summary.getCount() : 0);
+        return summary;
+    }
+
+    private RatingSummaryDto toDto(String productId, RatingSummary summary) {
+        RatingSummary source = summary != null ? summary : new RatingSummary();
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            Long count = source.getHistogram() != null ? source.getHistogram().get(String.valueOf(rating)) : null;
+            histogram.put(rating, count != null ? count : 0L);
+        }
+        return RatingSummaryDto.builder()
+                .productId(productId)
+                .count(source.getCount())
+                .sum(source.getSum())
+                .average(source.getAverage())
+                .histogram(histogram)
+                .build();
+    }
+}
@@ -1,25 +1,49 @@
 package org.example.onlinestorebackend.Service;
 
+import com.mongodb.bulk.BulkWriteResult;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.example.onlinestorebackend.Dto.CursorPageDto;
+import org.example.onlinestorebackend.Dto.FacetedSearchResponse;
+import org.example.onlinestorebackend.Dto.ProductFacetResult;
+import org.example.onlinestorebackend.Dto.ProductFilter;
 import org.example.onlinestorebackend.Dto.ProductResponseDto;
+import org.example.onlinestorebackend.Dto.RelatedProductDto;
 import org.example.onlinestorebackend.Dto.ReviewDto;
+import org.example.onlinestorebackend.Dto.ReviewModerationRequest;
+import org.example.onlinestorebackend.Dto.ReviewModerationResultDto;
+import org.example.onlinestorebackend.Dto.TrendingProductDto;
 import org.example.onlinestorebackend.Entity.Category;
 import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.RatingSummary;
 import org.example.onlinestorebackend.Entity.Review;
-import org.example.onlinestorebackend.Repository.CategoryRepository;
 import org.example.onlinestorebackend.Repository.ProductRepository;
 import org.example.onlinestorebackend.Repository.ReviewRepository;
+import org.example.onlinestorebackend.common.CursorCodec;
+import org.example.onlinestorebackend.exception.InvalidRequestException;
 import org.example.onlinestorebackend.exception.ResourceNotFoundException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,230 +51,430 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategorySnapshot categorySnapshot;
     private final ProductCategoryRelationService productCategoryRelationService;
     private final ReviewRepository reviewRepository;
+    private final ProductSuggestionIndex productSuggestionIndex;
+    private final ProductCache productCache;
+    private final TrendingProductIndex trendingProductIndex;
+    private final FrequentlyBoughtTogetherIndex frequentlyBoughtTogetherIndex;
+
+    // Fasetli aramada fiyat aralığı verilmezse kullanılan sınırlar (son sınırın üstü tek bucket)
+    private static final List<BigDecimal> DEFAULT_PRICE_BOUNDARIES = List.of(
+            BigDecimal.ZERO, BigDecimal.valueOf(50), BigDecimal.valueOf(100), BigDecimal.valueOf(250),
+            BigDecimal.valueOf(500), BigDecimal.valueOf(1000), BigDecimal.valueOf(2500), BigDecimal.valueOf(5000));
+
+    // Tek moderasyon isteğinde işlenebilecek en fazla yorum
+    private static final int MAX_MODERATION_BATCH = 500;
+
+    // Önek yedeğinin sayfalayabileceği en fazla eşleşme
+    private static final int MAX_PREFIX_SEARCH_RESULTS = 1000;
 
     // Tüm ürünleri getir (pagination ile)
     public Page<ProductResponseDto> getAllProducts(Pageable pageable) {
-        String sortProperty = pageable.getSort().stream()
-                .findFirst()
-                .map(order -> order.getProperty())
-                .orElse("productName");
-        
-        // Eğer price sıralaması ise, finalPrice (price - discount) üzerinden sıralama yap
-        if ("price".equals(sortProperty)) {
-            // Tüm ürünleri çek, finalPrice'a göre sırala, sonra pagination yap
-            List<Product> allProducts = productRepository.findAll();
-            boolean isDescending = pageable.getSort().stream()
-                    .findFirst()
-                    .map(order -> order.isDescending())
-                    .orElse(false);
-            
-            allProducts.sort((a, b) -> {
-                BigDecimal finalPriceA = a.getPrice().subtract(a.getDiscount() != null ? a.getDiscount() : BigDecimal.ZERO);
-                BigDecimal finalPriceB = b.getPrice().subtract(b.getDiscount() != null ? b.getDiscount() : BigDecimal.ZERO);
-                int comparison = finalPriceA.compareTo(finalPriceB);
-                return isDescending ? -comparison : comparison;
-            });
-            
-            // Pagination uygula
-            int start = (int) pageable.getOffset();
-            int end = Math.min(start + pageable.getPageSize(), allProducts.size());
-            if (start >= end) {
-                return new PageImpl<>(Collections.emptyList(), pageable, allProducts.size());
-            }
-            
-            List<Product> pagedProducts = allProducts.subList(start, end);
-            List<ProductResponseDto> dtos = pagedProducts.stream()
-                    .map(this::convertToDto)
-                    .collect(Collectors.toList());
-            
-            return new PageImpl<>(dtos, pageable, allProducts.size());
-        } else {
-            // Diğer sıralamalar için normal pagination
-            Page<Product> products = productRepository.findAll(pageable);
-            return products.map(this::convertToDto);
+        // price sıralaması indirimli fiyat (finalPrice) üzerinden, DB'de index ile yapılır
+        Page<Product> products = productRepository.findAll(withPersistedSortFields(pageable));
+        return toDtoPage(products);
+    }
+
+    // Cursor (keyset) sayfalama: sayfa maliyeti derinlikten bağımsız, count sorgusu yok.
+    // sortBy: name | price | popularity | rating | newest
+    public CursorPageDto<ProductResponseDto> scrollProducts(String sortBy, String sortDir, String cursor, int size) {
+        if (size <= 0 || size > 100) {
+            throw new InvalidRequestException("size must be between 1 and 100");
+        }
+        String key = sortBy == null ? "name" : sortBy.toLowerCase(Locale.ROOT);
+        String field = switch (key) {
+            case "name", "productname" -> "productName";
+            case "price", "finalprice" -> "finalPrice";
+            case "popularity" -> "popularity";
+            case "rating" -> "ratingSummary.average";
+            case "newest" -> "productId";
+            default -> throw new InvalidRequestException("Unsupported sortBy for cursor paging: " + sortBy);
+        };
+        // newest varsayılan olarak yeniden eskiye
+        Sort.Direction direction = sortDir != null
+                ? ("desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC)
+                : ("productId".equals(field) ? Sort.Direction.DESC : Sort.Direction.ASC);
+        String scope = "products:" + field + ":" + direction;
+
+        Object lastValue = null;
+        String lastId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorCodec.decode(cursor, scope, 2);
+            lastValue = parseCursorValue(field, parts[0]);
+            lastId = parts[1];
+        }
+
+        // Bir fazlasını çekerek sonraki sayfa olup olmadığını count'suz anla
+        List<Product> products = productRepository.findAfter(field, direction, lastValue, lastId, size + 1);
+        boolean hasNext = products.size() > size;
+        List<Product> page = hasNext ? products.subList(0, size) : products;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = page.get(page.size() - 1);
+            nextCursor = CursorCodec.encode(scope, cursorValueOf(field, last), last.getProductId());
         }
+        return new CursorPageDto<>(convertToDtos(page), nextCursor, hasNext);
     }
 
     // ID'ye göre ürün getir
     public ProductResponseDto getProductById(String productId) {
+        ProductResponseDto cached = productCache.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Stamp DB okumasından önce alınır; arada evict olursa okunan DTO cache'e yazılmaz
+        long stamp = productCache.stamp();
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-        return convertToDto(product);
+        ProductResponseDto dto = convertToDto(product);
+        productCache.put(productId, dto, stamp);
+        return dto;
     }
 
-    // Kategoriye göre ürünleri getir (pagination ile)
+    // Kategoriye göre ürünleri getir (pagination ile) - Product.categoryIds index'i üzerinden,
+    // sıralama ve sayfalama DB tarafında
     public Page<ProductResponseDto> getProductsByCategory(String categoryId, Pageable pageable) {
         // Önce kategori var mı kontrol et
-        categoryRepository.findById(categoryId)
+        categorySnapshot.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
 
-        // CategoryId'ye göre filtrele
-        List<String> productIds = productCategoryRelationService.getProductIdsForCategory(categoryId);
-        if (productIds.isEmpty()) {
-            return Page.empty(pageable);
+        ProductFilter filter = ProductFilter.builder().categoryId(categoryId).build();
+        Page<Product> products = productRepository.findByFilter(filter, withPersistedSortFields(pageable));
+        return toDtoPage(products);
+    }
+
+    // Ürün arama (isim, model veya açıklama) - text index üzerinden, alaka skoruna göre sıralı.
+    // $text tam kelime eşlediği için hiç sonuç yoksa ("lapt") ürün isimlerinde önek aramasına düşer.
+    public Page<ProductResponseDto> searchProducts(String query, Pageable pageable) {
+        TextCriteria criteria = TextCriteria.forDefaultLanguage().matching(query);
+        Page<Product> products = productRepository.findAllByOrderByScoreDesc(criteria, pageable);
+        if (products.getTotalElements() == 0) {
+            return searchByNamePrefix(query, pageable);
         }
+        return toDtoPage(products);
+    }
 
-        List<Product> allProducts = new ArrayList<>();
-        productRepository.findAllById(productIds).forEach(allProducts::add);
+    // Önek eşleşmeleri bellek içi öneri indeksinden gelir (popülariteye göre); sadece sayfadaki ürünler okunur
+    private Page<ProductResponseDto> searchByNamePrefix(String query, Pageable pageable) {
+        List<String> ids = productSuggestionIndex.productIdsMatchingPrefixes(query, MAX_PREFIX_SEARCH_RESULTS);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(convertToDtos(productsInOrder(ids)), pageable, ids.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(convertToDtos(productsInOrder(ids.subList(from, to))), pageable, ids.size());
+    }
 
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), allProducts.size());
-        if (start >= end) {
-            return new PageImpl<>(Collections.emptyList(), pageable, allProducts.size());
+    private List<Product> productsInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
         }
+        Map<String, Product> byId = new LinkedHashMap<>();
+        productRepository.findAllById(ids).forEach(product -> byId.put(product.getProductId(), product));
+        // İndeks ile DB arasında silinmiş ürünler atlanır
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
 
-        List<ProductResponseDto> dtos = allProducts.subList(start, end).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // Fiyat aralığına göre arama (indirimli fiyata göre) - kategori ve stok filtreleriyle
+    // birlikte tek sorguda, finalPrice index'i üzerinden DB tarafında filtrelenir ve sayfalanır
+    public Page<ProductResponseDto> getProductsByPriceRange(ProductFilter filter, Pageable pageable) {
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0) {
+            throw new InvalidRequestException("minPrice must be <= maxPrice");
+        }
+        Page<Product> products = productRepository.findByFilter(filter, withPersistedSortFields(pageable));
+        return toDtoPage(products);
+    }
 
-        return new PageImpl<>(dtos, pageable, allProducts.size());
+    // Fasetli arama: sonuç sayfası + kategori, fiyat aralığı ve stok sayımları tek aggregation'da.
+    // Sayımlar tüm filtreler uygulanmış küme üzerinden hesaplanır.
+    public FacetedSearchResponse facetedSearch(ProductFilter filter, Pageable pageable, List<BigDecimal> priceBoundaries) {
+        List<BigDecimal> boundaries = CollectionUtils.isEmpty(priceBoundaries)
+                ? DEFAULT_PRICE_BOUNDARIES
+                : List.copyOf(priceBoundaries.stream()
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toCollection(TreeSet::new))); // sıralı ve compareTo ile tekil
+        if (boundaries.size() < 2) {
+            throw new InvalidRequestException("At least two distinct price boundaries are required");
+        }
+
+        ProductFacetResult facets = productRepository.findFacets(filter, withPersistedSortFields(pageable), boundaries);
+
+        FacetedSearchResponse response = new FacetedSearchResponse();
+        response.setContent(convertToDtos(facets.getProducts()));
+        response.setPage(pageable.getPageNumber());
+        response.setSize(pageable.getPageSize());
+        response.setTotalElements(facets.getTotalElements());
+        facets.getCategoryCounts().forEach((categoryId, count) -> response.getCategories().add(
+                new FacetedSearchResponse.CategoryFacet(categoryId,
+                        categorySnapshot.findById(categoryId).map(Category::getCategoryName).orElse(null), count)));
+        facets.getPriceBucketCounts().forEach((lowerBound, count) -> {
+            if (lowerBound == null) {
+                // İlk sınırın altı en başta
+                response.getPriceBuckets().add(0, new FacetedSearchResponse.PriceBucket(null, boundaries.get(0), count));
+            } else {
+                response.getPriceBuckets().add(new FacetedSearchResponse.PriceBucket(
+                        lowerBound, upperBoundOf(lowerBound, boundaries), count));
+            }
+        });
+        response.setNoPriceCount(facets.getNoPriceCount());
+        response.setInStockCount(facets.getInStockCount());
+        return response;
     }
 
-    // Ürün arama (isim veya açıklama)
-    public List<ProductResponseDto> searchProducts(String query) {
-        List<Product> products = productRepository
-                .findByProductNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query, query);
-        return products.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // Seçilen pencerede en çok satanlar; sıralama bellekte hazır, sadece ilk K ürün okunur
+    public List<TrendingProductDto> getTrendingProducts(String window, String categoryId, int limit) {
+        if (limit <= 0 || limit > 100) {
+            throw new InvalidRequestException("limit must be between 1 and 100");
+        }
+        List<Map.Entry<String, Long>> top = trendingProductIndex.top(
+                TrendingWindow.resolve(window), categoryId, limit);
+        if (top.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, ProductResponseDto> productsById = findDtosById(top.stream().map(Map.Entry::getKey).toList());
+
+        // Silinmiş ürünler atlanır, sıra numarası kesintisiz kalır
+        List<TrendingProductDto> trending = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : top) {
+            ProductResponseDto product = productsById.get(entry.getKey());
+            if (product != null) {
+                trending.add(new TrendingProductDto(trending.size() + 1, entry.getValue(), product));
+            }
+        }
+        return trending;
     }
 
-    // Fiyat aralığına göre arama (indirimli fiyata göre)
-    public List<ProductResponseDto> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        // Tüm ürünleri çek ve indirimli fiyata göre filtrele
-        // MongoDB'de hesaplanmış alan üzerinden filtreleme yapılamadığı için
-        // tüm ürünleri çekip memory'de filtreliyoruz
-        List<Product> allProducts = productRepository.findAll();
-        
-        return allProducts.stream()
-                .filter(product -> {
-                    // İndirimli fiyatı hesapla: price - (price * discount / 100)
-                    BigDecimal price = product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO;
-                    BigDecimal discount = product.getDiscount() != null ? product.getDiscount() : BigDecimal.ZERO;
-                    
-                    // Discount yüzde olarak saklanıyor (örn: 58 = %58)
-                    BigDecimal discountAmount = price.multiply(discount).divide(BigDecimal.valueOf(100), 2, java.math.RoundingMode.HALF_UP);
-                    BigDecimal finalPrice = price.subtract(discountAmount);
-                    
-                    // Fiyat aralığı kontrolü
-                    return finalPrice.compareTo(minPrice) >= 0 && finalPrice.compareTo(maxPrice) <= 0;
-                })
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // Bu ürünle aynı siparişte en sık alınan ürünler; birliktelik sayıları bellekte hazır
+    public List<RelatedProductDto> getFrequentlyBoughtTogether(String productId, int limit) {
+        if (limit <= 0 || limit > 50) {
+            throw new InvalidRequestException("limit must be between 1 and 50");
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        List<Map.Entry<String, Long>> related = frequentlyBoughtTogetherIndex.related(productId, limit);
+        if (related.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, ProductResponseDto> productsById = findDtosById(related.stream().map(Map.Entry::getKey).toList());
+        List<RelatedProductDto> result = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : related) {
+            ProductResponseDto product = productsById.get(entry.getKey());
+            if (product != null) {
+                result.add(new RelatedProductDto(entry.getValue(), product));
+            }
+        }
+        return result;
+    }
+
+    // Verilen id'lerdeki ürünleri tek findAllById ile DTO olarak getirir (silinmişler map'te yer almaz)
+    private Map<String, ProductResponseDto> findDtosById(List<String> productIds) {
+        return convertToDtos(productRepository.findAllById(productIds)).stream()
+                .collect(Collectors.toMap(ProductResponseDto::getProductId, dto -> dto));
     }
 
     // Stokta olan ürünler
     public List<ProductResponseDto> getInStockProducts() {
         List<Product> products = productRepository.findByInStockTrue();
-        return products.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(products);
     }
 
     // Ürün oluştur (PRODUCT_MANAGER için)
     public ProductResponseDto createProduct(Product product) {
         List<String> normalizedCategoryIds = normalizeCategoryIds(product);
-        validateCategories(normalizedCategoryIds);
+        product.setCategoryNames(resolveCategoryNames(normalizedCategoryIds));
         product.setCategoryIds(normalizedCategoryIds);
+        product.refreshFinalPrice();
+        // Puan özeti sadece yorumlardan beslenir, istek gövdesinden alınmaz
+        product.setRatingSummary(new RatingSummary());
 
         Product savedProduct = productRepository.save(product);
         productCategoryRelationService.syncProductCategories(savedProduct.getProductId(), normalizedCategoryIds);
+        productSuggestionIndex.upsertProduct(savedProduct);
         return convertToDto(savedProduct);
     }
 
-    // Ürün güncelle (PRODUCT_MANAGER için)
+    // Ürün güncelle (PRODUCT_MANAGER için). Sadece gönderilen alanlar $set ile yazılır; doküman baştan
+    // kaydedilmediği için aynı anda yapılan stok düşüşü / rezervasyonlar ezilmez
     public ProductResponseDto updateProduct(String productId, Product productUpdate) {
-        Product existingProduct = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-
-        // Update fields
+        Map<String, Object> fields = new LinkedHashMap<>();
         if (productUpdate.getProductName() != null) {
-            existingProduct.setProductName(productUpdate.getProductName());
+            fields.put("productName", productUpdate.getProductName());
         }
         if (productUpdate.getDescription() != null) {
-            existingProduct.setDescription(productUpdate.getDescription());
+            fields.put("description", productUpdate.getDescription());
         }
         if (productUpdate.getPrice() != null) {
-            existingProduct.setPrice(productUpdate.getPrice());
+            fields.put("price", productUpdate.getPrice());
         }
         if (productUpdate.getDiscount() != null) {
-            existingProduct.setDiscount(productUpdate.getDiscount());
+            fields.put("discount", productUpdate.getDiscount());
         }
         if (productUpdate.getQuantity() != null) {
-            existingProduct.setQuantity(productUpdate.getQuantity());
-            existingProduct.setInStock(productUpdate.getQuantity() > 0);
+            fields.put("quantity", productUpdate.getQuantity());
+            fields.put("inStock", productUpdate.getQuantity() > 0);
         }
         if (productUpdate.getModel() != null) {
-            existingProduct.setModel(productUpdate.getModel());
+            fields.put("model", productUpdate.getModel());
         }
         if (productUpdate.getSerialNumber() != null) {
-            existingProduct.setSerialNumber(productUpdate.getSerialNumber());
+            fields.put("serialNumber", productUpdate.getSerialNumber());
         }
         if (productUpdate.getWarrantyStatus() != null) {
-            existingProduct.setWarrantyStatus(productUpdate.getWarrantyStatus());
+            fields.put("warrantyStatus", productUpdate.getWarrantyStatus());
         }
         if (productUpdate.getDistributionInfo() != null) {
-            existingProduct.setDistributionInfo(productUpdate.getDistributionInfo());
+            fields.put("distributionInfo", productUpdate.getDistributionInfo());
         }
         if (productUpdate.getImages() != null) {
-            existingProduct.setImages(productUpdate.getImages());
-        }
-        if (productUpdate.getPopularity() != null) {
-            existingProduct.setPopularity(productUpdate.getPopularity());
+            fields.put("images", productUpdate.getImages());
         }
-        if (productUpdate.getCategoryIds() != null && !productUpdate.getCategoryIds().isEmpty()) {
-            List<String> normalizedCategoryIds = normalizeCategoryIds(productUpdate);
-            validateCategories(normalizedCategoryIds);
-            existingProduct.setCategoryIds(normalizedCategoryIds);
-            productCategoryRelationService.syncProductCategories(existingProduct.getProductId(), normalizedCategoryIds);
-        } else if (productUpdate.getCategoryIds() != null && productUpdate.getCategoryIds().isEmpty()) {
+        // popularity satışlardan atomik olarak tutulur; istek gövdesindeki varsayılan 0 onu sıfırlamasın
+        List<String> normalizedCategoryIds = null;
+        if (productUpdate.getCategoryIds() != null) {
             // Empty array means remove all categories
-            existingProduct.setCategoryIds(Collections.emptyList());
-            productCategoryRelationService.syncProductCategories(existingProduct.getProductId(), Collections.emptyList());
+            normalizedCategoryIds = normalizeCategoryIds(productUpdate);
+            fields.put("categoryIds", normalizedCategoryIds);
+            fields.put("categoryNames", resolveCategoryNames(normalizedCategoryIds));
         }
 
-        Product savedProduct = productRepository.save(existingProduct);
+        Product savedProduct = fields.isEmpty()
+                ? productRepository.findById(productId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId))
+                : updateFieldsOrThrow(productId, fields);
+        if (normalizedCategoryIds != null) {
+            productCategoryRelationService.syncProductCategories(productId, normalizedCategoryIds);
+        }
+        productCache.evict(productId);
+        productSuggestionIndex.upsertProduct(savedProduct);
         return convertToDto(savedProduct);
     }
 
     // Tüm ürünleri getir (PRODUCT_MANAGER için - owner kontrolü yok)
     public List<ProductResponseDto> getAllProductsList() {
         List<Product> products = productRepository.findAll();
-        return products.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(products);
     }
 
-    // Entity -> DTO dönüşümü
+    // Entity -> DTO dönüşümü: kategori id ve isimleri ürün dokümanında denormalize tutulur
     private ProductResponseDto convertToDto(Product product) {
-        List<String> categoryIds = productCategoryRelationService.getCategoryIdsForProduct(product.getProductId());
-        List<Category> categories = categoryIds.isEmpty()
-                ? Collections.emptyList()
-                : categoryRepository.findAllById(categoryIds);
+        return buildDto(product);
+    }
 
-        ProductResponseDto dto = ProductResponseDto.builder()
+    // Sayfa halindeki ürünleri toplu DTO'ya çevir (sayfa meta bilgisi korunur)
+    private Page<ProductResponseDto> toDtoPage(Page<Product> products) {
+        return new PageImpl<>(convertToDtos(products.getContent()), products.getPageable(), products.getTotalElements());
+    }
+
+    // Toplu Entity -> DTO dönüşümü: cache'te hazır olanlar tekrar kullanılır, kalanlar ek sorgu
+    // olmadan ürün dokümanından kurulur.
+    // Kurulan DTO cache'e yazılmaz: doküman stamp alınmadan önce okunduğu için araya giren bir evict fark
+    // edilemez, katalog export'u da sıcak kayıtları cache'ten atardı. Bu yüzden cache metriğe sayılmadan (peek) okunur.
+    // ProductExportService de batch'leri bununla çevirdiği için package-private.
+    List<ProductResponseDto> convertToDtos(List<Product> products) {
+        if (products.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return products.stream()
+                .map(product -> {
+                    ProductResponseDto cached = productCache.peek(product.getProductId());
+                    return cached != null ? cached : buildDto(product);
+                })
+                .toList();
+    }
+
+    private ProductResponseDto buildDto(Product product) {
+        List<String> categoryIds = product.getCategoryIds() != null ? product.getCategoryIds() : Collections.emptyList();
+        Map<String, String> namesById = product.getCategoryNames() != null ? product.getCategoryNames() : Collections.emptyMap();
+        List<String> categoryNames = categoryIds.stream()
+                .map(namesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return ProductResponseDto.builder()
                 .productId(product.getProductId())
                 .productName(product.getProductName())
                 .quantity(product.getQuantity())
                 .price(product.getPrice())
                 .discount(product.getDiscount())
+                .finalPrice(product.getFinalPrice())
                 .cost(product.getCost())
                 .description(product.getDescription())
                 .images(product.getImages())
                 .inStock(product.getInStock())
                 .categoryIds(categoryIds)
-                .categoryNames(categories.stream().map(Category::getCategoryName).toList())
+                .categoryNames(categoryNames)
                 .popularity(product.getPopularity())
+                .averageRating(product.getRatingSummary() != null ? product.getRatingSummary().getAverage() : 0.0)
+                .ratingCount(product.getRatingSummary() != null ? product.getRatingSummary().getCount() : 0L)
                 .model(product.getModel())
                 .serialNumber(product.getSerialNumber())
                 .warrantyStatus(product.getWarrantyStatus())
                 .distributionInfo(product.getDistributionInfo())
                 .build();
+    }
 
-        return dto;
+    // Bucket alt sınırına karşılık gelen üst sınır; açık uçlu (son) bucket için null
+    private BigDecimal upperBoundOf(BigDecimal lowerBound, List<BigDecimal> boundaries) {
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            if (boundaries.get(i).compareTo(lowerBound) == 0) {
+                return boundaries.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private String cursorValueOf(String field, Product product) {
+        Object value = switch (field) {
+            case "productName" -> product.getProductName();
+            case "finalPrice" -> product.getFinalPrice() != null ? product.getFinalPrice().toPlainString() : null;
+            case "popularity" -> product.getPopularity();
+            case "ratingSummary.average" -> product.getRatingSummary() != null ? product.getRatingSummary().getAverage() : null;
+            default -> null;
+        };
+        return value != null ? value.toString() : null;
+    }
+
+    // null: son kaydın sıralama alanı boştu (findAfter bunu null'lar için ayrı koşulla devam ettirir)
+    private Object parseCursorValue(String field, String raw) {
+        if (raw == null) {
+            return null;
+        }
+        try {
+            return switch (field) {
+                case "productName" -> raw;
+                // finalPrice Decimal128 olarak saklandığı için karşılaştırma da Decimal128 ile yapılır
+                case "finalPrice" -> new Decimal128(new BigDecimal(raw));
+                case "popularity" -> Integer.valueOf(raw);
+                case "ratingSummary.average" -> Double.valueOf(raw);
+                default -> null;
+            };
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+
+    // "price" ve "rating" sıralamalarını persist edilen finalPrice / ratingSummary.average alanlarına çevirir
+    private Pageable withPersistedSortFields(Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            return pageable;
+        }
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .map(order -> switch (order.getProperty()) {
+                    case "price" -> order.withProperty("finalPrice");
+                    case "rating" -> order.withProperty("ratingSummary.average");
+                    default -> order;
+                })
+                .toList());
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
     }
 
     private List<String> normalizeCategoryIds(Product product) {
@@ -264,36 +488,111 @@ public class ProductService {
                 .toList();
     }
 
-    private void validateCategories(List<String> categoryIds) {
+    // Kategorilerin varlığını doğrular ve ürüne denormalize yazılacak id -> isim map'ini döner
+    private Map<String, String> resolveCategoryNames(List<String> categoryIds) {
         if (CollectionUtils.isEmpty(categoryIds)) {
-            return;
+            return Collections.emptyMap();
         }
 
-        List<Category> categories = categoryRepository.findAllById(categoryIds);
-        if (categories.size() != categoryIds.size()) {
-            throw new ResourceNotFoundException("One or more categories were not found.");
+        Map<String, String> categoryNames = new LinkedHashMap<>();
+        for (String categoryId : categoryIds) {
+            Category category = categorySnapshot.findById(categoryId)
+                    .orElseThrow(() -> new ResourceNotFoundException("One or more categories were not found."));
+            if (category.getCategoryName() != null) {
+                categoryNames.put(categoryId, category.getCategoryName());
+            }
         }
+        return categoryNames;
     }
 
+    // Onaylı yorumlar tek indexli sorguyla (productId + approved, createdAt sırası) okunur
     public List<String> getReviewCommentsByProductId(String productId) {
-        Product product = productRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product with id: " + productId));
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product with id: " + productId);
+        }
 
-        List<String> reviewIds = product.getReviewIds();
+        return reviewRepository.findByProductIdAndApprovedTrueAndCommentIsNotNullOrderByCreatedAtDesc(productId).stream()
+                .map(Review::getComment)
+                .collect(Collectors.toList());
+    }
 
-        List<String> reviewComments = new ArrayList<>();
-        for (String reviewId : reviewIds) {
-            Review review = reviewRepository.findByReviewId(reviewId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Review with id: " + reviewId));
+    // Onaylı yorumlar için cursor sayfalama (yeniden eskiye); yorum sayısı arttıkça sayfa maliyeti sabit kalır
+    public CursorPageDto<ReviewDto> getApprovedComments(String productId, String cursor, int size) {
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product with id: " + productId);
+        }
+        return reviewCursorPage(productId, true, Sort.Direction.DESC, "reviews:approved:" + productId, cursor, size);
+    }
 
-            if (review.getApproved()) {
-                reviewComments.add(review.getComment());
+    // Moderasyon kuyruğu: onay bekleyen yorumlar eskiden yeniye, isteğe bağlı ürün filtresiyle (PRODUCT_MANAGER)
+    public CursorPageDto<ReviewDto> getModerationQueue(String productId, String cursor, int size) {
+        String filter = productId != null && !productId.isBlank() ? productId : null;
+        String scope = "reviews:pending:" + (filter != null ? filter : "*");
+        return reviewCursorPage(filter, false, Sort.Direction.ASC, scope, cursor, size);
+    }
+
+    // Toplu onay / red: tüm kararlar tek bulkWrite ile uygulanır (PRODUCT_MANAGER)
+    public ReviewModerationResultDto moderateReviews(ReviewModerationRequest request) {
+        Set<String> approveIds = request.getApproveReviewIds() != null
+                ? new LinkedHashSet<>(request.getApproveReviewIds()) : Collections.emptySet();
+        Set<String> rejectIds = request.getRejectReviewIds() != null
+                ? new LinkedHashSet<>(request.getRejectReviewIds()) : Collections.emptySet();
+        if (approveIds.isEmpty() && rejectIds.isEmpty()) {
+            throw new InvalidRequestException("approveReviewIds or rejectReviewIds is required");
+        }
+        if (approveIds.size() + rejectIds.size() > MAX_MODERATION_BATCH) {
+            throw new InvalidRequestException("At most " + MAX_MODERATION_BATCH + " reviews can be moderated at once");
+        }
+        if (approveIds.stream().anyMatch(rejectIds::contains)) {
+            throw new InvalidRequestException("A review cannot be both approved and rejected");
+        }
+
+        BulkWriteResult result = reviewRepository.moderate(approveIds, rejectIds);
+        return ReviewModerationResultDto.builder()
+                .approveRequested(approveIds.size())
+                .rejectRequested(rejectIds.size())
+                .matched(result.getMatchedCount())
+                .modified(result.getModifiedCount())
+                .build();
+    }
+
+    // Yorumu olan review'ları (createdAt, _id) keyset'iyle sayfalar; bir fazlası çekilerek hasNext bulunur
+    private CursorPageDto<ReviewDto> reviewCursorPage(String productId, boolean approved, Sort.Direction direction,
+                                                      String scope, String cursor, int size) {
+        if (size <= 0 || size > 100) {
+            throw new InvalidRequestException("size must be between 1 and 100");
+        }
+
+        LocalDateTime lastCreatedAt = null;
+        String lastId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = CursorCodec.decode(cursor, scope, 2);
+            try {
+                // null: son yorumun createdAt'i yoktu (eski kayıt)
+                lastCreatedAt = parts[0] != null ? LocalDateTime.parse(parts[0]) : null;
+            } catch (DateTimeParseException e) {
+                throw new InvalidRequestException("Invalid cursor");
             }
+            lastId = parts[1];
         }
 
-        return reviewComments;
+        List<Review> reviews = reviewRepository.findCommentedAfter(
+                productId, approved, direction, lastCreatedAt, lastId, size + 1);
+        boolean hasNext = reviews.size() > size;
+        List<Review> page = hasNext ? reviews.subList(0, size) : reviews;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Review last = page.get(page.size() - 1);
+            nextCursor = CursorCodec.encode(scope,
+                    last.getCreatedAt() != null ? last.getCreatedAt().toString() : null, last.getReviewId());
+        }
+        List<ReviewDto> content = page.stream().map(this::toReviewDto).toList();
+        return new CursorPageDto<>(content, nextCursor, hasNext);
     }
 
+    // Yerine ProductRatingService.getRatingSummary kullanılmalı (liste yorum sayısıyla sınırsız büyür)
+    @Deprecated
     public List<Integer> getReviewRatingsByProductId(String productId) {
         // Ratings are always visible (no approval needed)
         List<Review> reviews = reviewRepository.findByProductId(productId);
@@ -329,6 +628,21 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    private ReviewDto toReviewDto(Review review) {
+        ReviewDto dto = new ReviewDto();
+        dto.setReviewId(review.getReviewId());
+        dto.setProductId(review.getProductId());
+        dto.setUserId(review.getUserId());
+        dto.setOrderId(review.getOrderId());
+        dto.setRating(review.getRating() != null ? review.getRating() : 0);
+        dto.setComment(review.getComment());
+        dto.setApproved(review.getApproved());
+        dto.setCreatedAt(review.getCreatedAt());
+        // Review'da userId aslında username olarak saklanıyor
+        dto.setUsername(review.getUserId());
+        return dto;
+    }
+
     // Ürün silme (PRODUCT_MANAGER için - owner kontrolü yok)
     public void deleteProduct(String productId) {
         if (!productRepository.existsById(productId)) {
@@ -336,6 +650,8 @@ public class ProductService {
         }
 
         productRepository.deleteById(productId);
+        productCache.evict(productId);
+        productSuggestionIndex.removeProduct(productId);
     }
 
     // Ürün yorumlarını listeleme (PRODUCT_MANAGER için - owner kontrolü yok)
@@ -371,17 +687,13 @@ public class ProductService {
         Review review = reviewRepository.findByReviewId(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found with id: " + reviewId));
 
-        Product product = productRepository.findById(review.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        if (!productRepository.existsById(review.getProductId())) {
+            throw new ResourceNotFoundException("Product not found");
+        }
 
+        // Ürün dokümanına dokunulmaz; yorumlar reviews.productId index'i üzerinden bulunur
         review.setApproved(true);
         reviewRepository.save(review);
-
-        // Product'ın reviewIds listesine ekle (eğer yoksa)
-        if (!product.getReviewIds().contains(reviewId)) {
-            product.getReviewIds().add(reviewId);
-            productRepository.save(product);
-        }
     }
 
     // Yorum reddetme (silme) (PRODUCT_MANAGER için - owner kontrolü yok)
@@ -389,8 +701,9 @@ public class ProductService {
         Review review = reviewRepository.findByReviewId(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found with id: " + reviewId));
 
-        Product product = productRepository.findById(review.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        if (!productRepository.existsById(review.getProductId())) {
+            throw new ResourceNotFoundException("Product not found");
+        }
 
         review.setApproved(false);
         review.setComment(null);
@@ -401,25 +714,31 @@ public class ProductService {
     // PRODUCT_MANAGER: stock update
     public ProductResponseDto updateStock(String productId, Integer quantity) {
         if (quantity == null || quantity < 0) {
-            throw new org.example.onlinestorebackend.exception.InvalidRequestException("quantity must be >= 0");
+            throw new InvalidRequestException("quantity must be >= 0");
         }
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-
-        product.setQuantity(quantity);
-        product.setInStock(quantity > 0);
-        return convertToDto(productRepository.save(product));
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("quantity", quantity);
+        fields.put("inStock", quantity > 0);
+        Product savedProduct = updateFieldsOrThrow(productId, fields);
+        productCache.evict(productId);
+        return convertToDto(savedProduct);
     }
 
     // PRODUCT_MANAGER: cost update
     public ProductResponseDto updateCost(String productId, BigDecimal cost) {
         if (cost == null || cost.compareTo(BigDecimal.ZERO) < 0) {
-            throw new org.example.onlinestorebackend.exception.InvalidRequestException("cost must be >= 0");
+            throw new InvalidRequestException("cost must be >= 0");
         }
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        Product savedProduct = updateFieldsOrThrow(productId, Map.of("cost", cost));
+        productCache.evict(productId);
+        return convertToDto(savedProduct);
+    }
 
-        product.setCost(cost);
-        return convertToDto(productRepository.save(product));
+    private Product updateFieldsOrThrow(String productId, Map<String, Object> fields) {
+        Product updated = productRepository.updateFields(productId, fields);
+        if (updated == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        return updated;
     }
 }
\ No newline at end of file
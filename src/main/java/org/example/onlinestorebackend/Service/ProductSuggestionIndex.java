@@ -0,0 +1,197 @@
+package org.example.onlinestorebackend.Service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.onlinestorebackend.Dto.ProductSuggestionDto;
+import org.example.onlinestorebackend.Entity.Category;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Arama kutusu için bellekte tutulan önek (prefix) indeksi.
+ * Ürün ve kategori isimlerindeki her kelime sıralı bir map'te anahtar olarak tutulur;
+ * bir önek sorgusu sadece o önekle başlayan anahtarların alt aralığını dolaşır.
+ * Ürün yazma işlemlerinde artımlı olarak güncellenir, DB'ye hiç gitmez.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSuggestionIndex {
+
+    public static final String TYPE_PRODUCT = "PRODUCT";
+    public static final String TYPE_CATEGORY = "CATEGORY";
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+
+    // "kelime\0TYPE:id" -> öneri
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    // "TYPE:id" -> o kayda ait anahtarlar (güncelleme/silmede eskileri temizlemek için)
+    private final Map<String, Set<String>> keysByEntry = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        entries.clear();
+        keysByEntry.clear();
+        productRepository.findAll().forEach(this::upsertProduct);
+        categoryRepository.findAll().forEach(this::upsertCategory);
+    }
+
+    public void upsertProduct(Product product) {
+        if (product == null || product.getProductId() == null) {
+            return;
+        }
+        int popularity = product.getPopularity() != null ? product.getPopularity() : 0;
+        put(new Entry(TYPE_PRODUCT, product.getProductId(), product.getProductName(), popularity));
+    }
+
+    public void removeProduct(String productId) {
+        remove(TYPE_PRODUCT + ":" + productId);
+    }
+
+    public void upsertCategory(Category category) {
+        if (category == null || category.getCategoryId() == null) {
+            return;
+        }
+        put(new Entry(TYPE_CATEGORY, category.getCategoryId(), category.getCategoryName(), 0));
+    }
+
+    public void removeCategory(String categoryId) {
+        remove(TYPE_CATEGORY + ":" + categoryId);
+    }
+
+    /**
+     * Önekle eşleşen kategoriler önce, ardından ürünler popülariteye göre azalan sırada döner.
+     */
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Comparator<Entry> ranking = Comparator
+                .comparing((Entry e) -> TYPE_CATEGORY.equals(e.type()) ? 1 : 0)
+                .thenComparingInt(Entry::popularity)
+                .thenComparing(Entry::text, Comparator.reverseOrder());
+
+        // En iyi "limit" kaydı tutan min-heap: en zayıf aday tepede durur
+        PriorityQueue<Entry> top = new PriorityQueue<>(limit + 1, ranking);
+        Set<String> seen = new HashSet<>();
+        for (Entry entry : entries.subMap(normalized, true, normalized + Character.MAX_VALUE, true).values()) {
+            if (!seen.add(entry.entryKey())) {
+                continue;
+            }
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Entry> ranked = new ArrayList<>(top);
+        ranked.sort(ranking.reversed());
+        return ranked.stream()
+                .map(e -> ProductSuggestionDto.builder()
+                        .type(e.type())
+                        .id(e.id())
+                        .text(e.text())
+                        .popularity(e.popularity())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Sorgudaki her kelimeyle başlayan bir isim kelimesine sahip ürünlerin id'leri, popülariteye göre azalan sırada.
+     * $text sadece tam kelimeleri (kökleri) eşlediği için ürün aramasında "lapt" gibi yarım kelimelere yedek olur.
+     */
+    public List<String> productIdsMatchingPrefixes(String query, int limit) {
+        String[] words = normalize(query).split("[^\\p{L}\\p{N}]+");
+        Map<String, Entry> matches = null;
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            Map<String, Entry> wordMatches = new HashMap<>();
+            for (Entry entry : entries.subMap(word, true, word + Character.MAX_VALUE, true).values()) {
+                if (TYPE_PRODUCT.equals(entry.type())) {
+                    wordMatches.put(entry.id(), entry);
+                }
+            }
+            // Ürün sorgudaki tüm kelimelerle eşleşmeli
+            if (matches != null) {
+                wordMatches.keySet().retainAll(matches.keySet());
+            }
+            matches = wordMatches;
+        }
+        if (matches == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        return matches.values().stream()
+                .sorted(Comparator.comparingInt(Entry::popularity).reversed().thenComparing(Entry::id))
+                .limit(limit)
+                .map(Entry::id)
+                .toList();
+    }
+
+    private void put(Entry entry) {
+        remove(entry.entryKey());
+        if (entry.text() == null || entry.text().isBlank()) {
+            return;
+        }
+
+        Set<String> keys = new LinkedHashSet<>();
+        for (String token : tokens(entry.text())) {
+            String key = token + KEY_SEPARATOR + entry.entryKey();
+            entries.put(key, entry);
+            keys.add(key);
+        }
+        keysByEntry.put(entry.entryKey(), keys);
+    }
+
+    private void remove(String entryKey) {
+        Set<String> keys = keysByEntry.remove(entryKey);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+
+    // Tam isim + isimdeki her kelime ("MacBook Pro" -> "macbook pro", "macbook", "pro")
+    private Set<String> tokens(String text) {
+        String normalized = normalize(text);
+        Set<String> tokens = new LinkedHashSet<>();
+        tokens.add(normalized);
+        for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                tokens.add(word);
+            }
+        }
+        return tokens;
+    }
+
+    private String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(String type, String id, String text, int popularity) {
+        String entryKey() {
+            return type + ":" + id;
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class RefundService {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final MailService mailService;
+    private final ProductCache productCache;
 
     private static final long REFUND_WINDOW_DAYS = 30L;
 
@@ -111,9 +112,9 @@ public class RefundService {
         refund.setDecisionNote(dto.getDecisionNote());
 
         if (dto.isApproved()) {
-            product.setQuantity(product.getQuantity() + refund.getQuantity());
-            product.setInStock(Boolean.TRUE);
-            productRepository.save(product);
+            // İade edilen adet atomik $inc ile stoğa döner; okunan ürünü kaydetmek araya giren satışları ezerdi
+            productRepository.restoreStock(product.getProductId(), refund.getQuantity(), 0);
+            productCache.evict(product.getProductId());
 
             // Siparişi DELIVERED durumda bırak ki diğer ürünler için de yeni refund istekleri yapılabilsin
             // (tek bir kalem onaylandığında tüm siparişi bloklamayalım)
@@ -32,6 +32,7 @@ public class SalesManagerService {
     private final UserService userService;
     private final MailService mailService;
     private final RefundRequestRepository refundRequestRepository;
+    private final ProductCache productCache;
 
     @Transactional
     public List<Product> setDiscount(List<String> productIds, BigDecimal discountPercent) {
@@ -44,10 +45,10 @@ public class SalesManagerService {
 
         List<Product> updated = new ArrayList<>();
         for (String productId : productIds) {
-            Product p = productRepository.findById(productId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-            p.setDiscount(discountPercent);
-            updated.add(productRepository.save(p));
+            // Sadece indirim ve finalPrice yazılır; stok ve popülerlik alanlarına dokunulmaz
+            Product p = updatePricing(productId, Map.of("discount", discountPercent));
+            updated.add(p);
+            productCache.evict(productId);
 
             // Notify users who have this product in their wishlist
             List<WishList> wishLists = wishListService.findWishListsContainingProduct(productId);
@@ -88,10 +89,17 @@ public class SalesManagerService {
         if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
             throw new InvalidRequestException("price must be > 0");
         }
-        Product p = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-        p.setPrice(price);
-        return productRepository.save(p);
+        Product saved = updatePricing(productId, Map.of("price", price));
+        productCache.evict(productId);
+        return saved;
+    }
+
+    private Product updatePricing(String productId, Map<String, Object> fields) {
+        Product updated = productRepository.updateFields(productId, fields);
+        if (updated == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        return updated;
     }
 
     public List<InvoiceWithOrderDto> getInvoices(LocalDateTime from, LocalDateTime to) {
@@ -0,0 +1,94 @@
+package org.example.onlinestorebackend.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flash sale'deki tek bir ürünün bellekteki stoğu. Adetler birden çok AtomicInteger'a (şerit) bölünür;
+ * her thread önce kendi şeridinden CAS ile alır, böylece herkes tek bir sayaç üzerinde yarışmaz.
+ * Toplam hiçbir zaman sıfırın altına inmez.
+ */
+final class StripedStockCounter {
+
+    private final AtomicInteger[] stripes;
+
+    StripedStockCounter(int units, int stripeCount) {
+        stripes = new AtomicInteger[Math.max(stripeCount, 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            // Artanlar ilk şeritlere birer birer dağıtılır
+            stripes[i] = new AtomicInteger(units / stripes.length + (i < units % stripes.length ? 1 : 0));
+        }
+    }
+
+    // quantity adedin tamamını alır ya da hiçbirini almaz
+    boolean tryAcquire(int quantity) {
+        int home = homeStripe();
+        for (int i = 0; i < stripes.length; i++) {
+            if (takeAll(stripes[(home + i) % stripes.length], quantity)) {
+                return true;
+            }
+        }
+
+        // Adetler şeritlere dağılmış olabilir: parça parça topla, yetmezse geri koy
+        int taken = 0;
+        for (int i = 0; i < stripes.length && taken < quantity; i++) {
+            taken += takeUpTo(stripes[(home + i) % stripes.length], quantity - taken);
+        }
+        if (taken == quantity) {
+            return true;
+        }
+        release(taken);
+        return false;
+    }
+
+    void release(int quantity) {
+        if (quantity > 0) {
+            stripes[homeStripe()].addAndGet(quantity);
+        }
+    }
+
+    // Kalan tüm adetleri sıfırlayıp döner (flash sale kapatılırken)
+    int drain() {
+        int drained = 0;
+        for (AtomicInteger stripe : stripes) {
+            drained += stripe.getAndSet(0);
+        }
+        return drained;
+    }
+
+    // Anlık toplam; eşzamanlı alımlar sırasında yaklaşık değerdir (ön kontrol için yeterli)
+    int remaining() {
+        int remaining = 0;
+        for (AtomicInteger stripe : stripes) {
+            remaining += stripe.get();
+        }
+        return remaining;
+    }
+
+    private boolean takeAll(AtomicInteger stripe, int quantity) {
+        int current = stripe.get();
+        while (current >= quantity) {
+            if (stripe.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+            current = stripe.get();
+        }
+        return false;
+    }
+
+    private int takeUpTo(AtomicInteger stripe, int quantity) {
+        int current = stripe.get();
+        while (current > 0) {
+            int taken = Math.min(current, quantity);
+            if (stripe.compareAndSet(current, current - taken)) {
+                return taken;
+            }
+            current = stripe.get();
+        }
+        return 0;
+    }
+
+    private int homeStripe() {
+        long threadId = Thread.currentThread().getId();
+        return (int) Math.floorMod(threadId * 0x9E3779B97F4A7C15L >>> 32, (long) stripes.length);
+    }
+}
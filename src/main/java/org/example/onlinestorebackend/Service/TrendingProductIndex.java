@@ -0,0 +1,256 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Entity.Order;
+import org.example.onlinestorebackend.Entity.OrderItem;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.OrderRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * Sipariş akışından artımlı beslenen en çok satanlar sıralaması (genel ve kategori bazında).
+ * Her pencere satışları zaman bucket'larında tutar; ürün başına pencere toplamı değiştikçe
+ * sıralı küme (adet azalan, productId artan) O(log n) ile güncellenir. Okuma kümenin ilk K
+ * elemanını dolaşır (O(K)); koleksiyon sıralanmaz, DB'ye gidilmez.
+ * Süresi dolan bucket'lar her okuma / yazmada pencereden düşülür.
+ */
+@Service
+public class TrendingProductIndex {
+
+    static final String GLOBAL = "";
+    static final String CANCELLED = "CANCELLED";
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final LongSupplier clock;
+
+    private final Map<TrendingWindow, Board> boards = new EnumMap<>(TrendingWindow.class);
+    // productId -> sıralamaların tutulduğu kategoriler
+    private final Map<String, Set<String>> categoriesByProduct = new HashMap<>();
+
+    @Autowired
+    public TrendingProductIndex(OrderRepository orderRepository, ProductRepository productRepository) {
+        this(orderRepository, productRepository, System::currentTimeMillis);
+    }
+
+    TrendingProductIndex(OrderRepository orderRepository, ProductRepository productRepository, LongSupplier clock) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.clock = clock;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            boards.put(window, new Board(window));
+        }
+    }
+
+    // Açılışta son haftanın iptal edilmemiş siparişlerinden doldurulur
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = orderRepository.findByOrderDateBetween(now.minusDays(7), now).stream()
+                .filter(order -> !CANCELLED.equalsIgnoreCase(order.getStatus()))
+                .toList();
+        Set<String> productIds = new HashSet<>();
+        orders.forEach(order -> items(order).forEach(item -> productIds.add(item.getProductId())));
+        Map<String, List<String>> categoryIdsByProduct = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            categoryIdsByProduct.put(product.getProductId(), product.getCategoryIds());
+        }
+
+        synchronized (this) {
+            boards.values().forEach(Board::clear);
+            categoriesByProduct.clear();
+            orders.forEach(order -> record(order, categoryIdsByProduct, 1));
+        }
+    }
+
+    // Sipariş kaydedildikten sonra çağrılır; categoryIdsByProduct sipariş sırasında okunan ürünlerden gelir
+    public synchronized void recordOrder(Order order, Map<String, List<String>> categoryIdsByProduct) {
+        record(order, categoryIdsByProduct, 1);
+    }
+
+    // İptalde satış, siparişin verildiği bucket'tan düşülür; o bucket pencereden çıktıysa etkisi yoktur
+    public synchronized void recordCancellation(Order order, Map<String, List<String>> categoryIdsByProduct) {
+        record(order, categoryIdsByProduct, -1);
+    }
+
+    // categoryId null ise genel sıralama; dönen liste (productId -> adet) sıralıdır
+    public synchronized List<Map.Entry<String, Long>> top(TrendingWindow window, String categoryId, int limit) {
+        Board board = boards.get(window);
+        board.expire(bucketIndex(window, clock.getAsLong()));
+        TreeSet<Rank> ranking = board.rankings.get(categoryId != null ? categoryId : GLOBAL);
+        if (ranking == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Map.Entry<String, Long>> top = new ArrayList<>(Math.min(limit, ranking.size()));
+        for (Rank rank : ranking) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(Map.entry(rank.productId(), rank.units()));
+        }
+        return top;
+    }
+
+    private void record(Order order, Map<String, List<String>> categoryIdsByProduct, int sign) {
+        if (order.getOrderDate() == null) {
+            return;
+        }
+        long at = order.getOrderDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long now = clock.getAsLong();
+        for (OrderItem item : items(order)) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                continue;
+            }
+            updateCategories(item.getProductId(), categoryIdsByProduct.get(item.getProductId()));
+            for (Board board : boards.values()) {
+                long currentBucket = bucketIndex(board.window, now);
+                board.expire(currentBucket);
+                board.add(item.getProductId(), bucketIndex(board.window, at), currentBucket,
+                        (long) sign * item.getQuantity());
+            }
+        }
+    }
+
+    // Ürünün kategorileri değiştiyse mevcut toplamı eski kategori sıralamalarından yenilerine taşı
+    private void updateCategories(String productId, List<String> categoryIds) {
+        if (categoryIds == null) {
+            categoriesByProduct.putIfAbsent(productId, Collections.emptySet());
+            return;
+        }
+        Set<String> updated = new LinkedHashSet<>(categoryIds);
+        Set<String> previous = categoriesByProduct.put(productId, updated);
+        if (previous == null || previous.equals(updated)) {
+            return;
+        }
+        for (Board board : boards.values()) {
+            long units = board.totals.getOrDefault(productId, 0L);
+            if (units <= 0) {
+                continue;
+            }
+            previous.stream().filter(c -> !updated.contains(c))
+                    .forEach(c -> board.unrank(c, productId, units));
+            updated.stream().filter(c -> !previous.contains(c))
+                    .forEach(c -> board.rank(c, productId, units));
+        }
+    }
+
+    private static long bucketIndex(TrendingWindow window, long epochMillis) {
+        return Math.floorDiv(epochMillis, window.getBucketMillis());
+    }
+
+    private static Collection<OrderItem> items(Order order) {
+        return order.getItems() != null ? order.getItems() : Collections.emptyList();
+    }
+
+    private record Rank(String productId, long units) {
+    }
+
+    private static final Comparator<Rank> RANK_ORDER = Comparator
+            .comparingLong(Rank::units).reversed()
+            .thenComparing(Rank::productId);
+
+    // Tek bir pencerenin bucket'ları, ürün toplamları ve kapsam (genel / kategori) sıralamaları
+    private final class Board {
+        private final TrendingWindow window;
+        private final TreeMap<Long, Map<String, Long>> buckets = new TreeMap<>();
+        private final Map<String, Long> totals = new HashMap<>();
+        private final Map<String, TreeSet<Rank>> rankings = new HashMap<>();
+
+        private Board(TrendingWindow window) {
+            this.window = window;
+        }
+
+        void add(String productId, long bucket, long currentBucket, long delta) {
+            // Pencereden çoktan çıkmış bir zamana ait kayıt (örn. eski siparişin iptali) yok sayılır
+            if (bucket < currentBucket - window.getBucketCount() + 1) {
+                return;
+            }
+            Map<String, Long> counts = buckets.computeIfAbsent(bucket, k -> new HashMap<>());
+            long current = counts.getOrDefault(productId, 0L);
+            // İptal, bucket'ta kayıtlı olandan fazlasını düşemez (kayıt öncesi siparişler)
+            long applied = delta < 0 ? -Math.min(current, -delta) : delta;
+            if (applied == 0) {
+                return;
+            }
+            if (current + applied == 0) {
+                counts.remove(productId);
+            } else {
+                counts.put(productId, current + applied);
+            }
+            changeTotal(productId, applied);
+        }
+
+        void expire(long currentBucket) {
+            long oldestAllowed = currentBucket - window.getBucketCount() + 1;
+            while (!buckets.isEmpty() && buckets.firstKey() < oldestAllowed) {
+                buckets.pollFirstEntry().getValue().forEach((productId, units) -> changeTotal(productId, -units));
+            }
+        }
+
+        void clear() {
+            buckets.clear();
+            totals.clear();
+            rankings.clear();
+        }
+
+        private void changeTotal(String productId, long delta) {
+            long previous = totals.getOrDefault(productId, 0L);
+            long updated = previous + delta;
+            if (updated > 0) {
+                totals.put(productId, updated);
+            } else {
+                totals.remove(productId);
+            }
+            for (String scope : scopes(productId)) {
+                if (previous > 0) {
+                    unrank(scope, productId, previous);
+                }
+                if (updated > 0) {
+                    rank(scope, productId, updated);
+                }
+            }
+        }
+
+        private void rank(String scope, String productId, long units) {
+            rankings.computeIfAbsent(scope, k -> new TreeSet<>(RANK_ORDER)).add(new Rank(productId, units));
+        }
+
+        private void unrank(String scope, String productId, long units) {
+            TreeSet<Rank> ranking = rankings.get(scope);
+            if (ranking != null) {
+                ranking.remove(new Rank(productId, units));
+                if (ranking.isEmpty()) {
+                    rankings.remove(scope);
+                }
+            }
+        }
+
+        private List<String> scopes(String productId) {
+            List<String> scopes = new ArrayList<>();
+            scopes.add(GLOBAL);
+            scopes.addAll(categoriesByProduct.getOrDefault(productId, Collections.emptySet()));
+            return scopes;
+        }
+    }
+}
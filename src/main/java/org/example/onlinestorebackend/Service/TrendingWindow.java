@@ -0,0 +1,43 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.exception.InvalidRequestException;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Trend sıralamasının kayan zaman pencereleri. Satışlar pencere başına bucket'larda tutulur;
+ * bucket süresi pencerenin çözünürlüğüdür (son saat için dakikalık, son hafta için saatlik).
+ */
+public enum TrendingWindow {
+    HOUR(Duration.ofHours(1), Duration.ofMinutes(1)),
+    DAY(Duration.ofDays(1), Duration.ofMinutes(10)),
+    WEEK(Duration.ofDays(7), Duration.ofHours(1));
+
+    private final long bucketMillis;
+    private final int bucketCount;
+
+    TrendingWindow(Duration length, Duration bucket) {
+        this.bucketMillis = bucket.toMillis();
+        this.bucketCount = (int) (length.toMillis() / bucket.toMillis());
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public static TrendingWindow resolve(String window) {
+        if (window == null || window.isBlank()) {
+            return DAY;
+        }
+        try {
+            return valueOf(window.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unsupported trending window: " + window + " (hour, day, week)");
+        }
+    }
+}
@@ -27,6 +27,8 @@ public class UserService {
     private OrderRepository orderRepository;
     @Autowired
     private ReviewRepository reviewRepository;
+    @Autowired
+    private ProductRatingService productRatingService;
 
     public List<User> getAllUsers() {
         return userRepository.findAll();
@@ -100,8 +102,10 @@ public class UserService {
         Optional<Review> existingReviewOpt = reviewRepository.findByUserIdAndProductId(userId, dto.getProductId());
 
         Review review;
+        Integer previousRating = null;
         if (existingReviewOpt.isPresent()) {
             review = existingReviewOpt.get();
+            previousRating = review.getRating();
             review.setUpdatedAt(LocalDateTime.now());
         } else {
             review = new Review();
@@ -121,6 +125,8 @@ public class UserService {
         }
 
         reviewRepository.save(review);
+        // Ürünün puan özetini artımlı güncelle
+        productRatingService.recordRating(review.getProductId(), previousRating, review.getRating());
         
         String message = "Your review has been submitted. ";
         if (review.getRating() != null && review.getRating() > 0) {
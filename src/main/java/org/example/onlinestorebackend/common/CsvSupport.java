@@ -0,0 +1,77 @@
+package org.example.onlinestorebackend.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Toplu içe / dışa aktarım için minimal CSV yardımcıları (RFC 4180 tırnak kuralları).
+ * Satır satır akış halinde çalışıldığı için tırnak içinde satır sonu desteklenmez.
+ */
+public final class CsvSupport {
+
+    // Liste alanları (categoryIds, images) tek hücrede bu ayraçla yazılır
+    public static final String LIST_SEPARATOR = "|";
+
+    private CsvSupport() {
+    }
+
+    public static List<String> parseLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    public static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        // Satır sonları tek satır formatını bozmasın diye boşluğa çevrilir
+        return '"' + text.replace("\r", " ").replace("\n", " ").replace("\"", "\"\"") + '"';
+    }
+
+    public static List<String> splitList(String cell) {
+        List<String> values = new ArrayList<>();
+        if (cell == null || cell.isBlank()) {
+            return values;
+        }
+        for (String value : cell.split("\\" + LIST_SEPARATOR)) {
+            if (!value.isBlank()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    public static String joinList(List<String> values) {
+        return values == null ? "" : String.join(LIST_SEPARATOR, values);
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.onlinestorebackend.common;
+
+import org.example.onlinestorebackend.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset sayfalama cursor'larını istemci için opak bir string'e çevirir.
+ * İlk parça cursor'ın hangi sıralama için üretildiğini tutar; farklı bir sıralamayla
+ * gelen cursor reddedilir. Kalan parçalar son kaydın sıralama anahtarı ve id'sidir.
+ * null parçalar boş string'den ayrı bir işaretle yazılır ve decode'da tekrar null olur.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "\u001F";
+    private static final String NULL_PART = "\u0000";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(String scope, String... parts) {
+        StringBuilder raw = new StringBuilder(scope);
+        for (String part : parts) {
+            raw.append(SEPARATOR).append(part != null ? part : NULL_PART);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // scope ile üretilmiş, tam olarak expectedParts parçalı bir cursor'ı çözer; null yazılan parçalar null döner
+    public static String[] decode(String cursor, String scope, int expectedParts) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+
+        String[] tokens = raw.split(SEPARATOR, -1);
+        if (tokens.length != expectedParts + 1 || !scope.equals(tokens[0])) {
+            throw new InvalidRequestException("Cursor does not match the requested sort");
+        }
+        String[] parts = new String[expectedParts];
+        for (int i = 0; i < expectedParts; i++) {
+            parts[i] = NULL_PART.equals(tokens[i + 1]) ? null : tokens[i + 1];
+        }
+        return parts;
+    }
+}
@@ -76,6 +76,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
 
+    // Aynı Idempotency-Key farklı gövdeyle ya da ilk istek sürerken kullanıldı
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ApiResponse<Void>> handleIdempotency(IdempotencyConflictException ex,
+                                                               HttpServletRequest req) {
+        var body = ApiResponse.<Void>fail(
+                "IDEMPOTENCY_CONFLICT",
+                ex.getMessage(),
+                null,
+                (String) req.getAttribute("X-Request-Id")
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
     // Geçersiz istek
     @ExceptionHandler(InvalidRequestException.class)
     public ResponseEntity<ApiResponse<Void>> handleInvalid(InvalidRequestException ex,
@@ -0,0 +1,134 @@
+package org.example.onlinestorebackend.Config;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.example.onlinestorebackend.Entity.Category;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.RatingSummary;
+import org.example.onlinestorebackend.Entity.Review;
+import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.Repository.ReviewRepository;
+import org.example.onlinestorebackend.Service.ProductCategoryRelationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductDataMigrationTest {
+
+    @Mock private ProductRepository productRepository;
+    @Mock private CategoryRepository categoryRepository;
+    @Mock private ProductCategoryRelationService productCategoryRelationService;
+    @Mock private ReviewRepository reviewRepository;
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private BulkOperations bulkOperations;
+    @InjectMocks private ProductDataMigration migration;
+
+    private final List<Product> products = new ArrayList<>();
+    private final List<Update> updates = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Finder'lar bellekteki ürünleri Mongo'daki "alan null/yok" sorgusu gibi süzer
+        lenient().when(productRepository.findByRatingSummaryIsNull(any())).thenAnswer(invocation -> page(p -> p.getRatingSummary() == null));
+        lenient().when(productRepository.findByFinalPriceIsNullAndPriceIsNotNull(any()))
+                .thenAnswer(invocation -> page(p -> p.getFinalPrice() == null && p.getPrice() != null));
+        lenient().when(productRepository.findByCategoryIdsIsNull(any())).thenAnswer(invocation -> page(p -> p.getCategoryIds() == null));
+        lenient().when(productRepository.findByCategoryNamesIsNull(any())).thenAnswer(invocation -> page(p -> p.getCategoryNames() == null));
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulkOperations);
+        lenient().when(bulkOperations.updateOne(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            updates.add(invocation.getArgument(1));
+            return bulkOperations;
+        });
+        lenient().when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq("products")))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+    }
+
+    @Test
+    void run_legacyProductWithReviews_summarizesExistingRatings() {
+        // Given
+        Product legacy = new Product();
+        legacy.setProductId("p1");
+        legacy.setPrice(BigDecimal.valueOf(100));
+        products.add(legacy);
+        when(reviewRepository.findRatingsByProductIdIn(List.of("p1"))).thenReturn(List.of(review("p1", 8), review("p1", 6)));
+        when(productCategoryRelationService.getCategoryIdsForProducts(List.of("p1"))).thenReturn(Map.of("p1", List.of("c1")));
+        Category category = new Category();
+        category.setCategoryId("c1");
+        category.setCategoryName("Laptops");
+        when(categoryRepository.findAll()).thenReturn(List.of(category));
+
+        // When
+        migration.run();
+
+        // Then
+        RatingSummary summary = (RatingSummary) setValue("ratingSummary");
+        assertEquals(2, summary.getCount());
+        assertEquals(14, summary.getSum());
+        assertEquals(7.0, summary.getAverage());
+        assertEquals(1L, summary.getHistogram().get("8"));
+        assertEquals(0, new BigDecimal("100").compareTo((BigDecimal) setValue("finalPrice")));
+        assertEquals(List.of("c1"), setValue("categoryIds"));
+        assertEquals(Map.of("c1", "Laptops"), setValue("categoryNames"));
+        // Adımlar dokümanın tamamını kaydetmez
+        verify(productRepository, never()).saveAll(any());
+        verify(productRepository, never()).save(any());
+    }
+
+    @Test
+    void run_productWithSummary_isNotRecomputed() {
+        // Given
+        Product product = new Product();
+        product.setProductId("p1");
+        product.setRatingSummary(new RatingSummary());
+        product.setCategoryIds(List.of());
+        product.setCategoryNames(Map.of());
+        products.add(product);
+
+        // When
+        migration.run();
+
+        // Then
+        verifyNoInteractions(reviewRepository);
+        assertTrue(updates.isEmpty());
+    }
+
+    private PageImpl<Product> page(Predicate<Product> pending) {
+        return new PageImpl<>(products.stream().filter(pending).toList());
+    }
+
+    private Object setValue(String field) {
+        return updates.stream()
+                .map(update -> update.getUpdateObject().get("$set", Document.class))
+                .filter(set -> set.containsKey(field))
+                .map(set -> set.get(field))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No $set for " + field));
+    }
+
+    private static Review review(String productId, int rating) {
+        Review review = new Review();
+        review.setProductId(productId);
+        review.setRating(rating);
+        return review;
+    }
+}
@@ -0,0 +1,349 @@
+package org.example.onlinestorebackend.Repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.example.onlinestorebackend.Dto.ProductFacetResult;
+import org.example.onlinestorebackend.Dto.ProductFilter;
+import org.example.onlinestorebackend.Entity.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductRepositoryCustomImplTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @InjectMocks private ProductRepositoryCustomImpl productRepository;
+
+    @Test
+    void updateFields_nonPricingFields_setsOnlyThoseFields() {
+        // Given
+        Product updated = new Product();
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(updated);
+
+        // When
+        Product result = productRepository.updateFields("p1", Map.of("cost", new BigDecimal("12.50")));
+
+        // Then
+        assertSame(updated, result);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        assertEquals(new Document("cost", new BigDecimal("12.50")), update.getValue().getUpdateObject().get("$set"));
+        verify(mongoTemplate, never()).findOne(any(), any());
+    }
+
+    @Test
+    void updateFields_priceChange_recomputesFinalPriceWithCurrentDiscount() {
+        // Given
+        Product current = pricing("100", "20");
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class))).thenReturn(current);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(new Product());
+
+        // When
+        productRepository.updateFields("p1", Map.of("price", new BigDecimal("250")));
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(new BigDecimal("250"), set.get("price"));
+        assertEquals(new BigDecimal("200.00"), set.get("finalPrice"));
+        assertEquals(2, set.size());
+        // Sadece okunan fiyat alanları değişmediyse yazılır
+        assertEquals(new BigDecimal("100"), query.getValue().getQueryObject().get("price"));
+        assertEquals(new BigDecimal("20"), query.getValue().getQueryObject().get("discount"));
+    }
+
+    @Test
+    void updateFields_pricingChangedConcurrently_retriesWithFreshValues() {
+        // Given: ilk okumadan sonra indirim 10'dan 50'ye değişmiş
+        when(mongoTemplate.findOne(any(Query.class), eq(Product.class)))
+                .thenReturn(pricing("100", "10"))
+                .thenReturn(pricing("100", "50"));
+        Product updated = new Product();
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(null).thenReturn(updated);
+
+        // When
+        Product result = productRepository.updateFields("p1", Map.of("price", new BigDecimal("200")));
+
+        // Then
+        assertSame(updated, result);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        assertEquals(new BigDecimal("100.00"),
+                update.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("finalPrice"));
+    }
+
+    @Test
+    void updateFields_missingProduct_returnsNull() {
+        // When
+        Product result = productRepository.updateFields("p1", Map.of("discount", new BigDecimal("5")));
+
+        // Then
+        assertNull(result);
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(Product.class));
+    }
+
+    @Test
+    void decrementStocks_allAvailable_sendsOneOrderedBulkWithoutCompensation() {
+        // Given
+        BulkOperations ordered = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class)).thenReturn(ordered);
+        when(ordered.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+
+        // When
+        String insufficient = productRepository.decrementStocks(orderedQuantities(), Map.of());
+
+        // Then
+        assertNull(insufficient);
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> updates = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(ordered, times(2)).updateOne(queries.capture(), updates.capture());
+        assertEquals(new Document("productId", "p1"), queries.getAllValues().get(0).getQueryObject());
+        // Stok koşulu pipeline'dadır: yetmezse update ConversionFailure ile durur
+        assertTrue(updates.getAllValues().get(0).getUpdateObject().toJson().contains("insufficient-stock"));
+        verify(ordered).execute();
+        verify(ordered, never()).upsert(any(Query.class), any(UpdateDefinition.class));
+        verify(mongoTemplate, never()).bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Product.class));
+    }
+
+    @Test
+    void decrementStocks_secondProductInsufficient_compensatesOnlyRowsBeforeIt() {
+        // Given: ordered bulk p2'de stok hatasıyla durur
+        BulkOperations ordered = mock(BulkOperations.class);
+        BulkOperations compensation = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class)).thenReturn(ordered);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(compensation);
+        when(ordered.execute()).thenThrow(bulkFailure(241, 1, 1));
+
+        // When
+        String insufficient = productRepository.decrementStocks(orderedQuantities(), Map.of());
+
+        // Then
+        assertEquals("p2", insufficient);
+        ArgumentCaptor<Query> compensated = ArgumentCaptor.forClass(Query.class);
+        verify(compensation).updateOne(compensated.capture(), any(UpdateDefinition.class));
+        assertEquals(new Document("productId", "p1"), compensated.getValue().getQueryObject());
+        verify(compensation, never()).upsert(any(Query.class), any(UpdateDefinition.class));
+        verify(compensation).execute();
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Product.class));
+    }
+
+    @Test
+    void decrementStocks_productDeleted_reportsItAndCompensatesAppliedRows() {
+        // Given: bulk hatasız biter ama p1 artık yok, yalnızca p2 eşleşir
+        BulkOperations ordered = mock(BulkOperations.class);
+        BulkOperations compensation = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class)).thenReturn(ordered);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(compensation);
+        when(ordered.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        Product remaining = new Product();
+        remaining.setProductId("p2");
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(remaining));
+
+        // When
+        String insufficient = productRepository.decrementStocks(orderedQuantities(), Map.of());
+
+        // Then
+        assertEquals("p1", insufficient);
+        verify(compensation, times(2)).updateOne(any(Query.class), any(UpdateDefinition.class));
+        verify(compensation).execute();
+    }
+
+    @Test
+    void decrementStocks_writeFails_compensatesRowsBeforeFailureAndRethrows() {
+        // Given
+        BulkOperations ordered = mock(BulkOperations.class);
+        BulkOperations compensation = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class)).thenReturn(ordered);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(compensation);
+        when(ordered.execute()).thenThrow(bulkFailure(50, 1, 1));
+
+        // When & Then
+        assertThrows(BulkOperationException.class, () -> productRepository.decrementStocks(orderedQuantities(), Map.of()));
+        verify(compensation, times(1)).updateOne(any(Query.class), any(UpdateDefinition.class));
+        verify(compensation).execute();
+    }
+
+    @Test
+    void findAfter_nullKeyAscending_continuesWithRemainingNullsThenAllValues() {
+        // When
+        productRepository.findAfter("finalPrice", Sort.Direction.ASC, null, "p2", 10);
+
+        // Then
+        assertEquals(Document.parse("{ $or: [ { finalPrice: { $ne: null } }, "
+                        + "{ $and: [ { finalPrice: null }, { productId: { $gt: 'p2' } } ] } ] }"),
+                capturedFind().getQueryObject());
+    }
+
+    @Test
+    void findAfter_nullKeyDescending_continuesOnlyWithRemainingNulls() {
+        // When
+        productRepository.findAfter("finalPrice", Sort.Direction.DESC, null, "p2", 10);
+
+        // Then
+        assertEquals(Document.parse("{ $and: [ { finalPrice: null }, { productId: { $lt: 'p2' } } ] }"),
+                capturedFind().getQueryObject());
+    }
+
+    @Test
+    void findAfter_valueDescending_includesNullKeysThatSortLast() {
+        // When
+        productRepository.findAfter("popularity", Sort.Direction.DESC, 5, "p2", 10);
+
+        // Then
+        assertEquals(Document.parse("{ $or: [ { popularity: { $lt: 5 } }, "
+                        + "{ $and: [ { popularity: 5 }, { productId: { $lt: 'p2' } } ] }, { popularity: null } ] }"),
+                capturedFind().getQueryObject());
+    }
+
+    @Test
+    void findFacets_keepsNullPricesOutOfPriceBuckets() {
+        // Given
+        Document output = new Document("priceBuckets", List.of(
+                new Document("_id", new Decimal128(new BigDecimal("100"))).append("count", 2),
+                new Document("_id", "below").append("count", 1)))
+                .append("noPrice", List.of(new Document("count", 4)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("products"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(output), new Document()));
+
+        // When
+        ProductFacetResult result = productRepository.findFacets(ProductFilter.builder().build(), PageRequest.of(0, 20),
+                List.of(BigDecimal.ZERO, new BigDecimal("100")));
+
+        // Then
+        assertEquals(2L, result.getPriceBucketCounts().get(new BigDecimal("100")));
+        assertEquals(1L, result.getPriceBucketCounts().get(null));
+        assertEquals(4, result.getNoPriceCount());
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq("products"), eq(Document.class));
+        Document facet = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$facet", Document.class);
+        List<?> priceBuckets = facet.getList("priceBuckets", Object.class);
+        assertEquals(new Document("$match", new Document("finalPrice", new Document("$ne", null))), priceBuckets.get(0));
+        Document bucket = ((Document) priceBuckets.get(1)).get("$bucket", Document.class);
+        assertEquals(List.of(new Decimal128(BigDecimal.ZERO), new Decimal128(new BigDecimal("100")), Decimal128.POSITIVE_INFINITY),
+                bucket.get("boundaries"));
+        assertEquals(new Document("$match", new Document("finalPrice", null)), facet.getList("noPrice", Object.class).get(0));
+    }
+
+    @Test
+    void bulkUpsert_absentFieldsAreOnlyDefaultedOnInsert() {
+        // Given
+        when(mongoTemplate.getConverter()).thenReturn(converter());
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulk);
+        Product partial = new Product();
+        partial.setProductId("p1");
+        partial.setProductName("Laptop");
+        partial.setPrice(new BigDecimal("100"));
+        Product full = new Product();
+        full.setProductId("p2");
+        full.setProductName("Mouse");
+        full.setQuantity(3);
+        full.setCategoryIds(List.of());
+        full.setCategoryNames(Map.of());
+
+        // When
+        productRepository.bulkUpsert(List.of(partial, full));
+
+        // Then
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).upsert(any(Query.class), updates.capture());
+        Document partialUpdate = updates.getAllValues().get(0).getUpdateObject();
+        Document set = partialUpdate.get("$set", Document.class);
+        Document setOnInsert = partialUpdate.get("$setOnInsert", Document.class);
+        assertEquals("Laptop", set.get("productName"));
+        for (String field : List.of("quantity", "inStock", "discount", "categoryIds", "categoryNames")) {
+            assertFalse(set.containsKey(field), field);
+            assertTrue(setOnInsert.containsKey(field), field);
+        }
+        assertEquals(List.of(), setOnInsert.get("categoryIds"));
+        // Açıkça verilen boş kategori listesi kategorileri temizler
+        Document fullUpdate = updates.getAllValues().get(1).getUpdateObject();
+        assertEquals(List.of(), fullUpdate.get("$set", Document.class).get("categoryIds"));
+        assertEquals(3, fullUpdate.get("$set", Document.class).get("quantity"));
+        assertFalse(fullUpdate.get("$setOnInsert", Document.class).containsKey("categoryIds"));
+    }
+
+    // save() ile aynı dönüşümleri yapan, Spring context'i olmayan converter
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private Query capturedFind() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Product.class));
+        return query.getValue();
+    }
+
+    // Ordered bulk'ın index'teki işlemde code hatasıyla durması; öncesinde matched işlem eşleşmiştir
+    private static BulkOperationException bulkFailure(int code, int index, int matched) {
+        BulkWriteResult result = BulkWriteResult.acknowledged(0, matched, 0, matched, List.of(), List.of());
+        BulkWriteError error = new BulkWriteError(code, "failed", new BsonDocument(), index);
+        return new BulkOperationException("failed",
+                new MongoBulkWriteException(result, List.of(error), null, new ServerAddress(), Set.of()));
+    }
+
+    private static Map<String, Integer> orderedQuantities() {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put("p1", 2);
+        quantities.put("p2", 5);
+        return quantities;
+    }
+
+    private static Product pricing(String price, String discount) {
+        Product product = new Product();
+        product.setPrice(new BigDecimal(price));
+        product.setDiscount(new BigDecimal(discount));
+        return product;
+    }
+}
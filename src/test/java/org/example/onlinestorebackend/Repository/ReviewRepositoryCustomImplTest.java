@@ -0,0 +1,58 @@
+package org.example.onlinestorebackend.Repository;
+
+import org.bson.Document;
+import org.example.onlinestorebackend.Entity.Review;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewRepositoryCustomImplTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @InjectMocks private ReviewRepositoryCustomImpl reviewRepository;
+
+    @Test
+    void findCommentedAfter_nullCreatedAtAscending_continuesWithRemainingNullsThenDatedReviews() {
+        // When
+        reviewRepository.findCommentedAfter(null, false, Sort.Direction.ASC, null, "r1", 10);
+
+        // Then
+        Document query = capturedFind().getQueryObject();
+        assertEquals(Document.parse("{ $or: [ { createdAt: { $ne: null } }, "
+                        + "{ $and: [ { createdAt: null }, { reviewId: { $gt: 'r1' } } ] } ] }").get("$or"),
+                query.get("$or"));
+    }
+
+    @Test
+    void findCommentedAfter_createdAtDescending_includesUndatedReviewsLast() {
+        // Given
+        LocalDateTime lastCreatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+        // When
+        reviewRepository.findCommentedAfter("p1", true, Sort.Direction.DESC, lastCreatedAt, "r5", 10);
+
+        // Then
+        Document query = capturedFind().getQueryObject();
+        assertEquals(3, query.getList("$or", Document.class).size());
+        assertEquals(new Document("createdAt", null), query.getList("$or", Document.class).get(2));
+    }
+
+    private Query capturedFind() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Review.class));
+        return query.getValue();
+    }
+}
@@ -1,23 +1,32 @@
 package org.example.onlinestorebackend.Service;
 
+import org.example.onlinestorebackend.Dto.CategoryResponseDto;
 import org.example.onlinestorebackend.Entity.Category;
 import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
 import org.example.onlinestorebackend.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CategoryServiceTest {
 
     @Mock private CategoryRepository categoryRepository;
+    @Mock private ProductSuggestionIndex productSuggestionIndex;
+    @Mock private ProductCache productCache;
+    @Mock private ProductRepository productRepository;
+    @Mock private TaskExecutor backgroundTaskExecutor;
+    @Mock private CategorySnapshot categorySnapshot;
     @InjectMocks private CategoryService categoryService;
 
     @Test
@@ -34,6 +43,81 @@ class CategoryServiceTest {
 
         categoryService.deleteCategory("c1");
         verify(categoryRepository).delete(c);
+        verify(categorySnapshot).publishChange();
+    }
+
+    @Test
+    void getCategoryById_readsFromSnapshotWithoutQuery() {
+        Category c = new Category();
+        c.setCategoryId("c1");
+        c.setCategoryName("Phones");
+        when(categorySnapshot.findById("c1")).thenReturn(Optional.of(c));
+
+        assertEquals("Phones", categoryService.getCategoryById("c1").getCategoryName());
+        verifyNoInteractions(categoryRepository);
+    }
+
+    @Test
+    void deleteCategory_existing_removesCategoryFromProductsInBackground() {
+        Category c = new Category();
+        c.setCategoryId("c1");
+        when(categoryRepository.findById("c1")).thenReturn(Optional.of(c));
+        runTasksInline();
+
+        categoryService.deleteCategory("c1");
+
+        verify(productRepository).removeCategory("c1");
+        verify(productCache).clear();
+    }
+
+    @Test
+    void updateCategory_rename_fansOutToProductsThenClearsCache() {
+        // Given
+        Category existing = new Category();
+        existing.setCategoryId("c1");
+        existing.setCategoryName("Phones");
+        when(categoryRepository.findById("c1")).thenReturn(Optional.of(existing));
+        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        runTasksInline();
+        Category update = new Category();
+        update.setCategoryName("Smartphones");
+
+        // When
+        CategoryResponseDto result = categoryService.updateCategory("c1", update);
+
+        // Then
+        assertEquals("Smartphones", result.getCategoryName());
+        verify(productSuggestionIndex).upsertCategory(existing);
+        var order = inOrder(productRepository, productCache);
+        order.verify(productRepository).renameCategory("c1", "Smartphones");
+        order.verify(productCache).clear();
+    }
+
+    @Test
+    void updateCategory_sameName_doesNotTouchProducts() {
+        // Given
+        Category existing = new Category();
+        existing.setCategoryId("c1");
+        existing.setCategoryName("Phones");
+        when(categoryRepository.findById("c1")).thenReturn(Optional.of(existing));
+        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Category update = new Category();
+        update.setCategoryName("Phones");
+        update.setDescription("Mobile phones");
+
+        // When
+        categoryService.updateCategory("c1", update);
+
+        // Then
+        assertEquals("Mobile phones", existing.getDescription());
+        verifyNoInteractions(backgroundTaskExecutor, productRepository, productCache);
+    }
+
+    private void runTasksInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(backgroundTaskExecutor).execute(any(Runnable.class));
     }
 }
 
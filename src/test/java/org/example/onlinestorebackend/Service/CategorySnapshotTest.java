@@ -0,0 +1,104 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Entity.CatalogVersion;
+import org.example.onlinestorebackend.Entity.Category;
+import org.example.onlinestorebackend.Repository.CatalogVersionRepository;
+import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategorySnapshotTest {
+
+    @Mock private CategoryRepository categoryRepository;
+    @Mock private CatalogVersionRepository catalogVersionRepository;
+    @InjectMocks private CategorySnapshot categorySnapshot;
+
+    @Test
+    void lookups_loadOnceThenServeFromMemory() {
+        // Given
+        when(catalogVersionRepository.findById(CategorySnapshot.VERSION_KEY))
+                .thenReturn(Optional.of(new CatalogVersion(CategorySnapshot.VERSION_KEY, 3)));
+        when(categoryRepository.findAll()).thenReturn(List.of(category("c1", "Phones"), category("c2", "Laptops")));
+
+        // When
+        Optional<Category> byId = categorySnapshot.findById("c2");
+        Optional<Category> byName = categorySnapshot.findByName("  phones ");
+        List<Category> all = categorySnapshot.all();
+
+        // Then
+        assertEquals("Laptops", byId.orElseThrow().getCategoryName());
+        assertEquals("c1", byName.orElseThrow().getCategoryId());
+        assertEquals(2, all.size());
+        assertThrows(UnsupportedOperationException.class, () -> all.add(new Category()));
+        assertEquals(3, categorySnapshot.version());
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void refreshIfStale_sameVersion_doesNotReload() {
+        // Given
+        when(catalogVersionRepository.findById(CategorySnapshot.VERSION_KEY))
+                .thenReturn(Optional.of(new CatalogVersion(CategorySnapshot.VERSION_KEY, 5)));
+        when(categoryRepository.findAll()).thenReturn(List.of(category("c1", "Phones")));
+        categorySnapshot.all();
+
+        // When
+        categorySnapshot.refreshIfStale();
+
+        // Then
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void refreshIfStale_versionChangedOnAnotherNode_swapsSnapshot() {
+        // Given
+        when(catalogVersionRepository.findById(CategorySnapshot.VERSION_KEY))
+                .thenReturn(Optional.of(new CatalogVersion(CategorySnapshot.VERSION_KEY, 1)))
+                .thenReturn(Optional.of(new CatalogVersion(CategorySnapshot.VERSION_KEY, 2)));
+        when(categoryRepository.findAll())
+                .thenReturn(List.of(category("c1", "Phones")))
+                .thenReturn(List.of(category("c1", "Smartphones")));
+        assertEquals("Phones", categorySnapshot.findById("c1").orElseThrow().getCategoryName());
+
+        // When
+        categorySnapshot.refreshIfStale();
+
+        // Then
+        assertEquals("Smartphones", categorySnapshot.findById("c1").orElseThrow().getCategoryName());
+        assertTrue(categorySnapshot.findByName("Phones").isEmpty());
+        assertEquals(2, categorySnapshot.version());
+    }
+
+    @Test
+    void publishChange_bumpsVersionAndReloads() {
+        // Given
+        when(catalogVersionRepository.increment(CategorySnapshot.VERSION_KEY)).thenReturn(8L);
+        when(categoryRepository.findAll()).thenReturn(List.of(category("c9", "Garden")));
+
+        // When
+        categorySnapshot.publishChange();
+
+        // Then
+        assertEquals(8, categorySnapshot.version());
+        assertTrue(categorySnapshot.findById("c9").isPresent());
+        verify(catalogVersionRepository, never()).findById(any());
+    }
+
+    private Category category(String id, String name) {
+        Category category = new Category();
+        category.setCategoryId(id);
+        category.setCategoryName(name);
+        return category;
+    }
+}
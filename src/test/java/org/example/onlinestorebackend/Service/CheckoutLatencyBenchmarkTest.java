@@ -0,0 +1,141 @@
+package org.example.onlinestorebackend.Service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.example.onlinestorebackend.Entity.Cart;
+import org.example.onlinestorebackend.Entity.CartItem;
+import org.example.onlinestorebackend.Entity.Order;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.User;
+import org.example.onlinestorebackend.Repository.CartRepository;
+import org.example.onlinestorebackend.Repository.DeliveryRepository;
+import org.example.onlinestorebackend.Repository.OrderRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.Repository.ProductRepositoryCustomImpl;
+import org.example.onlinestorebackend.Repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Sepet boyutuna göre checkout gecikmesi ve DB round trip sayısı. Her repository çağrısı ve Mongo'ya giden
+ * her bulkWrite sabit bir ağ gecikmesi (ROUND_TRIP) kadar bekletilir; satır başına findById + save + delivery save
+ * yapan eski akış 3n + 4 round trip'ti. Stok düşümü gerçek ProductRepositoryCustomImpl üzerinden geçer:
+ * tüm satırlar tek ordered bulkWrite'tır, stok yettiğinde akışın round trip sayısı sepet boyutundan bağımsızdır.
+ * Normal test koşusunda çalışmaz: gradle test -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutLatencyBenchmarkTest {
+
+    private static final int[] CART_SIZES = {1, 5, 20, 50};
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int ROUNDS = 10;
+
+    private final AtomicInteger roundTrips = new AtomicInteger();
+
+    @Test
+    void checkoutLatencyByCartSize() {
+        System.out.printf("%-10s %-22s %-18s %-12s%n", "cart size", "round trips (before)", "round trips (now)", "latency ms");
+        for (int cartSize : CART_SIZES) {
+            OrderService orderService = orderService(cartSize);
+            orderService.createOrderFromCart("customer-1", null);
+
+            long best = Long.MAX_VALUE;
+            int trips = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                roundTrips.set(0);
+                long started = System.nanoTime();
+                orderService.createOrderFromCart("customer-1", null);
+                best = Math.min(best, System.nanoTime() - started);
+                trips = roundTrips.get();
+            }
+            System.out.printf("%-10d %-22d %-18d %-12.2f%n", cartSize, 3 * cartSize + 4, trips, best / 1_000_000.0);
+        }
+    }
+
+    private OrderService orderService(int cartSize) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < cartSize; i++) {
+            Product product = new Product();
+            product.setProductId("product-" + i);
+            product.setProductName("Product " + i);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setQuantity(Integer.MAX_VALUE);
+            product.setInStock(true);
+            products.add(product);
+        }
+
+        CartRepository cartRepository = mock(CartRepository.class, withSettings().stubOnly());
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        ProductRepository productRepository = mock(ProductRepository.class, withSettings().stubOnly());
+        OrderRepository orderRepository = mock(OrderRepository.class, withSettings().stubOnly());
+        DeliveryRepository deliveryRepository = mock(DeliveryRepository.class, withSettings().stubOnly());
+
+        // Her çağrıda sepet yeniden dolu döner (createOrderFromCart sepeti boşaltır)
+        when(cartRepository.findByUserId(anyString())).thenAnswer(roundTrip(invocation -> Optional.of(cart(products))));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(roundTrip(invocation -> invocation.getArgument(0)));
+        User customer = new User();
+        customer.setUserId("customer-1");
+        customer.setHomeAddress("Istanbul");
+        when(userRepository.findByUserId(anyString())).thenAnswer(roundTrip(invocation -> Optional.of(customer)));
+        when(productRepository.findAllById(anyIterable())).thenAnswer(roundTrip(invocation -> products));
+        ProductRepositoryCustomImpl stockRepository = stockRepository(cartSize);
+        when(productRepository.decrementStocks(anyMap(), anyMap())).thenAnswer(invocation ->
+                stockRepository.decrementStocks(invocation.getArgument(0), invocation.getArgument(1)));
+        when(orderRepository.save(any(Order.class))).thenAnswer(roundTrip(invocation -> invocation.getArgument(0)));
+        when(deliveryRepository.saveAll(anyList())).thenAnswer(roundTrip(invocation -> invocation.getArgument(0)));
+
+        return new OrderService(orderRepository, productRepository, cartRepository, userRepository, deliveryRepository,
+                mock(ProductCache.class, withSettings().stubOnly()),
+                mock(TrendingProductIndex.class, withSettings().stubOnly()),
+                mock(FrequentlyBoughtTogetherIndex.class, withSettings().stubOnly()),
+                mock(InventoryReservationService.class, withSettings().stubOnly()),
+                mock(FlashSaleStock.class, withSettings().stubOnly()));
+    }
+
+    // Bulk'a eklenen her işlem yerelde toplanır, yalnızca execute bir round trip'tir; hepsi eşleşir
+    private ProductRepositoryCustomImpl stockRepository(int cartSize) {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class, withSettings().stubOnly());
+        BulkOperations bulk = mock(BulkOperations.class, withSettings().stubOnly());
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Product.class))).thenReturn(bulk);
+        when(bulk.execute()).thenAnswer(roundTrip(invocation ->
+                BulkWriteResult.acknowledged(0, cartSize, 0, cartSize, List.of(), List.of())));
+        return new ProductRepositoryCustomImpl(mongoTemplate);
+    }
+
+    private Cart cart(List<Product> products) {
+        Cart cart = new Cart();
+        cart.setUserId("customer-1");
+        List<CartItem> items = new ArrayList<>();
+        for (Product product : products) {
+            CartItem item = new CartItem();
+            item.setProductId(product.getProductId());
+            item.setQuantity(1);
+            item.setPrice(product.getPrice());
+            item.setSubtotal(product.getPrice());
+            items.add(item);
+        }
+        cart.setItems(items);
+        return cart;
+    }
+
+    private <T> Answer<T> roundTrip(Answer<T> answer) {
+        return invocation -> {
+            roundTrips.incrementAndGet();
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            return answer.answer(invocation);
+        };
+    }
+}
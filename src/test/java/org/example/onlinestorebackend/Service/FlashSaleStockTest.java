@@ -0,0 +1,143 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlashSaleStockTest {
+
+    @Mock private ProductRepository productRepository;
+    @Mock private ProductCache productCache;
+
+    @TempDir
+    Path tempDir;
+
+    private Path journalPath;
+    private FlashSaleStock flashSaleStock;
+
+    @BeforeEach
+    void setUp() {
+        journalPath = tempDir.resolve("flash-sale.journal");
+        flashSaleStock = new FlashSaleStock(productRepository, productCache, journalPath.toString(), 4);
+        flashSaleStock.recover();
+    }
+
+    @AfterEach
+    void tearDown() {
+        flashSaleStock.shutdown();
+    }
+
+    @Test
+    void enable_movesUnitsToPoolAndOrdersAreServedFromMemory() {
+        // Given
+        when(productRepository.existsById("p1")).thenReturn(true);
+
+        // When
+        int remaining = flashSaleStock.enable("p1", 5);
+        String first = flashSaleStock.take(Map.of("p1", 3));
+        String second = flashSaleStock.take(Map.of("p1", 3));
+
+        // Then
+        assertEquals(5, remaining);
+        assertNull(first);
+        assertEquals("p1", second);
+        assertEquals(2, flashSaleStock.remaining("p1"));
+        verify(productRepository).reserveStocks(Map.of("p1", 5));
+        verify(productRepository, never()).applyFlashSaleFlush(any(), anyMap(), anyMap());
+
+        flashSaleStock.flush();
+        verify(productRepository).applyFlashSaleFlush(anyString(), eq(Map.of("p1", 3)), eq(Map.of()));
+    }
+
+    @Test
+    void take_secondProductInsufficient_putsFirstProductUnitsBack() {
+        // Given
+        when(productRepository.existsById(anyString())).thenReturn(true);
+        flashSaleStock.enable("p1", 5);
+        flashSaleStock.enable("p2", 1);
+
+        // When
+        String insufficient = flashSaleStock.take(Map.of("p1", 2, "p2", 2));
+
+        // Then
+        assertEquals("p2", insufficient);
+        assertEquals(5, flashSaleStock.remaining("p1"));
+        assertEquals(1, flashSaleStock.remaining("p2"));
+    }
+
+    @Test
+    void disable_releasesUnsoldUnitsAndWritesPendingSales() {
+        // Given
+        when(productRepository.existsById("p1")).thenReturn(true);
+        flashSaleStock.enable("p1", 5);
+        flashSaleStock.take(Map.of("p1", 2));
+
+        // When
+        int released = flashSaleStock.disable("p1");
+
+        // Then
+        assertEquals(3, released);
+        assertFalse(flashSaleStock.isManaged("p1"));
+        verify(productRepository).applyFlashSaleFlush(anyString(), eq(Map.of("p1", 2)), eq(Map.of("p1", 3)));
+        verify(productCache).evictAll(Set.of("p1"));
+    }
+
+    @Test
+    void giveBack_afterDisable_returnsUnitsToSellableStock() {
+        // Given: satış ürüne yazıldıktan sonra sipariş kaydedilemedi
+        when(productRepository.existsById("p1")).thenReturn(true);
+        flashSaleStock.enable("p1", 5);
+        flashSaleStock.take(Map.of("p1", 2));
+        flashSaleStock.disable("p1");
+
+        // When
+        flashSaleStock.giveBack(Map.of("p1", 2));
+        flashSaleStock.flush();
+
+        // Then
+        verify(productRepository).applyFlashSaleFlush(anyString(), eq(Map.of("p1", -2)), eq(Map.of("p1", 2)));
+    }
+
+    @Test
+    void recover_replaysUnfinishedFlushAndReleasesUnsoldUnits() throws Exception {
+        // Given: f1 tamamlanmış, f2 başlamış ama bitmemiş; son satır çökme anında yarım kalmış
+        flashSaleStock.shutdown();
+        Files.writeString(journalPath, String.join("\n",
+                "A\tp1\t10",
+                "S\tp1\t4",
+                "R\tp1\t1",
+                "B\tf1\tp1\t2\t0",
+                "D\tf1",
+                "S\tp1\t2",
+                "B\tf2\tp1\t3\t0",
+                "S\tp1"));
+        flashSaleStock = new FlashSaleStock(productRepository, productCache, journalPath.toString(), 4);
+
+        // When
+        flashSaleStock.recover();
+
+        // Then: 5 adet satıldı (2 + 3 yazıldı), ayrılan 10 adetin kalan 5'i satılabilir stoğa döner
+        InOrder inOrder = inOrder(productRepository);
+        inOrder.verify(productRepository).applyFlashSaleFlush("f2", Map.of("p1", 3), Map.of());
+        inOrder.verify(productRepository).applyFlashSaleFlush(anyString(), eq(Map.of()), eq(Map.of("p1", 5)));
+        verifyNoMoreInteractions(productRepository);
+        assertEquals(0, Files.size(journalPath));
+        assertFalse(flashSaleStock.isManaged("p1"));
+    }
+}
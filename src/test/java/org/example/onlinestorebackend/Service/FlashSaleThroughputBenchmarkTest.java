@@ -0,0 +1,189 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Dto.CreateOrderRequest;
+import org.example.onlinestorebackend.Entity.Order;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.User;
+import org.example.onlinestorebackend.Repository.CartRepository;
+import org.example.onlinestorebackend.Repository.DeliveryRepository;
+import org.example.onlinestorebackend.Repository.OrderRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.Repository.UserRepository;
+import org.example.onlinestorebackend.exception.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tek bir sıcak SKU için saniyedeki sipariş sayısı: her siparişte ürün dokümanına koşullu yazım ile
+ * flash sale modu (bellekteki şeritli sayaç + günlük + toplu yazım) karşılaştırılır. Aynı dokümana
+ * yazımlar sıraya girer; bu, doküman kilidi altında sabit bir yazım süresi (DOCUMENT_WRITE) ile taklit edilir.
+ * Normal test koşusunda çalışmaz: gradle test -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FlashSaleThroughputBenchmarkTest {
+
+    private static final String PRODUCT_ID = "hot-sku";
+    private static final int STOCK = 20_000;
+    private static final int BUYERS = 32;
+    private static final long DOCUMENT_WRITE_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void ordersPerSecondForSingleSku() throws Exception {
+        Result direct = run(false);
+        Result flashSale = run(true);
+
+        System.out.printf("%-22s %-10s %-14s %-12s%n", "mode", "sold", "product writes", "orders/s");
+        direct.print("per-order write");
+        flashSale.print("flash sale (memory)");
+
+        assertEquals(STOCK, direct.sold);
+        assertEquals(STOCK, flashSale.sold);
+    }
+
+    private Result run(boolean flashSaleMode) throws Exception {
+        ReentrantLock hotDocument = new ReentrantLock();
+        AtomicInteger stock = new AtomicInteger(STOCK);
+        AtomicInteger productWrites = new AtomicInteger();
+
+        ProductRepository productRepository = mock(ProductRepository.class, withSettings().stubOnly());
+        OrderRepository orderRepository = mock(OrderRepository.class, withSettings().stubOnly());
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(productRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            return List.of(product(stock.get()));
+        });
+        when(productRepository.decrementStocks(anyMap(), anyMap())).thenAnswer(invocation -> {
+            Map<String, Integer> quantities = invocation.getArgument(0);
+            if (quantities.isEmpty()) {
+                return null;
+            }
+            return writeHotDocument(hotDocument, productWrites, () -> {
+                int quantity = quantities.get(PRODUCT_ID);
+                if (stock.get() < quantity) {
+                    return PRODUCT_ID;
+                }
+                stock.addAndGet(-quantity);
+                return null;
+            });
+        });
+        when(productRepository.existsById(PRODUCT_ID)).thenReturn(true);
+        doAnswer(invocation -> writeHotDocument(hotDocument, productWrites, () -> null))
+                .when(productRepository).applyFlashSaleFlush(anyString(), anyMap(), anyMap());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            return invocation.getArgument(0);
+        });
+        User customer = new User();
+        customer.setUserId("customer-1");
+        customer.setHomeAddress("Istanbul");
+        when(userRepository.findByUserId(anyString())).thenReturn(Optional.of(customer));
+
+        FlashSaleStock flashSaleStock = new FlashSaleStock(productRepository, mock(ProductCache.class),
+                tempDir.resolve("journal-" + flashSaleMode).toString(), 0);
+        flashSaleStock.recover();
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        if (flashSaleMode) {
+            flashSaleStock.enable(PRODUCT_ID, STOCK);
+            flusher.scheduleWithFixedDelay(flashSaleStock::flush, 100, 100, TimeUnit.MILLISECONDS);
+        }
+
+        OrderService orderService = new OrderService(orderRepository, productRepository,
+                mock(CartRepository.class, withSettings().stubOnly()), userRepository,
+                mock(DeliveryRepository.class, withSettings().stubOnly()),
+                mock(ProductCache.class, withSettings().stubOnly()),
+                mock(TrendingProductIndex.class, withSettings().stubOnly()),
+                mock(FrequentlyBoughtTogetherIndex.class, withSettings().stubOnly()),
+                mock(InventoryReservationService.class, withSettings().stubOnly()),
+                flashSaleStock);
+
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(PRODUCT_ID);
+        item.setQuantity(1);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomerId("customer-1");
+        request.setItems(List.of(item));
+
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(pool.submit(() -> {
+                start.await();
+                while (true) {
+                    try {
+                        orderService.createOrder(request);
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        return null;
+                    }
+                }
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+        flusher.shutdown();
+        flashSaleStock.shutdown();
+
+        return new Result(sold.get(), productWrites.get(), sold.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed);
+    }
+
+    private <T> T writeHotDocument(ReentrantLock hotDocument, AtomicInteger productWrites, Supplier<T> write) {
+        hotDocument.lock();
+        try {
+            productWrites.incrementAndGet();
+            LockSupport.parkNanos(DOCUMENT_WRITE_NANOS);
+            return write.get();
+        } finally {
+            hotDocument.unlock();
+        }
+    }
+
+    private Product product(int quantity) {
+        Product product = new Product();
+        product.setProductId(PRODUCT_ID);
+        product.setProductName("Hot Product");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(quantity);
+        product.setInStock(quantity > 0);
+        return product;
+    }
+
+    private record Result(int sold, int productWrites, double ordersPerSecond) {
+
+        void print(String mode) {
+            System.out.printf("%-22s %-10d %-14d %-12.0f%n", mode, sold, productWrites, ordersPerSecond);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.onlinestorebackend.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Birliktelik matrisi kurulum süresi / sipariş sayısı ölçümü (sıralı tarama vs fork/join).
+ * Normal test koşusunda çalışmaz: gradle test -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FrequentlyBoughtTogetherBenchmarkTest {
+
+    private static final int[] ORDER_COUNTS = {10_000, 100_000, 500_000};
+    private static final int PRODUCTS = 5_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void buildTimeByOrderCount() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.printf("%-10s %-14s %-14s %-8s%n", "orders", "sequential ms", "fork/join ms", "speedup");
+        for (int orders : ORDER_COUNTS) {
+            List<List<String>> baskets = FrequentlyBoughtTogetherIndexTest.randomBaskets(orders, PRODUCTS, 42);
+            // Isınma
+            FrequentlyBoughtTogetherIndex.buildSequential(baskets);
+            FrequentlyBoughtTogetherIndex.build(baskets, pool);
+
+            long sequential = bestOf(() -> FrequentlyBoughtTogetherIndex.buildSequential(baskets));
+            long parallel = bestOf(() -> FrequentlyBoughtTogetherIndex.build(baskets, pool));
+            System.out.printf("%-10d %-14d %-14d %.2fx%n", orders,
+                    TimeUnit.NANOSECONDS.toMillis(sequential), TimeUnit.NANOSECONDS.toMillis(parallel),
+                    (double) sequential / parallel);
+        }
+    }
+
+    private long bestOf(Runnable build) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            build.run();
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        return best;
+    }
+}
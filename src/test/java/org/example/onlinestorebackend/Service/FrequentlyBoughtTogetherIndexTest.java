@@ -0,0 +1,110 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Entity.Order;
+import org.example.onlinestorebackend.Entity.OrderItem;
+import org.example.onlinestorebackend.Repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FrequentlyBoughtTogetherIndexTest {
+
+    @Mock private OrderRepository orderRepository;
+
+    private FrequentlyBoughtTogetherIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FrequentlyBoughtTogetherIndex(orderRepository, ForkJoinPool.commonPool());
+    }
+
+    @Test
+    void rebuild_countsPairsAcrossOrders() {
+        // Given
+        when(orderRepository.findProductIdsOfActiveOrders()).thenReturn(List.of(
+                order("phone", "case", "charger"),
+                order("phone", "case"),
+                order("phone", "charger", "phone"),
+                order("laptop")));
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertEquals(List.of(Map.entry("case", 2L), Map.entry("charger", 2L)), index.related("phone", 5));
+        assertEquals(List.of(Map.entry("phone", 2L)), index.related("case", 1));
+        assertTrue(index.related("laptop", 5).isEmpty());
+    }
+
+    @Test
+    void recordOrderAndCancellation_updateCountsIncrementally() {
+        // Given
+        when(orderRepository.findProductIdsOfActiveOrders()).thenReturn(List.of(order("phone", "case")));
+        index.rebuild();
+        Order order = order("phone", "charger");
+
+        // When
+        index.recordOrder(order);
+        index.recordOrder(order("phone", "charger"));
+        index.recordCancellation(order);
+        index.recordCancellation(order("phone", "case"));
+
+        // Then
+        assertEquals(List.of(Map.entry("charger", 1L)), index.related("phone", 5));
+        assertTrue(index.related("case", 5).isEmpty());
+    }
+
+    @Test
+    void build_forkJoinMatchesSequentialScan() {
+        // Given
+        List<List<String>> baskets = randomBaskets(10_000, 200, 7);
+
+        // When
+        Map<String, Map<String, Long>> parallel = FrequentlyBoughtTogetherIndex.build(baskets, new ForkJoinPool(4));
+        Map<String, Map<String, Long>> sequential = FrequentlyBoughtTogetherIndex.buildSequential(baskets);
+
+        // Then
+        assertEquals(sequential, parallel);
+    }
+
+    static List<List<String>> randomBaskets(int orders, int products, long seed) {
+        Random random = new Random(seed);
+        List<List<String>> baskets = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            int size = 1 + random.nextInt(5);
+            List<String> basket = new ArrayList<>();
+            while (basket.size() < size) {
+                String productId = "p" + random.nextInt(products);
+                if (!basket.contains(productId)) {
+                    basket.add(productId);
+                }
+            }
+            baskets.add(basket);
+        }
+        return baskets;
+    }
+
+    private Order order(String... productIds) {
+        Order order = new Order();
+        List<OrderItem> items = new ArrayList<>();
+        for (String productId : productIds) {
+            OrderItem item = new OrderItem();
+            item.setProductId(productId);
+            items.add(item);
+        }
+        order.setItems(items);
+        return order;
+    }
+}
@@ -0,0 +1,298 @@
+package org.example.onlinestorebackend.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.onlinestorebackend.Entity.IdempotencyRecord;
+import org.example.onlinestorebackend.Entity.Order;
+import org.example.onlinestorebackend.Repository.IdempotencyRecordRepository;
+import org.example.onlinestorebackend.exception.IdempotencyConflictException;
+import org.example.onlinestorebackend.exception.InsufficientStockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "orders.from-cart";
+    private static final Map<String, String> BODY = Map.of("shippingAddress", "Istanbul");
+
+    @Mock(strictness = Mock.Strictness.LENIENT)
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        // Repository, idempotency_keys koleksiyonunun bellekteki karşılığı
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            if (records.putIfAbsent(record.getId(), record) != null) {
+                throw new DuplicateKeyException("duplicate key: " + record.getId());
+            }
+            return record;
+        });
+        when(idempotencyRecordRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(records.get(invocation.<String>getArgument(0))));
+        when(idempotencyRecordRepository.complete(anyString(), anyString(), anyInt(), anyString())).thenAnswer(invocation -> {
+            IdempotencyRecord record = records.get(invocation.<String>getArgument(0));
+            if (record == null || !record.getOwner().equals(invocation.getArgument(1))) {
+                return false;
+            }
+            record.setStatus(IdempotencyRecord.COMPLETED);
+            record.setResponseStatus(invocation.getArgument(2));
+            record.setResponseBody(invocation.getArgument(3));
+            return true;
+        });
+        doAnswer(invocation -> records.computeIfPresent(invocation.getArgument(0),
+                (id, record) -> record.getOwner().equals(invocation.getArgument(1)) ? null : record))
+                .when(idempotencyRecordRepository).release(anyString(), anyString());
+        when(idempotencyRecordRepository.extendLease(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            IdempotencyRecord record = records.get(invocation.<String>getArgument(0));
+            if (record == null || !record.getOwner().equals(invocation.getArgument(1))
+                    || !IdempotencyRecord.IN_PROGRESS.equals(record.getStatus())) {
+                return false;
+            }
+            record.setLockedUntil(invocation.getArgument(2));
+            return true;
+        });
+        when(idempotencyRecordRepository.takeOver(anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+            IdempotencyRecord record = records.get(invocation.<String>getArgument(0));
+            Instant takeOverAt = invocation.getArgument(2);
+            if (record == null || !record.getLockedUntil().isBefore(takeOverAt)) {
+                return null;
+            }
+            record.setOwner(invocation.getArgument(1));
+            record.setLockedUntil(invocation.getArgument(3));
+            return record;
+        });
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, objectMapper, 60, 5_000, now::get);
+    }
+
+    @Test
+    void execute_withoutKey_runsActionWithoutStoringAnything() {
+        // When
+        idempotencyService.execute(SCOPE, "buyer", null, BODY, Order.class, createOrder());
+        idempotencyService.execute(SCOPE, "buyer", " ", BODY, Order.class, createOrder());
+
+        // Then
+        assertEquals(2, executions.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void execute_sameKeyTwice_replaysStoredResponseWithoutRunningActionAgain() {
+        // When
+        ResponseEntity<Order> first = idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, createOrder());
+        ResponseEntity<Order> second = idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, createOrder());
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, second.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_sameKeyDifferentUsers_areIndependent() {
+        // When
+        idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, createOrder());
+        idempotencyService.execute(SCOPE, "other-buyer", "key-1", BODY, Order.class, createOrder());
+
+        // Then
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void execute_sameKeyDifferentBody_throwsConflict() {
+        // Given
+        idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, createOrder());
+
+        // When & Then
+        assertThrows(IdempotencyConflictException.class, () -> idempotencyService.execute(SCOPE, "buyer", "key-1",
+                Map.of("shippingAddress", "Ankara"), Order.class, createOrder()));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_actionFails_releasesKeySoRetryRunsAgain() {
+        // Given
+        assertThrows(InsufficientStockException.class, () -> idempotencyService.execute(SCOPE, "buyer", "key-1", BODY,
+                Order.class, () -> {
+                    throw new InsufficientStockException("Insufficient stock for product: Phone");
+                }));
+
+        // When
+        ResponseEntity<Order> retry = idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, createOrder());
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+    }
+
+    @Test
+    void execute_concurrentDuplicates_runActionOnce() throws Exception {
+        // Given
+        int duplicates = 8;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(duplicates);
+        Supplier<ResponseEntity<Order>> slowCreate = () -> {
+            started.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return createOrder().get();
+        };
+
+        // When
+        Future<ResponseEntity<Order>> first = pool.submit(
+                () -> idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, slowCreate));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<?>[] others = new Future<?>[duplicates - 1];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = pool.submit(() -> idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, slowCreate));
+        }
+        finish.countDown();
+
+        // Then
+        Order order = first.get(5, TimeUnit.SECONDS).getBody();
+        for (Future<?> other : others) {
+            assertEquals(order, ((ResponseEntity<?>) other.get(5, TimeUnit.SECONDS)).getBody());
+        }
+        pool.shutdown();
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_inProgressOnAnotherNode_throwsConflictAfterWaiting() {
+        // Given: başka bir node aynı anahtarı işliyor
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, new ObjectMapper(), 60, 0, now::get);
+        records.put(SCOPE + ":buyer:key-1", inProgressRecord(Instant.ofEpochMilli(now.get()).plusSeconds(30)));
+
+        // When & Then
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, createOrder()));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void execute_abandonedInProgressRecord_isTakenOver() {
+        // Given: işleyen node yanıt yazamadan çökmüş, kilit süresi geçmiş
+        records.put(SCOPE + ":buyer:key-1", inProgressRecord(Instant.ofEpochMilli(now.get()).minusSeconds(1)));
+
+        // When
+        ResponseEntity<Order> response = idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, createOrder());
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(IdempotencyRecord.COMPLETED, records.get(SCOPE + ":buyer:key-1").getStatus());
+    }
+
+    @Test
+    void execute_actionOutlivesLease_isRenewedSoAnotherNodeCannotTakeOver() {
+        // Given: ödeme lease süresinden (60 sn) uzun sürüyor, arada zamanlanmış yenileme çalışıyor
+        String id = SCOPE + ":buyer:key-1";
+        Supplier<ResponseEntity<Order>> slowCreate = () -> {
+            now.addAndGet(50_000);
+            idempotencyService.renewLeases();
+            now.addAndGet(50_000);
+            // Başka bir node'un devralma denemesi
+            assertNull(idempotencyRecordRepository.takeOver(id, "other-node", Instant.ofEpochMilli(now.get()),
+                    Instant.ofEpochMilli(now.get() + 60_000)));
+            return createOrder().get();
+        };
+
+        // When
+        idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, slowCreate);
+
+        // Then
+        assertEquals(IdempotencyRecord.COMPLETED, records.get(id).getStatus());
+        assertNotEquals("other-node", records.get(id).getOwner());
+    }
+
+    @Test
+    void renewLeases_afterRequestFinished_doesNotTouchRecord() {
+        // Given
+        idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, createOrder());
+
+        // When
+        idempotencyService.renewLeases();
+
+        // Then
+        verify(idempotencyRecordRepository, never()).extendLease(anyString(), anyString(), any());
+    }
+
+    @Test
+    void execute_leaseLostWhileRunning_doesNotOverwriteNewOwnersRecord() {
+        // Given: yenileme gecikti ve kayıt başka node tarafından devralındı
+        String id = SCOPE + ":buyer:key-1";
+        Supplier<ResponseEntity<Order>> slowCreate = () -> {
+            now.addAndGet(61_000);
+            assertNotNull(idempotencyRecordRepository.takeOver(id, "other-node", Instant.ofEpochMilli(now.get()),
+                    Instant.ofEpochMilli(now.get() + 60_000)));
+            idempotencyService.renewLeases();
+            return createOrder().get();
+        };
+
+        // When
+        idempotencyService.execute(SCOPE, "buyer", "key-1", BODY, Order.class, slowCreate);
+
+        // Then
+        assertEquals("other-node", records.get(id).getOwner());
+        assertEquals(IdempotencyRecord.IN_PROGRESS, records.get(id).getStatus());
+        assertEquals(Instant.ofEpochMilli(now.get() + 60_000), records.get(id).getLockedUntil());
+    }
+
+    private IdempotencyRecord inProgressRecord(Instant lockedUntil) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(SCOPE + ":buyer:key-1");
+        record.setFingerprint(idempotencyService.fingerprint(SCOPE, BODY));
+        record.setStatus(IdempotencyRecord.IN_PROGRESS);
+        record.setOwner("crashed-node");
+        record.setLockedUntil(lockedUntil);
+        return record;
+    }
+
+    private Supplier<ResponseEntity<Order>> createOrder() {
+        return () -> {
+            Order order = new Order();
+            order.setOrderId("order-" + executions.incrementAndGet());
+            order.setCustomerId("buyer");
+            order.setOrderDate(LocalDateTime.of(2026, 1, 1, 12, 0));
+            order.setTotalPrice(20.0);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        };
+    }
+}
@@ -0,0 +1,270 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Entity.Cart;
+import org.example.onlinestorebackend.Entity.CartItem;
+import org.example.onlinestorebackend.Entity.InventoryReservation;
+import org.example.onlinestorebackend.Repository.CartRepository;
+import org.example.onlinestorebackend.Repository.InventoryReservationRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.exception.InsufficientStockException;
+import org.example.onlinestorebackend.exception.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryReservationServiceTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long TTL_SECONDS = 600;
+
+    // Temizleyici her taramada RELEASING'de kalanları da sorar; testler sadece ilgilendikleri çağrıları stub'lar
+    @Mock(strictness = Mock.Strictness.LENIENT) private InventoryReservationRepository reservationRepository;
+    @Mock private CartRepository cartRepository;
+    @Mock private ProductRepository productRepository;
+    @Mock private ProductCache productCache;
+
+    private InventoryReservationService reservationService;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        reservationService = new InventoryReservationService(reservationRepository, cartRepository, productRepository,
+                productCache, TTL_SECONDS, () -> NOW);
+
+        cart = new Cart();
+        cart.setUserId("u1");
+        cart.setItems(new ArrayList<>(List.of(cartItem("p1", "Phone", 2), cartItem("p2", "Case", 1))));
+    }
+
+    @Test
+    void reserveCart_movesCartQuantitiesToReservationWithTtl() {
+        // Given
+        when(cartRepository.findByUserId("u1")).thenReturn(Optional.of(cart));
+        when(reservationRepository.findFirstByUserIdAndStatus("u1", InventoryReservation.ACTIVE)).thenReturn(Optional.empty());
+        when(reservationRepository.save(any(InventoryReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        InventoryReservation reservation = reservationService.reserveCart("u1");
+
+        // Then
+        verify(productRepository).reserveStocks(Map.of("p1", 2, "p2", 1));
+        verify(productCache).evictAll(Set.of("p1", "p2"));
+        assertEquals(InventoryReservation.ACTIVE, reservation.getStatus());
+        assertEquals(Map.of("p1", 2, "p2", 1), reservation.getItems());
+        assertEquals(Instant.ofEpochMilli(NOW).plusSeconds(TTL_SECONDS), reservation.getExpiresAt());
+    }
+
+    @Test
+    void reserveCart_insufficientStock_throwsWithoutSavingReservation() {
+        // Given
+        when(cartRepository.findByUserId("u1")).thenReturn(Optional.of(cart));
+        when(reservationRepository.findFirstByUserIdAndStatus("u1", InventoryReservation.ACTIVE)).thenReturn(Optional.empty());
+        when(productRepository.reserveStocks(anyMap())).thenReturn("p2");
+
+        // When & Then
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> reservationService.reserveCart("u1"));
+        assertTrue(exception.getMessage().contains("Case"));
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void reserveCart_existingActiveReservation_releasedBeforeReservingAgain() {
+        // Given
+        InventoryReservation previous = reservation("r0", Map.of("p1", 5));
+        when(cartRepository.findByUserId("u1")).thenReturn(Optional.of(cart));
+        when(reservationRepository.findFirstByUserIdAndStatus("u1", InventoryReservation.ACTIVE)).thenReturn(Optional.of(previous));
+        when(reservationRepository.changeStatus(eq("r0"), eq(InventoryReservation.ACTIVE), eq(InventoryReservation.RELEASING), any()))
+                .thenReturn(true);
+        when(reservationRepository.save(any(InventoryReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        reservationService.reserveCart("u1");
+
+        // Then
+        var inOrder = inOrder(productRepository);
+        inOrder.verify(productRepository).releaseReservedStocks(Map.of("p1", 5));
+        inOrder.verify(productRepository).reserveStocks(Map.of("p1", 2, "p2", 1));
+    }
+
+    @Test
+    void reserveCart_saveFails_releasesReservedStock() {
+        // Given
+        when(cartRepository.findByUserId("u1")).thenReturn(Optional.of(cart));
+        when(reservationRepository.findFirstByUserIdAndStatus("u1", InventoryReservation.ACTIVE)).thenReturn(Optional.empty());
+        when(reservationRepository.save(any(InventoryReservation.class))).thenThrow(new IllegalStateException("write failed"));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> reservationService.reserveCart("u1"));
+        verify(productRepository).releaseReservedStocks(Map.of("p1", 2, "p2", 1));
+    }
+
+    @Test
+    void reserveCart_emptyCart_throwsInvalidRequestException() {
+        // Given
+        cart.setItems(new ArrayList<>());
+        when(cartRepository.findByUserId("u1")).thenReturn(Optional.of(cart));
+
+        // When & Then
+        assertThrows(InvalidRequestException.class, () -> reservationService.reserveCart("u1"));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void releaseExpired_releasesOnlyReservationsItManagesToClose() {
+        // Given: r2 temizleyiciden hemen önce ödemeyle onaylanmış
+        InventoryReservation r1 = reservation("r1", Map.of("p1", 2));
+        InventoryReservation r2 = reservation("r2", Map.of("p1", 3));
+        InventoryReservation r3 = reservation("r3", Map.of("p1", 1, "p2", 4));
+        when(reservationRepository.findByStatusAndExpiresAtLessThanEqual(eq(InventoryReservation.ACTIVE),
+                eq(Instant.ofEpochMilli(NOW)), any())).thenReturn(List.of(r1, r2, r3));
+        when(reservationRepository.changeStatus(anyString(), eq(InventoryReservation.ACTIVE),
+                eq(InventoryReservation.RELEASING), any()))
+                .thenAnswer(invocation -> !"r2".equals(invocation.getArgument(0)));
+
+        // When
+        int released = reservationService.releaseExpired();
+
+        // Then
+        assertEquals(2, released);
+        var inOrder = inOrder(productRepository, reservationRepository);
+        inOrder.verify(productRepository).releaseReservedStocks(Map.of("p1", 3, "p2", 4));
+        inOrder.verify(reservationRepository).changeStatus("r1", InventoryReservation.RELEASING,
+                InventoryReservation.RELEASED, Instant.ofEpochMilli(NOW));
+        inOrder.verify(reservationRepository).changeStatus("r3", InventoryReservation.RELEASING,
+                InventoryReservation.RELEASED, Instant.ofEpochMilli(NOW));
+        verify(reservationRepository, never()).changeStatus("r2", InventoryReservation.RELEASING,
+                InventoryReservation.RELEASED, Instant.ofEpochMilli(NOW));
+    }
+
+    @Test
+    void releaseExpired_stockReleaseFails_returnsReservationsToActive() {
+        // Given
+        InventoryReservation r1 = reservation("r1", Map.of("p1", 2));
+        when(reservationRepository.findByStatusAndExpiresAtLessThanEqual(eq(InventoryReservation.ACTIVE),
+                eq(Instant.ofEpochMilli(NOW)), any())).thenReturn(List.of(r1));
+        when(reservationRepository.changeStatus("r1", InventoryReservation.ACTIVE, InventoryReservation.RELEASING,
+                Instant.ofEpochMilli(NOW))).thenReturn(true);
+        doThrow(new IllegalStateException("write failed")).when(productRepository).releaseReservedStocks(anyMap());
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> reservationService.releaseExpired());
+        verify(reservationRepository).changeStatus("r1", InventoryReservation.RELEASING, InventoryReservation.ACTIVE,
+                Instant.ofEpochMilli(NOW));
+        verify(reservationRepository, never()).changeStatus("r1", InventoryReservation.RELEASING,
+                InventoryReservation.RELEASED, Instant.ofEpochMilli(NOW));
+    }
+
+    @Test
+    void releaseExpired_stuckReleasingReservation_isReactivatedAndReleased() {
+        // Given: iade sırasında çöken node'dan RELEASING'de kalmış rezervasyon
+        InventoryReservation stuck = reservation("r1", Map.of("p1", 2));
+        stuck.setStatus(InventoryReservation.RELEASING);
+        Instant stuckBefore = Instant.ofEpochMilli(NOW - InventoryReservationService.STUCK_RELEASE_GRACE_MILLIS);
+        when(reservationRepository.findByStatusAndClosedAtLessThanEqual(eq(InventoryReservation.RELEASING),
+                eq(stuckBefore), any())).thenReturn(List.of(stuck));
+        when(reservationRepository.findByStatusAndExpiresAtLessThanEqual(eq(InventoryReservation.ACTIVE),
+                eq(Instant.ofEpochMilli(NOW)), any())).thenReturn(List.of(reservation("r1", Map.of("p1", 2))));
+        when(reservationRepository.changeStatus("r1", InventoryReservation.ACTIVE, InventoryReservation.RELEASING,
+                Instant.ofEpochMilli(NOW))).thenReturn(true);
+
+        // When
+        int released = reservationService.releaseExpired();
+
+        // Then
+        assertEquals(1, released);
+        var inOrder = inOrder(reservationRepository, productRepository);
+        inOrder.verify(reservationRepository).changeStatus("r1", InventoryReservation.RELEASING,
+                InventoryReservation.ACTIVE, Instant.ofEpochMilli(NOW));
+        inOrder.verify(productRepository).releaseReservedStocks(Map.of("p1", 2));
+    }
+
+    @Test
+    void releaseExpired_expiredReservationMidRelease_isLeftAlone() {
+        // Given: süresi çoktan dolmuş ama iadesi az önce başlamış (başka node'da sürüyor) rezervasyon
+        InventoryReservation releasing = reservation("r1", Map.of("p1", 2));
+        releasing.setStatus(InventoryReservation.RELEASING);
+        releasing.setExpiresAt(Instant.ofEpochMilli(NOW - 10 * InventoryReservationService.STUCK_RELEASE_GRACE_MILLIS));
+        releasing.setClosedAt(Instant.ofEpochMilli(NOW - 1_000));
+        when(reservationRepository.findByStatusAndClosedAtLessThanEqual(eq(InventoryReservation.RELEASING), any(), any()))
+                .thenAnswer(invocation -> invocation.<Instant>getArgument(1).isBefore(releasing.getClosedAt())
+                        ? List.of() : List.of(releasing));
+
+        // When
+        int released = reservationService.releaseExpired();
+
+        // Then
+        assertEquals(0, released);
+        verify(reservationRepository, never()).changeStatus(eq("r1"), eq(InventoryReservation.RELEASING), any(), any());
+        verify(reservationRepository, never()).findByStatusAndExpiresAtLessThanEqual(eq(InventoryReservation.RELEASING),
+                any(), any());
+        verify(productRepository, never()).releaseReservedStocks(anyMap());
+    }
+
+    @Test
+    void releaseExpired_fullBatch_readsNextBatch() {
+        // Given
+        List<InventoryReservation> fullBatch = IntStream.range(0, InventoryReservationService.SWEEP_BATCH_SIZE)
+                .mapToObj(i -> reservation("r" + i, Map.of("p1", 1)))
+                .toList();
+        when(reservationRepository.findByStatusAndExpiresAtLessThanEqual(eq(InventoryReservation.ACTIVE), any(), any()))
+                .thenReturn(fullBatch)
+                .thenReturn(List.of());
+        when(reservationRepository.changeStatus(anyString(), any(), any(), any())).thenReturn(true);
+
+        // When
+        int released = reservationService.releaseExpired();
+
+        // Then
+        assertEquals(InventoryReservationService.SWEEP_BATCH_SIZE, released);
+        verify(reservationRepository, times(2)).findByStatusAndExpiresAtLessThanEqual(eq(InventoryReservation.ACTIVE), any(), any());
+        verify(productRepository).releaseReservedStocks(Map.of("p1", InventoryReservationService.SWEEP_BATCH_SIZE));
+    }
+
+    @Test
+    void reactivate_returnsConfirmedReservationToActive() {
+        // Given
+        InventoryReservation reservation = reservation("r1", Map.of("p1", 1));
+
+        // When
+        reservationService.reactivate(reservation);
+        reservationService.reactivate(null);
+
+        // Then
+        verify(reservationRepository).changeStatus("r1", InventoryReservation.CONFIRMED, InventoryReservation.ACTIVE,
+                Instant.ofEpochMilli(NOW));
+        verifyNoMoreInteractions(reservationRepository);
+    }
+
+    private CartItem cartItem(String productId, String productName, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setProductName(productName);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private InventoryReservation reservation(String reservationId, Map<String, Integer> items) {
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setReservationId(reservationId);
+        reservation.setUserId("u1");
+        reservation.setItems(items);
+        reservation.setStatus(InventoryReservation.ACTIVE);
+        return reservation;
+    }
+}
@@ -3,8 +3,11 @@ package org.example.onlinestorebackend.Service;
 import org.example.onlinestorebackend.Dto.CreateOrderRequest;
 import org.example.onlinestorebackend.Entity.Cart;
 import org.example.onlinestorebackend.Entity.CartItem;
+import org.example.onlinestorebackend.Entity.InventoryReservation;
 import org.example.onlinestorebackend.Entity.Order;
+import org.example.onlinestorebackend.Entity.OrderItem;
 import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.User;
 import org.example.onlinestorebackend.exception.InsufficientStockException;
 import org.example.onlinestorebackend.exception.InvalidRequestException;
 import org.example.onlinestorebackend.exception.ResourceNotFoundException;
@@ -19,12 +22,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,6 +56,21 @@ class OrderServiceTest {
     @Mock
     private DeliveryRepository deliveryRepository;
 
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private TrendingProductIndex trendingProductIndex;
+
+    @Mock
+    private FrequentlyBoughtTogetherIndex frequentlyBoughtTogetherIndex;
+
+    @Mock
+    private InventoryReservationService inventoryReservationService;
+
+    @Mock
+    private FlashSaleStock flashSaleStock;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -95,7 +117,7 @@ class OrderServiceTest {
     @Test
     void createOrder_validRequest_returnsOrder() {
         // Given
-        when(productRepository.findById(product.getProductId())).thenReturn(Optional.of(product));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
             order.setOrderId(UUID.randomUUID().toString());
@@ -111,8 +133,9 @@ class OrderServiceTest {
         assertEquals("PROCESSING", result.getStatus());
         assertEquals(1, result.getItems().size());
         assertNotNull(result.getTotalPrice());
-        verify(productRepository).findById(product.getProductId());
-        verify(productRepository).save(any(Product.class));
+        verify(productRepository).findAllById(Set.of(product.getProductId()));
+        verify(productRepository).decrementStocks(Map.of(product.getProductId(), 2), Map.of());
+        verify(productRepository, never()).save(any(Product.class));
         verify(orderRepository).save(any(Order.class));
     }
 
@@ -135,7 +158,7 @@ class OrderServiceTest {
         // Given
         product.setQuantity(1);
         orderRequest.getItems().get(0).setQuantity(5);
-        when(productRepository.findById(product.getProductId())).thenReturn(Optional.of(product));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
 
         // When & Then
         InsufficientStockException exception = assertThrows(InsufficientStockException.class, () -> {
@@ -146,18 +169,172 @@ class OrderServiceTest {
         verify(orderRepository, never()).save(any(Order.class));
     }
 
+    @Test
+    void createOrder_stockTakenConcurrently_throwsWithoutSavingOrder() {
+        // Given: ön kontrolü geçen ikinci ürünün stoğu araya giren başka bir siparişle bitmiş
+        Product second = new Product();
+        second.setProductId(UUID.randomUUID().toString());
+        second.setProductName("Second Product");
+        second.setPrice(new BigDecimal("10.00"));
+        second.setQuantity(1);
+        second.setInStock(true);
+        CreateOrderRequest.OrderItemRequest secondItem = new CreateOrderRequest.OrderItemRequest();
+        secondItem.setProductId(second.getProductId());
+        secondItem.setQuantity(1);
+        orderRequest.setItems(Arrays.asList(orderRequest.getItems().get(0), secondItem));
+
+        User customer = new User();
+        customer.setUserId(customerId);
+        when(userRepository.findByUserId(customerId)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product, second));
+        when(productRepository.decrementStocks(anyMap(), anyMap())).thenReturn(second.getProductId());
+
+        // When & Then
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> orderService.createOrder(orderRequest));
+        assertTrue(exception.getMessage().contains("Second Product"));
+        verify(productRepository).decrementStocks(Map.of(product.getProductId(), 2, second.getProductId(), 1), Map.of());
+        // Önceki satırların telafisi repository'de, aynı bulk akışında yapılır
+        verify(productRepository, never()).restoreStocks(anyMap(), anyMap());
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoInteractions(trendingProductIndex, frequentlyBoughtTogetherIndex, deliveryRepository);
+    }
+
+    @Test
+    void createOrder_orderSaveFails_restoresDecrementedStock() {
+        // Given
+        CreateOrderRequest.OrderItemRequest repeated = new CreateOrderRequest.OrderItemRequest();
+        repeated.setProductId(product.getProductId());
+        repeated.setQuantity(3);
+        orderRequest.setItems(Arrays.asList(orderRequest.getItems().get(0), repeated));
+
+        User customer = new User();
+        customer.setUserId(customerId);
+        when(userRepository.findByUserId(customerId)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(orderRepository.save(any(Order.class))).thenThrow(new IllegalStateException("write failed"));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> orderService.createOrder(orderRequest));
+        // Aynı ürünün satırları tek düşüşte birleştirilir
+        verify(productRepository).decrementStocks(Map.of(product.getProductId(), 5), Map.of());
+        verify(productRepository).restoreStocks(Map.of(product.getProductId(), 5), Map.of());
+        verifyNoInteractions(deliveryRepository);
+    }
+
+    @Test
+    void createOrder_flashSaleProduct_takesFromMemoryWithoutWritingProduct() {
+        // Given: ürün flash sale'de, satılabilir stoğu havuza ayrılmış
+        product.setQuantity(0);
+        product.setInStock(false);
+        Map<String, Integer> quantities = Map.of(product.getProductId(), 2);
+        User customer = new User();
+        customer.setUserId(customerId);
+        when(userRepository.findByUserId(customerId)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(flashSaleStock.isManaged(product.getProductId())).thenReturn(true);
+        when(flashSaleStock.remaining(product.getProductId())).thenReturn(10);
+        when(flashSaleStock.managedPart(eq(quantities), anySet())).thenReturn(quantities);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        orderService.createOrder(orderRequest);
+
+        // Then
+        verify(flashSaleStock).take(quantities);
+        verify(productRepository).decrementStocks(Map.of(), Map.of());
+        verify(flashSaleStock, never()).giveBack(anyMap());
+    }
+
+    @Test
+    void createOrder_flashSaleProduct_orderSaveFails_givesUnitsBack() {
+        // Given
+        Map<String, Integer> quantities = Map.of(product.getProductId(), 2);
+        User customer = new User();
+        customer.setUserId(customerId);
+        when(userRepository.findByUserId(customerId)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(flashSaleStock.managedPart(eq(quantities), anySet())).thenReturn(quantities);
+        when(orderRepository.save(any(Order.class))).thenThrow(new IllegalStateException("write failed"));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> orderService.createOrder(orderRequest));
+        verify(flashSaleStock).giveBack(quantities);
+        verify(productRepository).restoreStocks(Map.of(), Map.of());
+    }
+
+    @Test
+    void createOrder_flashSalePoolEmpty_throwsWithoutTouchingDatabaseStock() {
+        // Given
+        Map<String, Integer> quantities = Map.of(product.getProductId(), 2);
+        User customer = new User();
+        customer.setUserId(customerId);
+        when(userRepository.findByUserId(customerId)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(flashSaleStock.managedPart(eq(quantities), anySet())).thenReturn(quantities);
+        when(flashSaleStock.take(quantities)).thenReturn(product.getProductId());
+
+        // When & Then
+        assertThrows(InsufficientStockException.class, () -> orderService.createOrder(orderRequest));
+        verify(productRepository, never()).decrementStocks(anyMap(), anyMap());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createOrder_unknownProduct_throwsBeforeTouchingStock() {
+        // Given
+        User customer = new User();
+        customer.setUserId(customerId);
+        when(userRepository.findByUserId(customerId)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of());
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> orderService.createOrder(orderRequest));
+        verify(productRepository, never()).decrementStocks(anyMap(), anyMap());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void cancelOrder_restoresStockWithoutRewritingProduct() {
+        // Given
+        User customer = new User();
+        customer.setUserId(customerId);
+        customer.setUsername("buyer");
+        OrderItem item = new OrderItem();
+        item.setProductId(product.getProductId());
+        item.setQuantity(3);
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setCustomerId(customerId);
+        order.setStatus("PROCESSING");
+        order.setItems(List.of(item));
+        when(orderRepository.findByOrderId(order.getOrderId())).thenReturn(Optional.of(order));
+        when(userRepository.findByUsername("buyer")).thenReturn(Optional.of(customer));
+        when(productRepository.restoreStock(product.getProductId(), 3, 0)).thenReturn(product);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Order result = orderService.cancelOrder(order.getOrderId(), "buyer");
+
+        // Then
+        assertEquals("CANCELLED", result.getStatus());
+        verify(productRepository).restoreStock(product.getProductId(), 3, 0);
+        verify(productRepository, never()).findById(anyString());
+        verify(productRepository, never()).save(any(Product.class));
+        verify(productCache).evict(product.getProductId());
+    }
+
     @Test
     void createOrderFromCart_validCart_returnsOrderAndClearsCart() {
         // Given
         when(cartRepository.findByUserId(customerId)).thenReturn(Optional.of(cart));
-        when(productRepository.findById(product.getProductId())).thenReturn(Optional.of(product));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
             order.setOrderId(UUID.randomUUID().toString());
             return order;
         });
-        when(deliveryRepository.save(any(org.example.onlinestorebackend.Entity.Delivery.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(deliveryRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
         when(cartRepository.save(any(Cart.class))).thenReturn(cart);
 
         // When
@@ -171,6 +348,103 @@ class OrderServiceTest {
         assertEquals(BigDecimal.ZERO, cart.getTotalPrice());
         verify(cartRepository).save(any(Cart.class));
         verify(orderRepository).save(any(Order.class));
+        verify(productRepository).decrementStocks(Map.of(product.getProductId(), cartItem.getQuantity()), Map.of());
+        verify(deliveryRepository).saveAll(argThat(deliveries -> deliveries.spliterator().getExactSizeIfKnown() == 1));
+        verify(deliveryRepository, never()).save(any());
+    }
+
+    @Test
+    void createOrderFromCart_withReservation_usesReservedUnitsAndConfirms() {
+        // Given: kullanıcının checkout'ta ayırdığı 2 adet dışında satılabilir stok kalmamış
+        product.setQuantity(0);
+        product.setInStock(false);
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setReservationId("reservation-1");
+        reservation.setItems(Map.of(product.getProductId(), 2));
+        when(cartRepository.findByUserId(customerId)).thenReturn(Optional.of(cart));
+        when(inventoryReservationService.claim(customerId)).thenReturn(reservation);
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Order result = orderService.createOrderFromCart(customerId, "Istanbul");
+
+        // Then
+        verify(productRepository).decrementStocks(Map.of(product.getProductId(), 2), Map.of(product.getProductId(), 2));
+        verify(inventoryReservationService).confirm(reservation, result.getOrderId());
+        verify(inventoryReservationService, never()).reactivate(any());
+    }
+
+    @Test
+    void createOrderFromCart_insideTransaction_recordsIndexesOnlyAfterCommit() {
+        // Given
+        when(cartRepository.findByUserId(customerId)).thenReturn(Optional.of(cart));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            Order result = orderService.createOrderFromCart(customerId, "Istanbul");
+
+            // Then: commit olmadan bellek içi indeksler değişmez
+            verifyNoInteractions(trendingProductIndex, frequentlyBoughtTogetherIndex);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(trendingProductIndex).recordOrder(eq(result), anyMap());
+            verify(frequentlyBoughtTogetherIndex).recordOrder(result);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void createOrderFromCart_cartSaveFails_doesNotRecordOrderInIndexes() {
+        // Given
+        when(cartRepository.findByUserId(customerId)).thenReturn(Optional.of(cart));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cartRepository.save(any(Cart.class))).thenThrow(new IllegalStateException("write failed"));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> orderService.createOrderFromCart(customerId, "Istanbul"));
+        verifyNoInteractions(trendingProductIndex, frequentlyBoughtTogetherIndex);
+    }
+
+    @Test
+    void createOrderFromCart_stockFailsAfterClaim_reactivatesReservation() {
+        // Given
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setReservationId("reservation-1");
+        reservation.setItems(Map.of(product.getProductId(), 1));
+        when(cartRepository.findByUserId(customerId)).thenReturn(Optional.of(cart));
+        when(inventoryReservationService.claim(customerId)).thenReturn(reservation);
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(productRepository.decrementStocks(anyMap(), anyMap())).thenReturn(product.getProductId());
+
+        // When & Then
+        assertThrows(InsufficientStockException.class, () -> orderService.createOrderFromCart(customerId, "Istanbul"));
+        verify(inventoryReservationService).reactivate(reservation);
+        verify(inventoryReservationService, never()).confirm(any(), any());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
+    @Test
+    void createOrderFromCart_reservedProductRemovedFromCartRunsOut_throwsWithItsId() {
+        // Given: rezervasyonda kalan ama sepetten çıkarılmış ürün yüklenen ürünler arasında yok
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setReservationId("reservation-1");
+        reservation.setItems(Map.of(product.getProductId(), 2, "removed-product", 1));
+        when(cartRepository.findByUserId(customerId)).thenReturn(Optional.of(cart));
+        when(inventoryReservationService.claim(customerId)).thenReturn(reservation);
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product));
+        when(productRepository.decrementStocks(anyMap(), anyMap())).thenReturn("removed-product");
+
+        // When & Then
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> orderService.createOrderFromCart(customerId, "Istanbul"));
+        assertTrue(exception.getMessage().contains("removed-product"));
+        verify(productRepository).decrementStocks(Map.of(product.getProductId(), 2), reservation.getItems());
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
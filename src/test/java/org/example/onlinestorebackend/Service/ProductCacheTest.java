@@ -0,0 +1,117 @@
+package org.example.onlinestorebackend.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.onlinestorebackend.Dto.ProductResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        long oneEntry = ProductCache.estimateWeight(dto("p1"));
+        // tam olarak iki kayıt sığar
+        cache = new ProductCache(oneEntry * 2, 60, meterRegistry, now::get);
+    }
+
+    @Test
+    void put_overWeightLimit_evictsLeastRecentlyUsed() {
+        // Given
+        cache.put("p1", dto("p1"), cache.stamp());
+        cache.put("p2", dto("p2"), cache.stamp());
+        cache.get("p1");
+
+        // When
+        cache.put("p3", dto("p3"), cache.stamp());
+
+        // Then
+        assertNotNull(cache.get("p1"));
+        assertNull(cache.get("p2"));
+        assertNotNull(cache.get("p3"));
+        assertEquals(1.0, meterRegistry.get("product.cache.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    void get_callerMutatesReturnedOrStoredDto_cachedEntryIsUnchanged() {
+        // Given
+        ProductResponseDto stored = dto("p1");
+        stored.setQuantity(10);
+        stored.setCategoryNames(new ArrayList<>(List.of("Laptops")));
+        cache.put("p1", stored, cache.stamp());
+
+        // When
+        stored.setProductName("changed after put");
+        ProductResponseDto returned = cache.get("p1");
+        returned.setQuantity(0);
+        returned.getCategoryNames().add("Phones");
+
+        // Then
+        ProductResponseDto again = cache.get("p1");
+        assertNotSame(returned, again);
+        assertEquals("Product p1", again.getProductName());
+        assertEquals(10, again.getQuantity());
+        assertEquals(List.of("Laptops"), again.getCategoryNames());
+    }
+
+    @Test
+    void get_afterTtl_returnsNullAndCountsMiss() {
+        // Given
+        cache.put("p1", dto("p1"), cache.stamp());
+
+        // When
+        now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        // Then
+        assertNull(cache.get("p1"));
+        assertEquals(0, cache.size());
+        assertEquals(1.0, meterRegistry.get("product.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void peek_returnsCachedCopyWithoutCountingRequests() {
+        // Given
+        cache.put("p1", dto("p1"), cache.stamp());
+
+        // When
+        ProductResponseDto hit = cache.peek("p1");
+        ProductResponseDto miss = cache.peek("p2");
+
+        // Then
+        assertEquals("Product p1", hit.getProductName());
+        assertNull(miss);
+        assertEquals(0.0, meterRegistry.get("product.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(0.0, meterRegistry.get("product.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void put_withStampTakenBeforeEvict_isIgnored() {
+        // Given
+        long stamp = cache.stamp();
+
+        // When
+        cache.evict("p1");
+        cache.put("p1", dto("p1"), stamp);
+
+        // Then
+        assertNull(cache.get("p1"));
+    }
+
+    private ProductResponseDto dto(String id) {
+        return ProductResponseDto.builder()
+                .productId(id)
+                .productName("Product " + id)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Entity.ProductCategoryRelation;
+import org.example.onlinestorebackend.Repository.ProductCategoryRelationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCategoryRelationServiceTest {
+
+    @Mock
+    private ProductCategoryRelationRepository relationRepository;
+
+    @InjectMocks
+    private ProductCategoryRelationService productCategoryRelationService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void syncProductCategories_onlyWritesAddedAndRemovedRelations() {
+        // Given
+        when(relationRepository.findByProductIdIn(anyCollection())).thenReturn(List.of(
+                relation("p1", "c1"), relation("p1", "c2")));
+
+        // When
+        productCategoryRelationService.syncProductCategories("p1", List.of("c2", "c3"));
+
+        // Then
+        ArgumentCaptor<Map<String, Collection<String>>> added = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Map<String, Collection<String>>> removed = ArgumentCaptor.forClass(Map.class);
+        verify(relationRepository).applyChanges(added.capture(), removed.capture());
+        assertThat(added.getValue()).containsOnlyKeys("p1");
+        assertThat(added.getValue().get("p1")).containsExactly("c3");
+        assertThat(removed.getValue().get("p1")).containsExactly("c1");
+        verify(relationRepository, never()).deleteByProductId(any());
+        verify(relationRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void syncProductCategories_unchangedCategories_skipsWrite() {
+        // Given
+        when(relationRepository.findByProductIdIn(anyCollection())).thenReturn(List.of(
+                relation("p1", "c1"), relation("p1", "c2")));
+
+        // When
+        productCategoryRelationService.syncProductCategories("p1", List.of("c2", "c1", "c1"));
+
+        // Then
+        verify(relationRepository, never()).applyChanges(anyMap(), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void syncProductCategories_bulk_readsOnceAndWritesOnce() {
+        // Given
+        when(relationRepository.findByProductIdIn(Set.of("p1", "p2", "p3"))).thenReturn(List.of(
+                relation("p1", "c1"), relation("p2", "c1"), relation("p3", "c9")));
+        Map<String, List<String>> desired = new LinkedHashMap<>();
+        desired.put("p1", List.of("c1"));
+        desired.put("p2", List.of("c2"));
+        desired.put("p3", null);
+
+        // When
+        productCategoryRelationService.syncProductCategories(desired);
+
+        // Then
+        ArgumentCaptor<Map<String, Collection<String>>> added = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Map<String, Collection<String>>> removed = ArgumentCaptor.forClass(Map.class);
+        verify(relationRepository).applyChanges(added.capture(), removed.capture());
+        assertThat(added.getValue()).containsOnlyKeys("p2");
+        assertThat(removed.getValue()).containsOnlyKeys("p2", "p3");
+        assertThat(removed.getValue().get("p3")).containsExactly("c9");
+    }
+
+    private ProductCategoryRelation relation(String productId, String categoryId) {
+        return ProductCategoryRelation.builder().productId(productId).categoryId(categoryId).build();
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.onlinestorebackend.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.onlinestorebackend.Dto.ProductResponseDto;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceTest {
+
+    @Mock private ProductRepository productRepository;
+    @Mock private ProductService productService;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper();
+    @InjectMocks private ProductExportService productExportService;
+
+    @Test
+    void exportProducts_ndjson_convertsCursorInBatches() throws Exception {
+        // Given
+        int total = ProductExportService.BATCH_SIZE + 2;
+        when(productRepository.streamAll(ProductExportService.BATCH_SIZE))
+                .thenReturn(IntStream.range(0, total).mapToObj(i -> product("p" + i)));
+        when(productService.convertToDtos(anyList())).thenAnswer(invocation -> {
+            List<Product> batch = invocation.getArgument(0);
+            return batch.stream().map(p -> ProductResponseDto.builder().productId(p.getProductId()).build()).toList();
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        productExportService.exportProducts(out, CatalogFormat.NDJSON);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(total, lines.length);
+        assertTrue(lines[0].contains("\"productId\":\"p0\""));
+        verify(productService, times(2)).convertToDtos(anyList());
+    }
+
+    @Test
+    void exportProducts_csv_writesHeaderAndEscapedRows() throws Exception {
+        // Given
+        when(productRepository.streamAll(ProductExportService.BATCH_SIZE)).thenReturn(Stream.of(product("p1")));
+        when(productService.convertToDtos(anyList())).thenReturn(List.of(ProductResponseDto.builder()
+                .productId("p1")
+                .productName("Desk, oak")
+                .price(new BigDecimal("250.50"))
+                .categoryIds(List.of("c1", "c2"))
+                .build()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        productExportService.exportProducts(out, CatalogFormat.CSV);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("productId,productName,"));
+        assertTrue(lines[1].startsWith("p1,\"Desk, oak\",,,,,250.50,"));
+        assertTrue(lines[1].contains(",c1|c2,"));
+    }
+
+    private Product product(String id) {
+        Product product = new Product();
+        product.setProductId(id);
+        return product;
+    }
+}
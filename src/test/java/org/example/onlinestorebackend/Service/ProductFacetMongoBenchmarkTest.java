@@ -0,0 +1,145 @@
+package org.example.onlinestorebackend.Service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.example.onlinestorebackend.Dto.ProductFacetResult;
+import org.example.onlinestorebackend.Dto.ProductFilter;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.ProductRepositoryCustomImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Katalog büyüklüğüne göre fasetli arama gecikmesi: tek $facet aggregation'ı ile filtre kenar çubuğunun
+ * önceki hali (sayfa + count + kategori başına, fiyat aralığı başına ve stok için ayrı count sorguları).
+ * Ürünlerin bir kısmının fiyatı yoktur; bunların hiçbir fiyat bucket'ına sayılmadığı da doğrulanır.
+ * Normal test koşusunda çalışmaz: gradle test -Dmongo.stress.uri=mongodb://localhost:27017/stock_stress
+ */
+@EnabledIfSystemProperty(named = "mongo.stress.uri", matches = ".+")
+class ProductFacetMongoBenchmarkTest {
+
+    private static final String ID_PREFIX = "facet-bench-";
+    private static final int[] CATALOG_SIZES = {1_000, 10_000, 50_000};
+    private static final int CATEGORIES = 20;
+    private static final List<BigDecimal> BOUNDARIES = List.of(BigDecimal.ZERO, BigDecimal.valueOf(50),
+            BigDecimal.valueOf(100), BigDecimal.valueOf(250), BigDecimal.valueOf(500), BigDecimal.valueOf(1000));
+    private static final int ROUNDS = 10;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ProductRepositoryCustomImpl productRepository;
+
+    @BeforeEach
+    void setUp() {
+        String uri = System.getProperty("mongo.stress.uri");
+        client = MongoClients.create(uri);
+        String database = uri.substring(uri.lastIndexOf('/') + 1).split("\\?")[0];
+        mongoTemplate = new MongoTemplate(client, database.isEmpty() ? "stock_stress" : database);
+        productRepository = new ProductRepositoryCustomImpl(mongoTemplate);
+        IndexOperations indexOps = mongoTemplate.indexOps(Product.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Product.class)
+                .forEach(indexOps::createIndex);
+    }
+
+    @AfterEach
+    void tearDown() {
+        removeBenchmarkProducts();
+        client.close();
+    }
+
+    @Test
+    void facetLatencyByCatalogSize() {
+        ProductFilter filter = ProductFilter.builder().inStock(true).build();
+        Pageable pageable = PageRequest.of(0, 20, Sort.by("finalPrice"));
+
+        System.out.printf("%-10s %-16s %-18s %-14s%n", "products", "$facet ms", "separate ms", "queries (sep.)");
+        for (int size : CATALOG_SIZES) {
+            seed(size);
+
+            double facet = bestOf(() -> productRepository.findFacets(filter, pageable, BOUNDARIES).getTotalElements());
+            double separate = bestOf(() -> separateQueries(pageable));
+            System.out.printf("%-10d %-16.2f %-18.2f %-14d%n", size, facet, separate,
+                    2 + CATEGORIES + BOUNDARIES.size() + 1);
+
+            ProductFacetResult result = productRepository.findFacets(filter, pageable, BOUNDARIES);
+            long bucketed = result.getPriceBucketCounts().values().stream().mapToLong(Long::longValue).sum();
+            assertEquals(result.getTotalElements(), bucketed + result.getNoPriceCount());
+            assertTrue(result.getNoPriceCount() > 0);
+        }
+    }
+
+    // Facet endpoint'inden önce kenar çubuğunun ihtiyaç duyduğu sorgular, her biri ayrı round trip
+    private long separateQueries(Pageable pageable) {
+        Criteria inStock = Criteria.where("inStock").is(true);
+        long total = mongoTemplate.find(Query.query(inStock).with(pageable), Product.class).size();
+        total += mongoTemplate.count(Query.query(inStock), Product.class);
+        for (int c = 0; c < CATEGORIES; c++) {
+            total += mongoTemplate.count(Query.query(Criteria.where("inStock").is(true).and("categoryIds").is("c" + c)),
+                    Product.class);
+        }
+        for (int i = 0; i < BOUNDARIES.size(); i++) {
+            Criteria price = Criteria.where("inStock").is(true).and("finalPrice").gte(BOUNDARIES.get(i));
+            if (i + 1 < BOUNDARIES.size()) {
+                price = price.lt(BOUNDARIES.get(i + 1));
+            }
+            total += mongoTemplate.count(Query.query(price), Product.class);
+        }
+        total += mongoTemplate.count(Query.query(Criteria.where("inStock").is(true).and("finalPrice").is(null)),
+                Product.class);
+        return total;
+    }
+
+    private void seed(int size) {
+        removeBenchmarkProducts();
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setProductId(ID_PREFIX + i);
+            product.setProductName("Facet Product " + i);
+            // Her 10 üründen biri fiyatsız (eski kayıt gibi)
+            if (i % 10 != 0) {
+                BigDecimal price = BigDecimal.valueOf(i % 2000);
+                product.setPrice(price);
+                product.setFinalPrice(price);
+            }
+            product.setQuantity(i % 3 == 0 ? 0 : 10);
+            product.setInStock(i % 3 != 0);
+            product.setCategoryIds(List.of("c" + (i % CATEGORIES)));
+            products.add(product);
+        }
+        mongoTemplate.insert(products, Product.class);
+    }
+
+    private static double bestOf(LongSupplier search) {
+        search.getAsLong();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            search.getAsLong();
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        return best / 1_000_000.0;
+    }
+
+    private void removeBenchmarkProducts() {
+        mongoTemplate.remove(Query.query(Criteria.where("productId").regex("^" + ID_PREFIX)), Product.class);
+    }
+}
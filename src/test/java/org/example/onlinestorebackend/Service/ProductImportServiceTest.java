@@ -0,0 +1,162 @@
+package org.example.onlinestorebackend.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.BsonString;
+import org.example.onlinestorebackend.Dto.ProductImportResultDto;
+import org.example.onlinestorebackend.Entity.Category;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock private ProductRepository productRepository;
+    @Mock private CategorySnapshot categorySnapshot;
+    @Mock private ProductCategoryRelationService productCategoryRelationService;
+    @Mock private ProductSuggestionIndex productSuggestionIndex;
+    @Mock private ProductCache productCache;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper();
+    @InjectMocks private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setCategoryId("cat-1");
+        when(categorySnapshot.all()).thenReturn(Collections.singletonList(category));
+    }
+
+    @Test
+    void importProducts_ndjson_writesValidRowsAndReportsInvalidOnes() {
+        // Given
+        String body = String.join("\n",
+                "{\"productName\":\"Laptop\",\"price\":1000,\"discount\":10,\"quantity\":5,\"categoryIds\":[\"cat-1\"]}",
+                "{\"productName\":\"Phone\",\"price\":500,\"categoryIds\":[\"missing\"]}",
+                "{not json",
+                "",
+                "{\"productId\":\"p-2\",\"productName\":\"Mouse\",\"price\":20}");
+        when(productRepository.bulkUpsert(anyList())).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1,
+                Collections.singletonList(new BulkWriteUpsert(0, new BsonString("x"))), Collections.emptyList()));
+
+        // When
+        ProductImportResultDto result = productImportService.importProducts(stream(body), CatalogFormat.NDJSON);
+
+        // Then
+        assertEquals(4, result.getTotalRows());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getMessage().contains("missing"));
+        assertEquals(3L, result.getErrors().get(1).getLine());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Product>> written = ArgumentCaptor.forClass(List.class);
+        verify(productRepository).bulkUpsert(written.capture());
+        Product laptop = written.getValue().get(0);
+        assertNotNull(laptop.getProductId());
+        assertEquals(new BigDecimal("900.00"), laptop.getFinalPrice());
+        assertTrue(laptop.getInStock());
+        assertEquals("p-2", written.getValue().get(1).getProductId());
+        // Mouse satırında kategori yok: ilişkileri değişmez, cache'i yine de temizlenir
+        verify(productCategoryRelationService).syncProductCategories(argThat((java.util.Map<String, List<String>> map) ->
+                map.size() == 1 && !map.containsKey("p-2")));
+        verify(productCache).evictAll(argThat(ids -> ids.contains("p-2")));
+    }
+
+    @Test
+    void importProducts_missingOptionalColumns_leavesExistingValuesUntouched() {
+        // Given: mevcut ürün için sadece isim ve fiyat verilmiş
+        String body = "productId,productName,price,categoryIds\np-1,Laptop,1000,\n";
+        Product existing = new Product();
+        existing.setProductId("p-1");
+        existing.setDiscount(new BigDecimal("25"));
+        when(productRepository.findDiscountsByProductIdIn(List.of("p-1"))).thenReturn(List.of(existing));
+        when(productRepository.bulkUpsert(anyList())).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1,
+                Collections.emptyList(), Collections.emptyList()));
+
+        // When
+        ProductImportResultDto result = productImportService.importProducts(stream(body), CatalogFormat.CSV);
+
+        // Then
+        assertEquals(0, result.getFailed());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Product>> written = ArgumentCaptor.forClass(List.class);
+        verify(productRepository).bulkUpsert(written.capture());
+        Product laptop = written.getValue().get(0);
+        assertNull(laptop.getCategoryIds());
+        assertNull(laptop.getCategoryNames());
+        assertNull(laptop.getQuantity());
+        assertNull(laptop.getInStock());
+        // finalPrice mevcut indirimle hesaplanır
+        assertEquals(new BigDecimal("25"), laptop.getDiscount());
+        assertEquals(new BigDecimal("750.00"), laptop.getFinalPrice());
+        verify(productCategoryRelationService).syncProductCategories(Collections.emptyMap());
+    }
+
+    @Test
+    void importProducts_csv_mapsColumnsByHeaderAndQuotes() {
+        // Given
+        String body = "\uFEFFproductName,price,quantity,categoryIds,description\n"
+                + "\"Desk, oak\",250.50,0,cat-1,\"Solid \"\"oak\"\" desk\"\n";
+        when(productRepository.bulkUpsert(anyList())).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0,
+                Collections.singletonList(new BulkWriteUpsert(0, new BsonString("x"))), Collections.emptyList()));
+
+        // When
+        ProductImportResultDto result = productImportService.importProducts(stream(body), CatalogFormat.CSV);
+
+        // Then
+        assertEquals(1, result.getTotalRows());
+        assertEquals(0, result.getFailed());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Product>> written = ArgumentCaptor.forClass(List.class);
+        verify(productRepository).bulkUpsert(written.capture());
+        Product desk = written.getValue().get(0);
+        assertEquals("Desk, oak", desk.getProductName());
+        assertEquals("Solid \"oak\" desk", desk.getDescription());
+        assertEquals(List.of("cat-1"), desk.getCategoryIds());
+        assertFalse(desk.getInStock());
+    }
+
+    @Test
+    void importProducts_largeInput_isWrittenInChunks() {
+        // Given
+        int rows = ProductImportService.CHUNK_SIZE + 1;
+        StringBuilder body = new StringBuilder();
+        IntStream.range(0, rows).forEach(i -> body.append("{\"productName\":\"P").append(i).append("\",\"price\":1}\n"));
+        when(productRepository.bulkUpsert(anyList())).thenAnswer(invocation -> BulkWriteResult.acknowledged(
+                0, 0, 0, 0, Collections.emptyList(), Collections.emptyList()));
+
+        // When
+        ProductImportResultDto result = productImportService.importProducts(stream(body.toString()), CatalogFormat.NDJSON);
+
+        // Then
+        assertEquals(rows, result.getTotalRows());
+        verify(productRepository, times(2)).bulkUpsert(anyList());
+        verify(productCategoryRelationService, times(2)).syncProductCategories(anyMap());
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Dto.RatingSummaryDto;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.example.onlinestorebackend.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductRatingServiceTest {
+
+    @Mock private ProductRepository productRepository;
+    @Mock private ProductCache productCache;
+    @InjectMocks private ProductRatingService productRatingService;
+
+    @Test
+    void recordRating_newRating_incrementsSummaryAndEvictsCache() {
+        // When
+        productRatingService.recordRating("p1", null, 8);
+
+        // Then
+        verify(productRepository).applyRatingChange("p1", null, 8);
+        verify(productCache).evict("p1");
+    }
+
+    @Test
+    void recordRating_changedRating_passesPreviousRating() {
+        // When
+        productRatingService.recordRating("p1", 4, 9);
+
+        // Then
+        verify(productRepository).applyRatingChange("p1", 4, 9);
+    }
+
+    @Test
+    void recordRating_sameRating_doesNothing() {
+        // When
+        productRatingService.recordRating("p1", 7, 7);
+
+        // Then
+        verify(productRepository, never()).applyRatingChange(any(), any(), anyInt());
+        verifyNoInteractions(productCache);
+    }
+
+    @Test
+    void getRatingSummary_fillsMissingHistogramBucketsWithZero() {
+        // Given
+        Product product = new Product();
+        product.setRatingSummary(ProductRatingService.summarize(Arrays.asList(10, 10, 7, null)));
+        when(productRepository.findRatingSummaryByProductId("p1")).thenReturn(Optional.of(product));
+
+        // When
+        RatingSummaryDto dto = productRatingService.getRatingSummary("p1");
+
+        // Then
+        assertEquals(3, dto.getCount());
+        assertEquals(27, dto.getSum());
+        assertEquals(9.0, dto.getAverage());
+        assertEquals(10, dto.getHistogram().size());
+        assertEquals(2L, dto.getHistogram().get(10));
+        assertEquals(1L, dto.getHistogram().get(7));
+        assertEquals(0L, dto.getHistogram().get(1));
+    }
+
+    @Test
+    void getRatingSummary_unknownProduct_throwsResourceNotFoundException() {
+        // Given
+        when(productRepository.findRatingSummaryByProductId("missing")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> productRatingService.getRatingSummary("missing"));
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.onlinestorebackend.Service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Katalog büyüklüğüne göre arama gecikmesi: eski index kullanamayan regex araması, $text araması
+ * (sayfa + count, repository'nin yaptığı gibi) ve $text sonuç bulamadığında kullanılan önek yedeği.
+ * Normal test koşusunda çalışmaz: gradle test -Dmongo.stress.uri=mongodb://localhost:27017/stock_stress
+ */
+@EnabledIfSystemProperty(named = "mongo.stress.uri", matches = ".+")
+class ProductSearchMongoBenchmarkTest {
+
+    private static final String ID_PREFIX = "search-bench-";
+    private static final int[] CATALOG_SIZES = {1_000, 10_000, 50_000};
+    private static final String[] WORDS = {"laptop", "phone", "tablet", "monitor", "keyboard", "mouse", "camera",
+            "speaker", "router", "charger", "headset", "printer"};
+    private static final int ROUNDS = 20;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        String uri = System.getProperty("mongo.stress.uri");
+        client = MongoClients.create(uri);
+        String database = uri.substring(uri.lastIndexOf('/') + 1).split("\\?")[0];
+        mongoTemplate = new MongoTemplate(client, database.isEmpty() ? "stock_stress" : database);
+        // Uygulamadaki auto-index-creation'ın karşılığı: entity'deki text index dahil tüm index'ler
+        IndexOperations indexOps = mongoTemplate.indexOps(Product.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Product.class)
+                .forEach(indexOps::createIndex);
+    }
+
+    @AfterEach
+    void tearDown() {
+        removeBenchmarkProducts();
+        client.close();
+    }
+
+    @Test
+    void searchLatencyByCatalogSize() {
+        System.out.printf("%-10s %-14s %-14s %-14s %-10s%n", "products", "regex ms", "$text ms", "prefix ms", "hits");
+        for (int size : CATALOG_SIZES) {
+            List<Product> products = seed(size);
+            ProductSuggestionIndex suggestionIndex = suggestionIndex(products);
+
+            double regex = bestOf(() -> mongoTemplate.find(regexQuery("keyboard"), Product.class).size());
+            double text = bestOf(() -> {
+                Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching("keyboard"))
+                        .sortByScore().with(PageRequest.of(0, 20));
+                int page = mongoTemplate.find(query, Product.class).size();
+                return page + (int) mongoTemplate.count(Query.of(query).limit(0).skip(0), Product.class);
+            });
+            double prefix = bestOf(() -> {
+                List<String> ids = suggestionIndex.productIdsMatchingPrefixes("keyb", 1000);
+                return mongoTemplate.find(Query.query(Criteria.where("productId").in(ids.subList(0, Math.min(20, ids.size())))),
+                        Product.class).size();
+            });
+            int hits = suggestionIndex.productIdsMatchingPrefixes("keyb", Integer.MAX_VALUE).size();
+            System.out.printf("%-10d %-14.2f %-14.2f %-14.2f %-10d%n", size, regex, text, prefix, hits);
+
+            // Yarım kelime $text ile bulunmaz, önek yedeği bulur
+            assertTrue(mongoTemplate.find(TextQuery.queryText(TextCriteria.forDefaultLanguage().matching("keyb")),
+                    Product.class).isEmpty());
+            assertTrue(hits > 0);
+        }
+    }
+
+    private List<Product> seed(int size) {
+        removeBenchmarkProducts();
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setProductId(ID_PREFIX + i);
+            product.setProductName(WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i);
+            product.setModel("M-" + i);
+            product.setDescription("Benchmark " + WORDS[(i * 7) % WORDS.length] + " with accessories");
+            product.setPrice(new BigDecimal("10.00"));
+            product.setQuantity(10);
+            product.setInStock(true);
+            product.setPopularity(i % 100);
+            products.add(product);
+        }
+        mongoTemplate.insert(products, Product.class);
+        return products;
+    }
+
+    private ProductSuggestionIndex suggestionIndex(List<Product> products) {
+        ProductRepository productRepository = mock(ProductRepository.class, withSettings().stubOnly());
+        CategoryRepository categoryRepository = mock(CategoryRepository.class, withSettings().stubOnly());
+        when(productRepository.findAll()).thenReturn(products);
+        ProductSuggestionIndex index = new ProductSuggestionIndex(productRepository, categoryRepository);
+        index.rebuild();
+        return index;
+    }
+
+    // Text index'ten önceki arama: isim veya açıklamada büyük/küçük harf duyarsız regex
+    private static Query regexQuery(String term) {
+        Pattern pattern = Pattern.compile(Pattern.quote(term), Pattern.CASE_INSENSITIVE);
+        return Query.query(new Criteria().orOperator(
+                Criteria.where("productName").regex(pattern),
+                Criteria.where("description").regex(pattern)));
+    }
+
+    private static double bestOf(IntSupplier search) {
+        search.getAsInt();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            search.getAsInt();
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        return best / 1_000_000.0;
+    }
+
+    private void removeBenchmarkProducts() {
+        mongoTemplate.remove(Query.query(Criteria.where("productId").regex("^" + ID_PREFIX)), Product.class);
+    }
+}
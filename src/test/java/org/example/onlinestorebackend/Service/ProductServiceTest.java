@@ -1,13 +1,25 @@
 package org.example.onlinestorebackend.Service;
 
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.onlinestorebackend.Dto.CursorPageDto;
+import org.example.onlinestorebackend.Dto.FacetedSearchResponse;
+import org.example.onlinestorebackend.Dto.ProductFacetResult;
+import org.example.onlinestorebackend.Dto.ProductFilter;
 import org.example.onlinestorebackend.Dto.ProductResponseDto;
+import org.example.onlinestorebackend.Dto.RelatedProductDto;
+import org.example.onlinestorebackend.Dto.ReviewDto;
+import org.example.onlinestorebackend.Dto.ReviewModerationRequest;
+import org.example.onlinestorebackend.Dto.ReviewModerationResultDto;
+import org.example.onlinestorebackend.Dto.TrendingProductDto;
 import org.example.onlinestorebackend.Entity.Category;
 import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Entity.Review;
 import org.example.onlinestorebackend.Entity.User;
-import org.example.onlinestorebackend.Repository.CategoryRepository;
 import org.example.onlinestorebackend.Repository.ProductRepository;
 import org.example.onlinestorebackend.Repository.ReviewRepository;
 import org.example.onlinestorebackend.Repository.UserRepository;
+import org.example.onlinestorebackend.common.CursorCodec;
 import org.example.onlinestorebackend.exception.InvalidRequestException;
 import org.example.onlinestorebackend.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,17 +27,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -40,7 +57,7 @@ class ProductServiceTest {
     private ProductRepository productRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategorySnapshot categorySnapshot;
 
     @Mock
     private ProductCategoryRelationService productCategoryRelationService;
@@ -51,6 +68,18 @@ class ProductServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ProductSuggestionIndex productSuggestionIndex;
+
+    @Mock
+    private TrendingProductIndex trendingProductIndex;
+
+    @Mock
+    private FrequentlyBoughtTogetherIndex frequentlyBoughtTogetherIndex;
+
+    @Spy
+    private ProductCache productCache = new ProductCache(1024 * 1024, 600, new SimpleMeterRegistry(), System::nanoTime);
+
     @InjectMocks
     private ProductService productService;
 
@@ -79,8 +108,6 @@ class ProductServiceTest {
     void getProductById_validId_returnsProductResponseDto() {
         // Given
         when(productRepository.findById(product.getProductId())).thenReturn(Optional.of(product));
-        when(productCategoryRelationService.getCategoryIdsForProduct(product.getProductId()))
-                .thenReturn(Collections.emptyList());
 
         // When
         ProductResponseDto result = productService.getProductById(product.getProductId());
@@ -114,8 +141,6 @@ class ProductServiceTest {
         List<Product> products = Arrays.asList(product);
         Page<Product> productPage = new PageImpl<>(products, pageable, 1);
         when(productRepository.findAll(pageable)).thenReturn(productPage);
-        when(productCategoryRelationService.getCategoryIdsForProduct(anyString()))
-                .thenReturn(Collections.emptyList());
 
         // When
         Page<ProductResponseDto> result = productService.getAllProducts(pageable);
@@ -126,14 +151,157 @@ class ProductServiceTest {
         verify(productRepository).findAll(pageable);
     }
 
+    @Test
+    void getAllProducts_sortByPrice_sortsOnFinalPriceInDatabase() {
+        // Given
+        Pageable pageable = PageRequest.of(3, 10, Sort.by("price").descending());
+        when(productRepository.findAll(any(Pageable.class))).thenReturn(Page.empty());
+
+        // When
+        productService.getAllProducts(pageable);
+
+        // Then
+        verify(productRepository).findAll(PageRequest.of(3, 10, Sort.by("finalPrice").descending()));
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllProducts_readsCategoryNamesFromProductDocument() {
+        // Given
+        product.setCategoryIds(List.of(category.getCategoryId()));
+        product.setCategoryNames(Map.of(category.getCategoryId(), "Electronics"));
+        Product other = new Product();
+        other.setProductId(UUID.randomUUID().toString());
+        other.setProductName("Other Product");
+        other.setCategoryIds(List.of(category.getCategoryId()));
+        other.setCategoryNames(Map.of(category.getCategoryId(), "Electronics"));
+        Pageable pageable = PageRequest.of(0, 10);
+        when(productRepository.findAll(pageable))
+                .thenReturn(new PageImpl<>(Arrays.asList(product, other), pageable, 2));
+
+        // When
+        Page<ProductResponseDto> result = productService.getAllProducts(pageable);
+
+        // Then
+        assertEquals(List.of("Electronics"), result.getContent().get(0).getCategoryNames());
+        assertEquals(List.of(category.getCategoryId()), result.getContent().get(1).getCategoryIds());
+        assertEquals(List.of("Electronics"), result.getContent().get(1).getCategoryNames());
+        verifyNoInteractions(productCategoryRelationService, categorySnapshot);
+    }
+
+    @Test
+    void getProductsByPriceRange_filtersAndPagesInDatabase() {
+        // Given
+        ProductFilter filter = ProductFilter.builder()
+                .minPrice(new BigDecimal("50"))
+                .maxPrice(new BigDecimal("150"))
+                .categoryId(category.getCategoryId())
+                .inStock(true)
+                .build();
+        Pageable pageable = PageRequest.of(2, 20, Sort.by("price"));
+        when(productRepository.findByFilter(eq(filter), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(product), PageRequest.of(2, 20, Sort.by("finalPrice")), 41));
+
+        // When
+        Page<ProductResponseDto> result = productService.getProductsByPriceRange(filter, pageable);
+
+        // Then
+        assertEquals(41, result.getTotalElements());
+        assertEquals(1, result.getContent().size());
+        verify(productRepository).findByFilter(filter, PageRequest.of(2, 20, Sort.by("finalPrice")));
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void getProductsByCategory_pagesAndSortsInDatabase() {
+        // Given
+        Pageable pageable = PageRequest.of(4, 10, Sort.by("popularity").descending());
+        when(categorySnapshot.findById(category.getCategoryId())).thenReturn(Optional.of(category));
+        when(productRepository.findByFilter(any(ProductFilter.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(product), pageable, 41));
+
+        // When
+        Page<ProductResponseDto> result = productService.getProductsByCategory(category.getCategoryId(), pageable);
+
+        // Then
+        assertEquals(41, result.getTotalElements());
+        verify(productRepository).findByFilter(
+                argThat(filter -> category.getCategoryId().equals(filter.getCategoryId())), eq(pageable));
+        verify(productCategoryRelationService, never()).getProductIdsForCategory(anyString());
+        verify(productRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void facetedSearch_mapsFacetCountsAndBucketRanges() {
+        // Given
+        ProductFilter filter = ProductFilter.builder().query("phone").build();
+        Pageable pageable = PageRequest.of(0, 20);
+        ProductFacetResult facets = new ProductFacetResult();
+        facets.getProducts().add(product);
+        facets.setTotalElements(7);
+        facets.getCategoryCounts().put(category.getCategoryId(), 7L);
+        facets.getPriceBucketCounts().put(new BigDecimal("50"), 4L);
+        facets.getPriceBucketCounts().put(new BigDecimal("100"), 1L);
+        facets.getPriceBucketCounts().put(null, 2L);
+        facets.setNoPriceCount(3);
+        facets.setInStockCount(5);
+        List<BigDecimal> boundaries = List.of(new BigDecimal("10"), new BigDecimal("50"), new BigDecimal("100"));
+        when(productRepository.findFacets(filter, pageable, boundaries)).thenReturn(facets);
+        when(categorySnapshot.findById(category.getCategoryId())).thenReturn(Optional.of(category));
+
+        // When
+        FacetedSearchResponse result = productService.facetedSearch(filter, pageable, boundaries);
+
+        // Then
+        assertEquals(7, result.getTotalElements());
+        assertEquals(1, result.getContent().size());
+        assertEquals("Electronics", result.getCategories().get(0).getCategoryName());
+        assertEquals(7, result.getCategories().get(0).getCount());
+        // İlk sınırın altı başta, son sınırın üstü sonda; fiyatı olmayanlar ayrı
+        assertNull(result.getPriceBuckets().get(0).getMin());
+        assertEquals(new BigDecimal("10"), result.getPriceBuckets().get(0).getMax());
+        assertEquals(2, result.getPriceBuckets().get(0).getCount());
+        assertEquals(new BigDecimal("100"), result.getPriceBuckets().get(1).getMax());
+        assertEquals(new BigDecimal("100"), result.getPriceBuckets().get(2).getMin());
+        assertNull(result.getPriceBuckets().get(2).getMax());
+        assertEquals(1, result.getPriceBuckets().get(2).getCount());
+        assertEquals(3, result.getNoPriceCount());
+        assertEquals(5, result.getInStockCount());
+    }
+
+    @Test
+    void getProductsByPriceRange_minAboveMax_throwsInvalidRequestException() {
+        ProductFilter filter = ProductFilter.builder()
+                .minPrice(new BigDecimal("200"))
+                .maxPrice(new BigDecimal("100"))
+                .build();
+
+        assertThrows(InvalidRequestException.class,
+                () -> productService.getProductsByPriceRange(filter, PageRequest.of(0, 10)));
+        verify(productRepository, never()).findByFilter(any(), any());
+    }
+
+    @Test
+    void createProduct_withDiscount_persistsFinalPrice() {
+        // Given
+        product.setPrice(new BigDecimal("200"));
+        product.setDiscount(new BigDecimal("15"));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ProductResponseDto result = productService.createProduct(product);
+
+        // Then
+        assertEquals(new BigDecimal("170.00"), result.getFinalPrice());
+        assertEquals(new BigDecimal("170.00"), product.getFinalPrice());
+    }
+
     @Test
     void createProduct_validProduct_returnsProductResponseDto() {
         // Given
         product.setCategoryIds(Arrays.asList(category.getCategoryId()));
-        when(categoryRepository.findAllById(anyList())).thenReturn(Arrays.asList(category));
+        when(categorySnapshot.findById(category.getCategoryId())).thenReturn(Optional.of(category));
         when(productRepository.save(any(Product.class))).thenReturn(product);
-        when(productCategoryRelationService.getCategoryIdsForProduct(anyString()))
-                .thenReturn(Arrays.asList(category.getCategoryId()));
 
         // When
         ProductResponseDto result = productService.createProduct(product);
@@ -143,15 +311,46 @@ class ProductServiceTest {
         assertEquals(product.getProductName(), result.getProductName());
         verify(productRepository).save(any(Product.class));
         verify(productCategoryRelationService).syncProductCategories(anyString(), anyList());
+        assertEquals(Map.of(category.getCategoryId(), "Electronics"), product.getCategoryNames());
+        assertEquals(List.of("Electronics"), result.getCategoryNames());
+    }
+
+    @Test
+    void updateProduct_writesOnlySubmittedFields() {
+        // Given: istek gövdesi Product olarak bağlanır, popularity varsayılan 0 ile gelir
+        Product update = new Product();
+        update.setProductName("Renamed");
+        update.setCategoryIds(List.of(category.getCategoryId()));
+        when(categorySnapshot.findById(category.getCategoryId())).thenReturn(Optional.of(category));
+        when(productRepository.updateFields(eq(product.getProductId()), anyMap())).thenReturn(product);
+
+        // When
+        productService.updateProduct(product.getProductId(), update);
+
+        // Then
+        verify(productRepository).updateFields(product.getProductId(), Map.of(
+                "productName", "Renamed",
+                "categoryIds", List.of(category.getCategoryId()),
+                "categoryNames", Map.of(category.getCategoryId(), "Electronics")));
+        verify(productRepository, never()).save(any(Product.class));
+        verify(productCategoryRelationService).syncProductCategories(product.getProductId(), List.of(category.getCategoryId()));
+    }
+
+    @Test
+    void updateProduct_missingProduct_throwsResourceNotFoundException() {
+        // Given
+        Product update = new Product();
+        update.setProductName("Renamed");
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> productService.updateProduct("missing", update));
+        verifyNoInteractions(productCategoryRelationService);
     }
 
     @Test
     void updateStock_setsQuantityAndInStock() {
         // Given
-        when(productRepository.findById(product.getProductId())).thenReturn(Optional.of(product));
-        when(productCategoryRelationService.getCategoryIdsForProduct(anyString()))
-                .thenReturn(Collections.emptyList());
-        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.updateFields(eq(product.getProductId()), anyMap())).thenAnswer(invocation -> applyFields(invocation.getArgument(1)));
 
         // When
         ProductResponseDto dto = productService.updateStock(product.getProductId(), 0);
@@ -159,16 +358,15 @@ class ProductServiceTest {
         // Then
         assertEquals(0, dto.getQuantity());
         assertFalse(dto.getInStock());
-        verify(productRepository).save(any(Product.class));
+        // Sadece stok alanları yazılır; rezervasyon ve popülerlik dokümanda olduğu gibi kalır
+        verify(productRepository).updateFields(product.getProductId(), Map.of("quantity", 0, "inStock", false));
+        verify(productRepository, never()).save(any(Product.class));
     }
 
     @Test
     void updateCost_setsCost() {
         // Given
-        when(productRepository.findById(product.getProductId())).thenReturn(Optional.of(product));
-        when(productCategoryRelationService.getCategoryIdsForProduct(anyString()))
-                .thenReturn(Collections.emptyList());
-        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.updateFields(eq(product.getProductId()), anyMap())).thenAnswer(invocation -> applyFields(invocation.getArgument(1)));
 
         // When
         BigDecimal cost = new BigDecimal("12.34");
@@ -176,7 +374,7 @@ class ProductServiceTest {
 
         // Then
         assertEquals(cost, dto.getCost());
-        verify(productRepository).save(any(Product.class));
+        verify(productRepository).updateFields(product.getProductId(), Map.of("cost", cost));
     }
 
     @Test
@@ -189,6 +387,7 @@ class ProductServiceTest {
 
         // Then
         verify(productRepository).deleteById(product.getProductId());
+        verify(productSuggestionIndex).removeProduct(product.getProductId());
     }
 
     @Test
@@ -209,18 +408,344 @@ class ProductServiceTest {
     void searchProducts_withQuery_returnsMatchingProducts() {
         // Given
         String query = "Test";
-        List<Product> products = Arrays.asList(product);
-        when(productRepository.findByProductNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query, query))
-                .thenReturn(products);
-        when(productCategoryRelationService.getCategoryIdsForProduct(anyString()))
-                .thenReturn(Collections.emptyList());
+        Pageable pageable = PageRequest.of(0, 20);
+        when(productRepository.findAllByOrderByScoreDesc(any(TextCriteria.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(Arrays.asList(product), pageable, 1));
 
         // When
-        List<ProductResponseDto> result = productService.searchProducts(query);
+        Page<ProductResponseDto> result = productService.searchProducts(query, pageable);
 
         // Then
         assertNotNull(result);
+        assertEquals(1, result.getTotalElements());
+        assertEquals(product.getProductId(), result.getContent().get(0).getProductId());
+        verify(productRepository).findAllByOrderByScoreDesc(
+                argThat(criteria -> criteria.getCriteriaObject().toJson().contains("Test")), eq(pageable));
+        verifyNoInteractions(productSuggestionIndex);
+    }
+
+    @Test
+    void searchProducts_noWholeWordMatch_fallsBackToNamePrefixes() {
+        // Given: $text "tes" kelimesini bulamaz, önek indeksi bulur
+        Pageable pageable = PageRequest.of(1, 1);
+        Product second = new Product();
+        second.setProductId(UUID.randomUUID().toString());
+        second.setProductName("Tester Kit");
+        when(productRepository.findAllByOrderByScoreDesc(any(TextCriteria.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(), pageable, 0));
+        when(productSuggestionIndex.productIdsMatchingPrefixes(eq("tes"), anyInt()))
+                .thenReturn(List.of(product.getProductId(), second.getProductId()));
+        when(productRepository.findAllById(List.of(second.getProductId()))).thenReturn(List.of(second));
+
+        // When
+        Page<ProductResponseDto> result = productService.searchProducts("tes", pageable);
+
+        // Then
+        assertEquals(2, result.getTotalElements());
+        assertEquals(List.of(second.getProductId()),
+                result.getContent().stream().map(ProductResponseDto::getProductId).toList());
+    }
+
+    @Test
+    void scrollProducts_fetchesOneExtraAndReturnsCursorForNextPage() {
+        // Given
+        Product second = new Product();
+        second.setProductId(UUID.randomUUID().toString());
+        second.setProductName("Zeta Product");
+        Product third = new Product();
+        third.setProductId(UUID.randomUUID().toString());
+        third.setProductName("Zulu Product");
+        when(productRepository.findAfter("productName", Sort.Direction.ASC, null, null, 3))
+                .thenReturn(Arrays.asList(product, second, third));
+        when(productRepository.findAfter("productName", Sort.Direction.ASC, "Zeta Product", second.getProductId(), 3))
+                .thenReturn(Collections.singletonList(third));
+
+        // When
+        CursorPageDto<ProductResponseDto> first = productService.scrollProducts("name", "asc", null, 2);
+        CursorPageDto<ProductResponseDto> next = productService.scrollProducts("name", "asc", first.getNextCursor(), 2);
+
+        // Then
+        assertTrue(first.isHasNext());
+        assertEquals(2, first.getContent().size());
+        assertNotNull(first.getNextCursor());
+        assertFalse(next.isHasNext());
+        assertNull(next.getNextCursor());
+        assertEquals(third.getProductId(), next.getContent().get(0).getProductId());
+        verify(productRepository, never()).count();
+    }
+
+    @Test
+    void scrollProducts_pageEndingOnNullKey_continuesAcrossNullBoundary() {
+        // Given: finalPrice'ı olmayan eski ürünler artan sırada başta gelir
+        Product second = new Product();
+        second.setProductId(UUID.randomUUID().toString());
+        Product third = new Product();
+        third.setProductId(UUID.randomUUID().toString());
+        third.setFinalPrice(new BigDecimal("10.00"));
+        when(productRepository.findAfter("finalPrice", Sort.Direction.ASC, null, null, 3))
+                .thenReturn(Arrays.asList(product, second, third));
+        when(productRepository.findAfter("finalPrice", Sort.Direction.ASC, null, second.getProductId(), 3))
+                .thenReturn(Collections.singletonList(third));
+
+        // When
+        CursorPageDto<ProductResponseDto> first = productService.scrollProducts("price", "asc", null, 2);
+        CursorPageDto<ProductResponseDto> next = productService.scrollProducts("price", "asc", first.getNextCursor(), 2);
+
+        // Then
+        assertTrue(first.isHasNext());
+        assertEquals(List.of(third.getProductId()), next.getContent().stream().map(ProductResponseDto::getProductId).toList());
+        assertFalse(next.isHasNext());
+    }
+
+    @Test
+    void scrollProducts_emptyNameKey_isNotTreatedAsNull() {
+        // Given
+        product.setProductName("");
+        Product second = new Product();
+        second.setProductId(UUID.randomUUID().toString());
+        second.setProductName("Alpha");
+        when(productRepository.findAfter("productName", Sort.Direction.ASC, null, null, 2))
+                .thenReturn(Arrays.asList(product, second));
+
+        // When
+        CursorPageDto<ProductResponseDto> first = productService.scrollProducts("name", "asc", null, 1);
+        productService.scrollProducts("name", "asc", first.getNextCursor(), 1);
+
+        // Then
+        verify(productRepository).findAfter("productName", Sort.Direction.ASC, "", product.getProductId(), 2);
+    }
+
+    @Test
+    void getTrendingProducts_resolvesTopKInRankOrderAndSkipsDeleted() {
+        // Given
+        Product other = new Product();
+        other.setProductId(UUID.randomUUID().toString());
+        other.setProductName("Other Product");
+        when(trendingProductIndex.top(TrendingWindow.WEEK, null, 3)).thenReturn(List.of(
+                Map.entry(other.getProductId(), 9L),
+                Map.entry("deleted-product", 5L),
+                Map.entry(product.getProductId(), 2L)));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product, other));
+
+        // When
+        List<TrendingProductDto> result = productService.getTrendingProducts("week", null, 3);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(1, result.get(0).getRank());
+        assertEquals(other.getProductId(), result.get(0).getProduct().getProductId());
+        assertEquals(9L, result.get(0).getUnitsSold());
+        assertEquals(2, result.get(1).getRank());
+        assertEquals(product.getProductId(), result.get(1).getProduct().getProductId());
+    }
+
+    @Test
+    void getFrequentlyBoughtTogether_servesCountsFromIndex() {
+        // Given
+        Product charger = new Product();
+        charger.setProductId(UUID.randomUUID().toString());
+        charger.setProductName("Charger");
+        when(productRepository.existsById(product.getProductId())).thenReturn(true);
+        when(frequentlyBoughtTogetherIndex.related(product.getProductId(), 5))
+                .thenReturn(List.of(Map.entry(charger.getProductId(), 12L)));
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(charger));
+
+        // When
+        List<RelatedProductDto> result = productService.getFrequentlyBoughtTogether(product.getProductId(), 5);
+
+        // Then
         assertEquals(1, result.size());
-        verify(productRepository).findByProductNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query, query);
+        assertEquals(12L, result.get(0).getCoPurchaseCount());
+        assertEquals("Charger", result.get(0).getProduct().getProductName());
+    }
+
+    @Test
+    void getTrendingProducts_unknownWindow_throwsException() {
+        assertThrows(InvalidRequestException.class, () -> productService.getTrendingProducts("month", null, 10));
+        verifyNoInteractions(trendingProductIndex);
+    }
+
+    @Test
+    void scrollProducts_cursorFromDifferentSort_throwsException() {
+        // Given
+        String priceCursor = CursorCodec.encode("products:finalPrice:ASC", "10.00", product.getProductId());
+
+        // When & Then
+        assertThrows(InvalidRequestException.class,
+                () -> productService.scrollProducts("name", "asc", priceCursor, 20));
+        verify(productRepository, never()).findAfter(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getProductById_secondCall_isServedFromCacheUntilEvicted() {
+        // Given
+        when(productRepository.findById(product.getProductId())).thenReturn(Optional.of(product));
+        when(productRepository.updateFields(eq(product.getProductId()), anyMap())).thenAnswer(invocation -> applyFields(invocation.getArgument(1)));
+
+        // When
+        productService.getProductById(product.getProductId());
+        ProductResponseDto cached = productService.getProductById(product.getProductId());
+        productService.updateStock(product.getProductId(), 3);
+        ProductResponseDto reloaded = productService.getProductById(product.getProductId());
+
+        // Then
+        assertEquals(product.getProductId(), cached.getProductId());
+        assertEquals(3, reloaded.getQuantity());
+        // ilk okuma + evict sonrası okuma
+        verify(productRepository, times(2)).findById(product.getProductId());
+    }
+
+    @Test
+    void getReviewCommentsByProductId_usesSingleQuery() {
+        // Given
+        Review review = new Review();
+        review.setComment("Great");
+        when(productRepository.existsById(product.getProductId())).thenReturn(true);
+        when(reviewRepository.findByProductIdAndApprovedTrueAndCommentIsNotNullOrderByCreatedAtDesc(product.getProductId()))
+                .thenReturn(Collections.singletonList(review));
+
+        // When
+        List<String> comments = productService.getReviewCommentsByProductId(product.getProductId());
+
+        // Then
+        assertEquals(Collections.singletonList("Great"), comments);
+        verify(reviewRepository, never()).findByReviewId(anyString());
+    }
+
+    @Test
+    void getApprovedComments_pagesWithCursor() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Review newest = review("r3", now);
+        Review middle = review("r2", now.minusMinutes(1));
+        Review oldest = review("r1", now.minusMinutes(2));
+        when(productRepository.existsById(product.getProductId())).thenReturn(true);
+        when(reviewRepository.findCommentedAfter(product.getProductId(), true, Sort.Direction.DESC, null, null, 3))
+                .thenReturn(Arrays.asList(newest, middle, oldest));
+        when(reviewRepository.findCommentedAfter(product.getProductId(), true, Sort.Direction.DESC,
+                middle.getCreatedAt(), "r2", 3))
+                .thenReturn(Collections.singletonList(oldest));
+
+        // When
+        CursorPageDto<ReviewDto> first = productService.getApprovedComments(product.getProductId(), null, 2);
+        CursorPageDto<ReviewDto> second = productService.getApprovedComments(product.getProductId(), first.getNextCursor(), 2);
+
+        // Then
+        assertEquals(Arrays.asList("r3", "r2"), first.getContent().stream().map(ReviewDto::getReviewId).toList());
+        assertTrue(first.isHasNext());
+        assertEquals("r1", second.getContent().get(0).getReviewId());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void approveReview_updatesReviewWithoutRewritingProduct() {
+        // Given
+        Review pending = review("r1", LocalDateTime.now());
+        pending.setApproved(false);
+        when(reviewRepository.findByReviewId("r1")).thenReturn(Optional.of(pending));
+        when(productRepository.existsById(product.getProductId())).thenReturn(true);
+
+        // When
+        productService.approveReview("r1");
+
+        // Then
+        assertTrue(pending.getApproved());
+        verify(reviewRepository).save(pending);
+        verify(productRepository, never()).save(any(Product.class));
+        verify(productRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void getModerationQueue_withoutProduct_readsPendingOldestFirst() {
+        // Given
+        Review pending = review("r1", LocalDateTime.now());
+        pending.setApproved(false);
+        when(reviewRepository.findCommentedAfter(null, false, Sort.Direction.ASC, null, null, 21))
+                .thenReturn(Collections.singletonList(pending));
+
+        // When
+        CursorPageDto<ReviewDto> queue = productService.getModerationQueue(null, null, 20);
+
+        // Then
+        assertEquals(1, queue.getContent().size());
+        assertFalse(queue.isHasNext());
+        assertNull(queue.getNextCursor());
+    }
+
+    @Test
+    void getModerationQueue_pageEndingOnReviewWithoutCreatedAt_continuesWithNextPage() {
+        // Given: createdAt'i olmayan eski yorumlar artan sırada başta gelir
+        Review legacy = review("r1", null);
+        legacy.setApproved(false);
+        Review recent = review("r2", LocalDateTime.of(2024, 5, 1, 12, 0));
+        recent.setApproved(false);
+        when(reviewRepository.findCommentedAfter(null, false, Sort.Direction.ASC, null, null, 2))
+                .thenReturn(Arrays.asList(legacy, recent));
+        when(reviewRepository.findCommentedAfter(null, false, Sort.Direction.ASC, null, "r1", 2))
+                .thenReturn(Collections.singletonList(recent));
+
+        // When
+        CursorPageDto<ReviewDto> first = productService.getModerationQueue(null, null, 1);
+        CursorPageDto<ReviewDto> second = productService.getModerationQueue(null, first.getNextCursor(), 1);
+
+        // Then
+        assertTrue(first.isHasNext());
+        assertEquals("r2", second.getContent().get(0).getReviewId());
+        assertFalse(second.isHasNext());
+    }
+
+    @Test
+    void moderateReviews_appliesAllDecisionsInOneBulkWrite() {
+        // Given
+        ReviewModerationRequest request = new ReviewModerationRequest();
+        request.setApproveReviewIds(Arrays.asList("r1", "r2", "r1"));
+        request.setRejectReviewIds(Collections.singletonList("r3"));
+        when(reviewRepository.moderate(anyCollection(), anyCollection()))
+                .thenReturn(BulkWriteResult.acknowledged(0, 3, 0, 3, Collections.emptyList(), Collections.emptyList()));
+
+        // When
+        ReviewModerationResultDto result = productService.moderateReviews(request);
+
+        // Then
+        assertEquals(2, result.getApproveRequested());
+        assertEquals(1, result.getRejectRequested());
+        assertEquals(3, result.getModified());
+        verify(reviewRepository).moderate(argThat(ids -> ids.size() == 2), argThat(ids -> ids.contains("r3")));
+        verify(reviewRepository, never()).save(any(Review.class));
+    }
+
+    @Test
+    void moderateReviews_sameIdApprovedAndRejected_throwsException() {
+        // Given
+        ReviewModerationRequest request = new ReviewModerationRequest();
+        request.setApproveReviewIds(Collections.singletonList("r1"));
+        request.setRejectReviewIds(Collections.singletonList("r1"));
+
+        // When & Then
+        assertThrows(InvalidRequestException.class, () -> productService.moderateReviews(request));
+        verify(reviewRepository, never()).moderate(anyCollection(), anyCollection());
+    }
+
+    // updateFields'ın $set'ini test ürününe uygular
+    private Product applyFields(Map<String, Object> fields) {
+        fields.forEach((field, value) -> {
+            switch (field) {
+                case "quantity" -> product.setQuantity((Integer) value);
+                case "inStock" -> product.setInStock((Boolean) value);
+                case "cost" -> product.setCost((BigDecimal) value);
+                default -> throw new AssertionError("Unexpected field " + field);
+            }
+        });
+        return product;
+    }
+
+    private Review review(String reviewId, LocalDateTime createdAt) {
+        Review review = new Review();
+        review.setReviewId(reviewId);
+        review.setProductId(product.getProductId());
+        review.setComment("comment " + reviewId);
+        review.setApproved(true);
+        review.setCreatedAt(createdAt);
+        return review;
     }
 }
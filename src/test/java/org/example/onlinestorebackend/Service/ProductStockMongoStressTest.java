@@ -0,0 +1,177 @@
+package org.example.onlinestorebackend.Service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.ProductRepositoryCustomImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gerçek bir MongoDB üzerinde aynı SKU'yu alan çok sayıda thread: eski read-modify-write
+ * (findById + save) ile koşullu update ile düşüş karşılaştırılır; fazla satış, kaybolan popülerlik
+ * ve saniyedeki satın alma sayısı yazdırılır. Çok satırlı sepetlerde stoğu yetmeyen satırın öncekileri
+ * geri alması da aynı yarış altında doğrulanır.
+ * Normal test koşusunda çalışmaz: gradle test -Dmongo.stress.uri=mongodb://localhost:27017/stock_stress
+ */
+@EnabledIfSystemProperty(named = "mongo.stress.uri", matches = ".+")
+class ProductStockMongoStressTest {
+
+    private static final String PRODUCT_ID = "stress-sku";
+    private static final String SECOND_PRODUCT_ID = "stress-sku-2";
+    private static final int SECOND_STOCK = 5_000;
+    private static final int STOCK = 2_000;
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 100;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ProductRepositoryCustomImpl productRepository;
+
+    @BeforeEach
+    void setUp() {
+        String uri = System.getProperty("mongo.stress.uri");
+        client = MongoClients.create(uri);
+        String database = uri.substring(uri.lastIndexOf('/') + 1).split("\\?")[0];
+        mongoTemplate = new MongoTemplate(client, database.isEmpty() ? "stock_stress" : database);
+        productRepository = new ProductRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.remove(Query.query(Criteria.where("productId").in(PRODUCT_ID, SECOND_PRODUCT_ID)), Product.class);
+        client.close();
+    }
+
+    @Test
+    void atomicDecrement_neverOversellsAndOutperformsReadModifyWrite() throws Exception {
+        Result legacy = run(() -> {
+            Product product = mongoTemplate.findById(PRODUCT_ID, Product.class);
+            if (product == null || product.getQuantity() < 1) {
+                return false;
+            }
+            product.setQuantity(product.getQuantity() - 1);
+            product.setInStock(product.getQuantity() > 0);
+            product.setPopularity(product.getPopularity() + 1);
+            mongoTemplate.save(product);
+            return true;
+        });
+        Result atomic = run(() -> productRepository.decrementStocks(Map.of(PRODUCT_ID, 1), Map.of()) == null);
+
+        System.out.printf("%-20s %-10s %-10s %-12s %-12s %-10s%n",
+                "strategy", "sold", "stock", "oversold", "lost pop.", "ops/s");
+        legacy.print("read-modify-write");
+        atomic.print("conditional update");
+
+        assertEquals(STOCK, atomic.sold);
+        assertEquals(0, atomic.finalQuantity);
+        assertEquals(STOCK, atomic.finalPopularity);
+        assertFalse(atomic.finalInStock);
+    }
+
+    @Test
+    void multiLineCheckouts_neverOversellAndCompensateTheOtherLine() throws Exception {
+        // Sepetlerin yarısı satırları ters sırayla gönderir; ilk ürün bitince ikinci ürünün düşülen adetleri geri dönmeli
+        seed(SECOND_PRODUCT_ID, SECOND_STOCK);
+        AtomicInteger basket = new AtomicInteger();
+        Result result = run(() -> {
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            if (basket.incrementAndGet() % 2 == 0) {
+                quantities.put(PRODUCT_ID, 1);
+                quantities.put(SECOND_PRODUCT_ID, 1);
+            } else {
+                quantities.put(SECOND_PRODUCT_ID, 1);
+                quantities.put(PRODUCT_ID, 1);
+            }
+            return productRepository.decrementStocks(quantities, Map.of()) == null;
+        });
+        Product second = mongoTemplate.findById(SECOND_PRODUCT_ID, Product.class);
+
+        result.print("ordered bulk, 2 lines");
+        assertEquals(STOCK, result.sold);
+        assertEquals(0, result.finalQuantity);
+        assertEquals(STOCK, result.finalPopularity);
+        assertEquals(SECOND_STOCK - STOCK, second.getQuantity());
+        assertEquals(STOCK, second.getPopularity());
+        assertTrue(second.getInStock());
+    }
+
+    private Result run(Purchase purchase) throws Exception {
+        seed(PRODUCT_ID, STOCK);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            buyers.add(pool.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    attempts.incrementAndGet();
+                    if (purchase.buy()) {
+                        sold.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+
+        Product after = mongoTemplate.findById(PRODUCT_ID, Product.class);
+        return new Result(sold.get(), after.getQuantity(), after.getPopularity(), Boolean.TRUE.equals(after.getInStock()),
+                attempts.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed);
+    }
+
+    private void seed(String productId, int stock) {
+        mongoTemplate.remove(Query.query(Criteria.where("productId").is(productId)), Product.class);
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductName("Stress Product");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(stock);
+        product.setInStock(true);
+        product.setPopularity(0);
+        mongoTemplate.insert(product);
+    }
+
+    @FunctionalInterface
+    private interface Purchase {
+        boolean buy();
+    }
+
+    private record Result(int sold, int finalQuantity, int finalPopularity, boolean finalInStock, double opsPerSecond) {
+
+        void print(String strategy) {
+            // Satılan her birim stoktan bir düşmeli ve popülerliği bir artırmalı
+            int oversold = Math.max(0, sold - (STOCK - finalQuantity));
+            System.out.printf("%-20s %-10d %-10d %-12d %-12d %-10.0f%n", strategy, sold, finalQuantity,
+                    oversold, sold - finalPopularity, opsPerSecond);
+        }
+    }
+}
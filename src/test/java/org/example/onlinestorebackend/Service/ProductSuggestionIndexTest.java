@@ -0,0 +1,93 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Dto.ProductSuggestionDto;
+import org.example.onlinestorebackend.Entity.Category;
+import org.example.onlinestorebackend.Entity.Product;
+import org.example.onlinestorebackend.Repository.CategoryRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSuggestionIndexTest {
+
+    @Mock private ProductRepository productRepository;
+    @Mock private CategoryRepository categoryRepository;
+    @InjectMocks private ProductSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findAll()).thenReturn(List.of(
+                product("p1", "MacBook Pro 14", 5),
+                product("p2", "Magic Mouse", 40),
+                product("p3", "Lenovo Legion Laptop", 12)));
+        Category laptops = new Category();
+        laptops.setCategoryId("c1");
+        laptops.setCategoryName("Laptops");
+        when(categoryRepository.findAll()).thenReturn(List.of(laptops));
+        index.rebuild();
+    }
+
+    @Test
+    void suggest_matchesAnyWordPrefix_rankedByPopularity() {
+        List<ProductSuggestionDto> result = index.suggest("ma", 10);
+
+        assertEquals(List.of("p2", "p1"), result.stream().map(ProductSuggestionDto::getId).toList());
+    }
+
+    @Test
+    void suggest_categoriesComeBeforeProducts_andLimitIsApplied() {
+        List<ProductSuggestionDto> result = index.suggest("LA", 1);
+
+        assertEquals(1, result.size());
+        assertEquals(ProductSuggestionIndex.TYPE_CATEGORY, result.get(0).getType());
+        assertEquals("Laptops", result.get(0).getText());
+    }
+
+    @Test
+    void upsertProduct_replacesOldNameTokens() {
+        index.upsertProduct(product("p1", "Surface Book", 5));
+
+        assertTrue(index.suggest("mac", 10).isEmpty());
+        assertEquals("p1", index.suggest("book", 10).get(0).getId());
+    }
+
+    @Test
+    void removeProduct_dropsAllEntries() {
+        index.removeProduct("p2");
+
+        assertTrue(index.suggest("magic", 10).isEmpty());
+        assertEquals(List.of("p1"), index.suggest("ma", 10).stream().map(ProductSuggestionDto::getId).toList());
+    }
+
+    @Test
+    void suggest_blankPrefix_returnsEmpty() {
+        assertTrue(index.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void productIdsMatchingPrefixes_partialWords_matchProductsContainingAllOfThem() {
+        assertEquals(List.of("p3"), index.productIdsMatchingPrefixes("lapt", 10));
+        assertEquals(List.of("p1"), index.productIdsMatchingPrefixes("mac pr", 10));
+        assertEquals(List.of("p2", "p1"), index.productIdsMatchingPrefixes("MA", 10));
+        assertTrue(index.productIdsMatchingPrefixes("mac mouse", 10).isEmpty());
+        assertTrue(index.productIdsMatchingPrefixes(" ", 10).isEmpty());
+    }
+
+    private Product product(String id, String name, int popularity) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setProductName(name);
+        p.setPopularity(popularity);
+        return p;
+    }
+}
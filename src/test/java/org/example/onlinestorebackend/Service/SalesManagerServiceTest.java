@@ -20,6 +20,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,6 +37,7 @@ class SalesManagerServiceTest {
     @Mock private WishListService wishListService;
     @Mock private UserService userService;
     @Mock private MailService mailService;
+    @Mock private ProductCache productCache;
 
     @InjectMocks
     private SalesManagerService salesManagerService;
@@ -50,7 +52,7 @@ class SalesManagerServiceTest {
 
     @Test
     void setDiscount_productNotFound_throws() {
-        when(productRepository.findById("p1")).thenReturn(Optional.empty());
+        when(productRepository.updateFields("p1", Map.of("discount", new BigDecimal("10")))).thenReturn(null);
         assertThrows(ResourceNotFoundException.class, () ->
                 salesManagerService.setDiscount(List.of("p1"), new BigDecimal("10"))
         );
@@ -69,8 +71,11 @@ class SalesManagerServiceTest {
         wl.setUserId("u1");
         wl.setProductIds(List.of(productId));
 
-        when(productRepository.findById(productId)).thenReturn(Optional.of(p));
-        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.updateFields(productId, Map.of("discount", new BigDecimal("15")))).thenAnswer(invocation -> {
+            p.setDiscount(new BigDecimal("15"));
+            p.refreshFinalPrice();
+            return p;
+        });
         when(wishListService.findWishListsContainingProduct(productId)).thenReturn(List.of(wl));
         when(userService.getEmailByUserId("u1")).thenReturn("u1@example.com");
 
@@ -87,6 +92,24 @@ class SalesManagerServiceTest {
         );
     }
 
+    @Test
+    void setPrice_writesOnlyPriceAndReturnsUpdatedProduct() {
+        Product p = new Product();
+        p.setProductId("p1");
+        p.setPrice(new BigDecimal("250"));
+        p.setDiscount(new BigDecimal("20"));
+        p.setQuantity(7);
+        p.refreshFinalPrice();
+
+        when(productRepository.updateFields("p1", Map.of("price", new BigDecimal("250")))).thenReturn(p);
+
+        Product updated = salesManagerService.setPrice("p1", new BigDecimal("250"));
+
+        assertEquals(new BigDecimal("200.00"), updated.getFinalPrice());
+        verify(productRepository, never()).save(any(Product.class));
+        verify(productCache).evict("p1");
+    }
+
     @Test
     void getMetrics_usesInvoiceOrders_sumsRevenueAndCost() {
         LocalDateTime from = LocalDateTime.now().minusDays(2);
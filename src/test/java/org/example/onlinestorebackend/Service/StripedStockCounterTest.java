@@ -0,0 +1,92 @@
+package org.example.onlinestorebackend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedStockCounterTest {
+
+    @Test
+    void tryAcquire_collectsUnitsSpreadAcrossStripes() {
+        // Given: 10 adet 4 şeride 3-3-2-2 dağılır, hiçbir şerit tek başına 5 adet taşımaz
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+
+        // When & Then
+        assertTrue(counter.tryAcquire(5));
+        assertTrue(counter.tryAcquire(5));
+        assertEquals(0, counter.remaining());
+        assertFalse(counter.tryAcquire(1));
+    }
+
+    @Test
+    void tryAcquire_insufficientTotal_takesNothing() {
+        // Given
+        StripedStockCounter counter = new StripedStockCounter(7, 4);
+
+        // When & Then
+        assertFalse(counter.tryAcquire(8));
+        assertEquals(7, counter.remaining());
+    }
+
+    @Test
+    void drain_emptiesCounterAndReturnsRemaining() {
+        // Given
+        StripedStockCounter counter = new StripedStockCounter(9, 3);
+        counter.tryAcquire(2);
+        counter.release(1);
+
+        // When
+        int drained = counter.drain();
+
+        // Then
+        assertEquals(8, drained);
+        assertEquals(0, counter.remaining());
+    }
+
+    @Test
+    void concurrentAcquire_neverHandsOutMoreThanAllocated() throws Exception {
+        // Given
+        int units = 1_000;
+        StripedStockCounter counter = new StripedStockCounter(units, 8);
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+
+        // When: her thread 1-3 adetlik alımlar dener, arada bir iade eder
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            int quantity = i % 3 + 1;
+            buyers.add(pool.submit(() -> {
+                start.await();
+                for (int attempt = 0; attempt < 200; attempt++) {
+                    if (counter.tryAcquire(quantity)) {
+                        if (attempt % 10 == 0) {
+                            counter.release(quantity);
+                        } else {
+                            acquired.addAndGet(quantity);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Then
+        assertEquals(units, acquired.get() + counter.remaining());
+        assertTrue(counter.remaining() < 3);
+    }
+}
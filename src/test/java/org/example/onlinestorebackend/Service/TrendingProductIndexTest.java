@@ -0,0 +1,129 @@
+package org.example.onlinestorebackend.Service;
+
+import org.example.onlinestorebackend.Entity.Order;
+import org.example.onlinestorebackend.Entity.OrderItem;
+import org.example.onlinestorebackend.Repository.OrderRepository;
+import org.example.onlinestorebackend.Repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingProductIndexTest {
+
+    @Mock private OrderRepository orderRepository;
+    @Mock private ProductRepository productRepository;
+
+    private final AtomicLong now = new AtomicLong();
+    private TrendingProductIndex index;
+
+    @BeforeEach
+    void setUp() {
+        now.set(LocalDateTime.of(2025, 1, 6, 12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        index = new TrendingProductIndex(orderRepository, productRepository, now::get);
+    }
+
+    @Test
+    void top_ranksGloballyAndPerCategoryByUnitsSold() {
+        // Given
+        Map<String, List<String>> categories = Map.of(
+                "p1", List.of("phones"), "p2", List.of("phones"), "p3", List.of("laptops"));
+        index.recordOrder(order(0, item("p1", 2), item("p3", 5)), categories);
+        index.recordOrder(order(0, item("p2", 4)), categories);
+        index.recordOrder(order(0, item("p1", 3)), categories);
+
+        // When
+        List<Map.Entry<String, Long>> global = index.top(TrendingWindow.HOUR, null, 10);
+        List<Map.Entry<String, Long>> phones = index.top(TrendingWindow.HOUR, "phones", 1);
+
+        // Then
+        assertEquals(List.of(Map.entry("p1", 5L), Map.entry("p3", 5L), Map.entry("p2", 4L)), global);
+        assertEquals(List.of(Map.entry("p1", 5L)), phones);
+        assertTrue(index.top(TrendingWindow.HOUR, "garden", 10).isEmpty());
+    }
+
+    @Test
+    void recordCancellation_subtractsFromTheOrdersBucket() {
+        // Given
+        Map<String, List<String>> categories = Map.of("p1", List.of("phones"), "p2", List.of("phones"));
+        Order order = order(0, item("p1", 6));
+        index.recordOrder(order, categories);
+        index.recordOrder(order(0, item("p2", 2)), categories);
+
+        // When
+        index.recordCancellation(order, categories);
+
+        // Then
+        assertEquals(List.of(Map.entry("p2", 2L)), index.top(TrendingWindow.DAY, "phones", 10));
+        assertEquals(List.of(Map.entry("p2", 2L)), index.top(TrendingWindow.WEEK, null, 10));
+    }
+
+    @Test
+    void top_dropsSalesThatLeftTheWindow() {
+        // Given
+        Map<String, List<String>> categories = Map.of();
+        index.recordOrder(order(0, item("p1", 1)), categories);
+
+        // When
+        now.addAndGet(TimeUnit.MINUTES.toMillis(90));
+
+        // Then
+        assertTrue(index.top(TrendingWindow.HOUR, null, 10).isEmpty());
+        assertEquals(List.of(Map.entry("p1", 1L)), index.top(TrendingWindow.DAY, null, 10));
+    }
+
+    @Test
+    void recordCancellation_ofOrderOutsideWindow_isIgnored() {
+        // Given
+        Map<String, List<String>> categories = Map.of();
+        Order old = order(-120, item("p1", 3));
+        index.recordOrder(order(0, item("p1", 1)), categories);
+
+        // When
+        index.recordCancellation(old, categories);
+
+        // Then
+        assertEquals(List.of(Map.entry("p1", 1L)), index.top(TrendingWindow.HOUR, null, 10));
+    }
+
+    @Test
+    void recordOrder_categoryChange_movesProductBetweenCategoryRankings() {
+        // Given
+        index.recordOrder(order(0, item("p1", 2)), Map.of("p1", List.of("phones")));
+
+        // When
+        index.recordOrder(order(0, item("p1", 1)), Map.of("p1", List.of("accessories")));
+
+        // Then
+        assertTrue(index.top(TrendingWindow.HOUR, "phones", 10).isEmpty());
+        assertEquals(List.of(Map.entry("p1", 3L)), index.top(TrendingWindow.HOUR, "accessories", 10));
+    }
+
+    private Order order(int minutesFromNow, OrderItem... items) {
+        Order order = new Order();
+        order.setOrderDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(now.get()), ZoneId.systemDefault())
+                .plusMinutes(minutesFromNow));
+        order.setItems(new ArrayList<>(List.of(items)));
+        return order;
+    }
+
+    private OrderItem item(String productId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}